@@ -16,9 +16,14 @@
 package com.neovisionaries.android.database;
 
 
+import java.util.BitSet;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import android.database.AbstractWindowedCursor;
 import android.database.CharArrayBuffer;
 import android.database.Cursor;
 import android.database.CursorWrapper;
+import android.database.sqlite.SQLiteDatabase;
 
 
 /**
@@ -30,6 +35,36 @@ import android.database.CursorWrapper;
  */
 public class BaseCursor extends CursorWrapper
 {
+    /**
+     * The wrapped cursor.
+     */
+    private final Cursor wrapped;
+
+
+    /**
+     * Cache of column indexes, which is obtained lazily.
+     */
+    private ColumnIndexCache columnIndexCache;
+
+
+    /**
+     * Read-ahead of windows, or null if disabled.
+     */
+    private ReadAhead readAhead;
+
+
+    /**
+     * Pooled character views indexed by column, which are created lazily.
+     */
+    private ColumnChars[] charsPool;
+
+
+    /**
+     * Boolean decoders indexed by column, which are created lazily.
+     */
+    private BooleanDecoder[] booleanDecoders;
+
+
     /**
      * Constructor that just calls {@code super(cursor)}.
      *
@@ -39,6 +74,239 @@ public class BaseCursor extends CursorWrapper
     public BaseCursor(Cursor cursor)
     {
         super(cursor);
+
+        this.wrapped = cursor;
+    }
+
+
+    /**
+     * Get the wrapped cursor.
+     */
+    Cursor getWrapped()
+    {
+        return wrapped;
+    }
+
+
+    /**
+     * Enable the read-ahead of the windows of the wrapped cursor.
+     *
+     * <p>
+     * A SQLite cursor holds a window of rows and fills the next window
+     * when the reader moves out of the current one, which may take long
+     * enough to cause visible jank on the UI thread. In the read-ahead
+     * mode, when the reader moving forward has passed three quarters of
+     * the current window, the rows of the next window are fetched on a
+     * worker thread by executing the given query again with {@code LIMIT}
+     * and {@code OFFSET}. When the reader reaches them, the filled window
+     * is handed to the wrapped cursor, which then does not need to fill
+     * the window by itself. The reader never waits for the worker; if
+     * the window is not ready yet, the wrapped cursor fills it as usual.
+     * </p>
+     *
+     * <p>
+     * The given query must be the query of the wrapped cursor, and it must
+     * return the same rows in the same order when executed again (that is,
+     * it must have a deterministic {@code ORDER BY} and the tables must not
+     * be modified meanwhile, for example, by holding the read lock of
+     * {@link BaseOpenHelper} while the cursor is used). The database must
+     * stay open until this cursor is closed.
+     * </p>
+     *
+     * <p>
+     * How long the reader still waits per window can be obtained by
+     * {@link #getReadAheadStatistics()}.
+     * </p>
+     *
+     * @param db
+     *         The database on which the query of the wrapped cursor
+     *         was executed.
+     *
+     * @param sql
+     *         The query of the wrapped cursor, without {@code LIMIT}.
+     *
+     * @param selectionArgs
+     *         The arguments of the query, or {@code null}.
+     *
+     * @throws IllegalArgumentException
+     *         {@code db} or {@code sql} is {@code null}.
+     *
+     * @throws IllegalStateException
+     *         The wrapped cursor is not a windowed cursor.
+     *
+     * @since 1.13
+     */
+    public void enableReadAhead(SQLiteDatabase db, String sql, String[] selectionArgs)
+    {
+        if (db == null)
+        {
+            throw new IllegalArgumentException("db is null.");
+        }
+
+        if (sql == null)
+        {
+            throw new IllegalArgumentException("sql is null.");
+        }
+
+        Cursor cursor = wrapped;
+
+        while (cursor instanceof BaseCursor)
+        {
+            cursor = ((BaseCursor)cursor).getWrapped();
+        }
+
+        if ((cursor instanceof AbstractWindowedCursor) == false)
+        {
+            throw new IllegalStateException("The wrapped cursor is not a windowed cursor.");
+        }
+
+        disableReadAhead();
+
+        readAhead = new ReadAhead((AbstractWindowedCursor)cursor, db, sql, selectionArgs);
+    }
+
+
+    /**
+     * Disable the read-ahead enabled by {@link #enableReadAhead(SQLiteDatabase,
+     * String, String[])}.
+     *
+     * @since 1.13
+     */
+    public void disableReadAhead()
+    {
+        if (readAhead != null)
+        {
+            readAhead.close();
+            readAhead = null;
+        }
+    }
+
+
+    /**
+     * Get the counters of the read-ahead, including how long the reader
+     * waited for windows.
+     *
+     * @return
+     *         The counters, or {@code null} if the read-ahead is disabled.
+     *
+     * @since 1.13
+     */
+    public ReadAheadStatistics getReadAheadStatistics()
+    {
+        return (readAhead == null) ? null : readAhead.getStatistics();
+    }
+
+
+    @Override
+    public boolean moveToPosition(int position)
+    {
+        ReadAhead readAhead = this.readAhead;
+
+        if (readAhead == null)
+        {
+            return super.moveToPosition(position);
+        }
+
+        long startTime = readAhead.beforeMove(position);
+        boolean moved = super.moveToPosition(position);
+        readAhead.afterMove(startTime);
+
+        return moved;
+    }
+
+
+    @Override
+    public boolean move(int offset)
+    {
+        // Route all the moves through moveToPosition() for the read-ahead.
+        return (readAhead == null) ? super.move(offset) : moveToPosition(getPosition() + offset);
+    }
+
+
+    @Override
+    public boolean moveToFirst()
+    {
+        return (readAhead == null) ? super.moveToFirst() : moveToPosition(0);
+    }
+
+
+    @Override
+    public boolean moveToLast()
+    {
+        return (readAhead == null) ? super.moveToLast() : moveToPosition(getCount() - 1);
+    }
+
+
+    @Override
+    public boolean moveToNext()
+    {
+        return (readAhead == null) ? super.moveToNext() : moveToPosition(getPosition() + 1);
+    }
+
+
+    @Override
+    public boolean moveToPrevious()
+    {
+        return (readAhead == null) ? super.moveToPrevious() : moveToPosition(getPosition() - 1);
+    }
+
+
+    /**
+     * Close this cursor. The read-ahead is stopped, too.
+     */
+    @Override
+    public void close()
+    {
+        disableReadAhead();
+
+        super.close();
+    }
+
+
+    /**
+     * Get the column index for the given column name.
+     *
+     * <p>
+     * The result is the same as that of the wrapped cursor's
+     * {@code getColumnIndex(String)}, but this implementation looks
+     * up the index from a {@link ColumnIndexCache} which is shared
+     * among cursors having the same column layout. Therefore, the
+     * linear scan over the column names is not repeated for every
+     * row when {@code getXxxByName(String)} methods are used.
+     * </p>
+     *
+     * @param columnName
+     *         Column name.
+     *
+     * @return
+     *         The column index, or -1 if the column does not exist.
+     *
+     * @since 1.13
+     */
+    @Override
+    public int getColumnIndex(String columnName)
+    {
+        return getColumnIndexCache().getColumnIndex(columnName);
+    }
+
+
+    /**
+     * Get the cache of column indexes for the column layout of this cursor.
+     *
+     * @return
+     *         The cache of column indexes.
+     *
+     * @since 1.13
+     */
+    public ColumnIndexCache getColumnIndexCache()
+    {
+        if (columnIndexCache == null)
+        {
+            // Look up the shared cache only once per cursor.
+            columnIndexCache = ColumnIndexCache.getInstance(getColumnNames());
+        }
+
+        return columnIndexCache;
     }
 
 
@@ -78,6 +346,95 @@ public class BaseCursor extends CursorWrapper
     }
 
 
+    /**
+     * Get a view of the characters of the requested column of the current
+     * row without creating a {@code String}.
+     *
+     * <p>
+     * The value is copied by {@link #copyStringToBuffer(int, CharArrayBuffer)}
+     * into a buffer pooled per column, which is reused for the following
+     * rows, so reading string columns of many rows produces no garbage
+     * once the buffers have grown large enough. The returned view is
+     * owned by this cursor and is valid only until the cursor moves.
+     * </p>
+     *
+     * @param columnIndex
+     *         Column index.
+     *
+     * @return
+     *         A view of the value. A null value is viewed as an empty
+     *         sequence whose {@link ColumnChars#isNull() isNull()}
+     *         returns {@code true}.
+     *
+     * @since 1.13
+     */
+    public ColumnChars getChars(int columnIndex)
+    {
+        if (charsPool == null)
+        {
+            charsPool = new ColumnChars[getColumnCount()];
+        }
+
+        ColumnChars chars = charsPool[columnIndex];
+
+        if (chars == null)
+        {
+            chars = new ColumnChars();
+            charsPool[columnIndex] = chars;
+        }
+
+        chars.fill(this, columnIndex);
+
+        return chars;
+    }
+
+
+    /**
+     * Get a view of the characters of the requested column of the current
+     * row without creating a {@code String}.
+     *
+     * <p>
+     * This method is equivalent to {@link #getChars(int) getChars}{@code
+     * (}{@link #getColumnIndex(String) getColumnIndex}{@code
+     * (columnName))}.
+     * </p>
+     *
+     * @param columnName
+     *         Column name.
+     *
+     * @return
+     *         A view of the value.
+     *
+     * @since 1.13
+     */
+    public ColumnChars getCharsByName(String columnName)
+    {
+        return getChars(getColumnIndex(columnName));
+    }
+
+
+    /**
+     * Re-execute the query. Views returned by {@link #getChars(int)}
+     * are refilled when they are requested next time.
+     */
+    @Override
+    public boolean requery()
+    {
+        if (charsPool != null)
+        {
+            for (ColumnChars chars : charsPool)
+            {
+                if (chars != null)
+                {
+                    chars.invalidate();
+                }
+            }
+        }
+
+        return super.requery();
+    }
+
+
     /**
      * Get the value of the requested column as a double.
      *
@@ -229,8 +586,17 @@ public class BaseCursor extends CursorWrapper
      * Get the value of the requested column as a boolean.
      *
      * <p>
-     * This method is equivalent to {@code Boolean.valueOf(}{@link #getString(int)
-     * getString}{@code (columnIndex)).booleanValue()}.
+     * The value is decoded according to its storage type. An integer or
+     * a floating-point number is {@code true} if it is not zero. Text is
+     * {@code true} if it is {@code "true"} (ignoring case) or {@code "1"}.
+     * {@code NULL} and any other value are {@code false}. No {@code String}
+     * is created; the encoding seen last in each column is tried first.
+     * </p>
+     *
+     * <p>
+     * Note that, before version 1.13, this method was equivalent to
+     * {@code Boolean.valueOf(}{@link #getString(int) getString}{@code
+     * (columnIndex)).booleanValue()}, which regarded {@code 1} as false.
      * </p>
      *
      * @param columnIndex
@@ -241,9 +607,26 @@ public class BaseCursor extends CursorWrapper
      */
     public boolean getBoolean(int columnIndex)
     {
-        String value = getString(columnIndex);
+        return getBooleanDecoder(columnIndex).decode(this, columnIndex);
+    }
+
+
+    private BooleanDecoder getBooleanDecoder(int columnIndex)
+    {
+        if (booleanDecoders == null)
+        {
+            booleanDecoders = new BooleanDecoder[getColumnCount()];
+        }
+
+        BooleanDecoder decoder = booleanDecoders[columnIndex];
+
+        if (decoder == null)
+        {
+            decoder = new BooleanDecoder(wrapped);
+            booleanDecoders[columnIndex] = decoder;
+        }
 
-        return Boolean.valueOf(value).booleanValue();
+        return decoder;
     }
 
 
@@ -268,6 +651,202 @@ public class BaseCursor extends CursorWrapper
     }
 
 
+    /**
+     * Copy all the rows into an immutable snapshot and close this cursor.
+     *
+     * <p>
+     * The snapshot holds no database resource and can be read by any
+     * number of threads without locking. Use {@link CursorSnapshot#asCursor()}
+     * to pass it to code which expects a {@code Cursor}.
+     * </p>
+     *
+     * @return
+     *         A snapshot of all the rows.
+     *
+     * @see CursorSnapshot
+     *
+     * @since 1.13
+     */
+    public CursorSnapshot snapshot()
+    {
+        try
+        {
+            return CursorSnapshot.of(this);
+        }
+        finally
+        {
+            // Release the native resources right away.
+            close();
+        }
+    }
+
+
+    /**
+     * Decode the requested column of all the rows as booleans.
+     *
+     * <p>
+     * Values are decoded as {@link #getBoolean(int)} does, and the bit
+     * of the row number is set for each {@code true} value. The position
+     * of this cursor is restored after reading.
+     * </p>
+     *
+     * @param columnIndex
+     *         Column index.
+     *
+     * @return
+     *         A bit set whose bits of the rows having {@code true} are set.
+     *
+     * @since 1.13
+     */
+    public BitSet readBooleans(int columnIndex)
+    {
+        return readBooleans(columnIndex, new BitSet(Math.max(0, getCount())));
+    }
+
+
+    /**
+     * Decode the requested column of all the rows as booleans into the
+     * given bit set.
+     *
+     * <p>
+     * The bit set is cleared first and can be reused across calls.
+     * </p>
+     *
+     * @param columnIndex
+     *         Column index.
+     *
+     * @param bits
+     *         A bit set to store the values into.
+     *
+     * @return
+     *         The given bit set.
+     *
+     * @throws IllegalArgumentException
+     *         {@code bits} is {@code null}.
+     *
+     * @since 1.13
+     */
+    public BitSet readBooleans(int columnIndex, BitSet bits)
+    {
+        if (bits == null)
+        {
+            throw new IllegalArgumentException("bits is null.");
+        }
+
+        bits.clear();
+
+        BooleanDecoder decoder = getBooleanDecoder(columnIndex);
+        int position = getPosition();
+        int row = 0;
+
+        for (boolean ok = moveToFirst(); ok; ok = moveToNext(), ++row)
+        {
+            if (decoder.decode(this, columnIndex))
+            {
+                bits.set(row);
+            }
+        }
+
+        moveToPosition(position);
+
+        return bits;
+    }
+
+
+    /**
+     * Decode the requested column of all the rows as booleans.
+     *
+     * <p>
+     * This method is equivalent to {@link #readBooleans(int) readBooleans}{@code
+     * (}{@link #getColumnIndex(String) getColumnIndex}{@code
+     * (columnName))}.
+     * </p>
+     *
+     * @param columnName
+     *         Column name.
+     *
+     * @return
+     *         A bit set whose bits of the rows having {@code true} are set.
+     *
+     * @since 1.13
+     */
+    public BitSet readBooleansByName(String columnName)
+    {
+        return readBooleans(getColumnIndex(columnName));
+    }
+
+
+    /**
+     * Read the columns of all the rows into the given buffers in one pass.
+     *
+     * <p>
+     * The column indexes are resolved once, then all the rows are visited
+     * and the value of each column is stored into the primitive array (or
+     * the packed string table) of its {@link ColumnBuffer}, without boxing.
+     * The buffers can be reused; as long as they are large enough, this
+     * method allocates nothing. Pass a pre-built array rather than
+     * individual buffers to avoid the allocation of the varargs array.
+     * The position of this cursor is restored after reading.
+     * </p>
+     *
+     * @param buffers
+     *         Buffers for the columns to read.
+     *
+     * @return
+     *         The number of rows read.
+     *
+     * @throws IllegalArgumentException
+     *         {@code buffers} is {@code null} or contains a buffer
+     *         whose column does not exist.
+     *
+     * @since 1.13
+     */
+    public int readColumns(ColumnBuffer... buffers)
+    {
+        if (buffers == null)
+        {
+            throw new IllegalArgumentException("buffers is null.");
+        }
+
+        int count = buffers.length;
+        int rows = Math.max(0, getCount());
+
+        for (int i = 0; i < count; ++i)
+        {
+            // Resolve the column index once per call.
+            buffers[i].begin(requireColumnIndex(buffers[i]), rows);
+        }
+
+        int position = getPosition();
+        int row = 0;
+
+        for (boolean ok = moveToFirst(); ok && row < rows; ok = moveToNext(), ++row)
+        {
+            for (int i = 0; i < count; ++i)
+            {
+                buffers[i].read(this, row);
+            }
+        }
+
+        moveToPosition(position);
+
+        return row;
+    }
+
+
+    private int requireColumnIndex(ColumnBuffer buffer)
+    {
+        int index = getColumnIndex(buffer.getColumnName());
+
+        if (index < 0)
+        {
+            throw new IllegalArgumentException("No such column: " + buffer.getColumnName());
+        }
+
+        return index;
+    }
+
+
     /**
      * Wait until this cursor finishes fetching data from the database.
      *
@@ -280,7 +859,7 @@ public class BaseCursor extends CursorWrapper
      *
      * @return
      *         True if this cursor finished data retrieval.
-     *         False if the internal thread was interrupted for some reasons.
+     *         False if the calling thread was interrupted.
      */
     public boolean join()
     {
@@ -293,4 +872,56 @@ public class BaseCursor extends CursorWrapper
         // Wait until getCount() returns a non-negative value.
         return new CursorWaiter(this).join();
     }
+
+
+    /**
+     * Wait until this cursor finishes fetching data from the database,
+     * with timeout.
+     *
+     * @param timeout
+     *         The maximum time to wait.
+     *
+     * @param unit
+     *         The time unit of {@code timeout}.
+     *
+     * @return
+     *         True if this cursor finished data retrieval.
+     *         False if the timeout elapsed or the calling thread was
+     *         interrupted.
+     *
+     * @see CursorWaiter#join(long, TimeUnit)
+     *
+     * @since 1.13
+     */
+    public boolean join(long timeout, TimeUnit unit)
+    {
+        if (0 <= getCount())
+        {
+            // Data retrieval has already finished.
+            return true;
+        }
+
+        return new CursorWaiter(this).join(timeout, unit);
+    }
+
+
+    /**
+     * Get notified when this cursor finishes fetching data from the
+     * database, without blocking the calling thread.
+     *
+     * @param listener
+     *         A listener to be called when this cursor finishes data
+     *         retrieval. May be {@code null}.
+     *
+     * @return
+     *         A {@code Future} which completes with this cursor.
+     *
+     * @see CursorWaiter#joinAsync(CursorWaiterListener)
+     *
+     * @since 1.13
+     */
+    public Future<Cursor> joinAsync(CursorWaiterListener listener)
+    {
+        return new CursorWaiter(this).joinAsync(listener);
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2014 Neo Visionaries Inc.
+ * Copyright (C) 2014-2026 Neo Visionaries Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,30 @@
 package com.neovisionaries.android.database;
 
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteDatabase.CursorFactory;
 import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.util.Log;
 import com.neovisionaries.android.app.App;
 
 
@@ -56,15 +74,203 @@ import com.neovisionaries.android.app.App;
  *     helper.{@link #closeReadable(SQLiteDatabase) closeReadable}(db);
  * }</pre>
  *
+ * <p>
+ * By default, {@link #closeReadable(SQLiteDatabase)} and {@link
+ * #closeWritable(SQLiteDatabase)} close the database every time.
+ * When the lease mode is enabled by {@link #setLeaseEnabled(boolean)},
+ * they just return the lease on the database instead and the database
+ * is kept open until no lease has been active for the idle timeout
+ * ({@link #setIdleTimeout(long, TimeUnit)}). This saves the cost of
+ * opening and closing the database for every short operation.
+ * </p>
+ *
  * @since 1.8
  * @author Takahiko Kawasaki
  */
 public abstract class BaseOpenHelper extends SQLiteOpenHelper
 {
     /**
-     * The internal read-write lock.
+     * The internal lock.
+     */
+    private volatile DatabaseLock lock = new DatabaseLock(LockStrategy.FAIR);
+
+
+    /**
+     * The default idle timeout in milliseconds for the lease mode.
+     */
+    private static final long DEFAULT_IDLE_TIMEOUT = 10 * 1000;
+
+
+    /**
+     * Scheduler shared by all instances to close idle databases.
+     */
+    private static ScheduledExecutorService idleScheduler;
+
+
+    /**
+     * True if the lease mode is enabled.
+     */
+    private volatile boolean leaseEnabled;
+
+
+    /**
+     * Idle timeout in milliseconds for the lease mode.
+     */
+    private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+
+    /**
+     * The number of active leases.
+     */
+    private final AtomicInteger leaseCount = new AtomicInteger();
+
+
+    /**
+     * Monitor under which leases are counted and the database is
+     * closed when the last lease is returned.
+     */
+    private final Object leaseMonitor = new Object();
+
+
+    /**
+     * The time (in milliseconds) when the last lease was returned.
+     * This is updated in both modes.
+     */
+    private volatile long lastReleaseTime;
+
+
+    /**
+     * True while an idle check is scheduled.
+     */
+    private boolean idleCheckScheduled;
+
+
+    /**
+     * The database instance which was returned last.
+     */
+    private final AtomicReference<SQLiteDatabase> currentDatabase =
+        new AtomicReference<SQLiteDatabase>();
+
+
+    /**
+     * The default maximum number of cached statements.
+     */
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 25;
+
+
+    private static final String SQL_CREATE_PENDING_INDEX_TABLE =
+        "CREATE TABLE IF NOT EXISTS " + BulkLoad.PENDING_INDEX_TABLE + " ("
+        + "name TEXT PRIMARY KEY, "
+        + "sql TEXT NOT NULL)";
+
+
+    /**
+     * SQL of indexes which {@link #bulkLoad(BulkLoad, Iterator)} does not drop.
+     */
+    private static final Pattern UNIQUE_INDEX_PATTERN =
+        Pattern.compile("\\s*CREATE\\s+UNIQUE\\s", Pattern.CASE_INSENSITIVE);
+
+
+    /**
+     * Cache of compiled statements.
+     */
+    private final StatementCache statementCache = new StatementCache(DEFAULT_STATEMENT_CACHE_SIZE);
+
+
+    /**
+     * Lock contention instrumentation, or null if disabled.
+     */
+    private volatile LockMonitor lockMonitor;
+
+
+    /**
+     * Listeners notified of writes.
+     */
+    private final List<TableWriteListener> writeListeners =
+        new CopyOnWriteArrayList<TableWriteListener>();
+
+
+    /**
+     * Locks held by each thread, in the order of acquisition.
+     */
+    private final ThreadLocal<HeldLocks> heldLocks = new ThreadLocal<HeldLocks>()
+    {
+        @Override
+        protected HeldLocks initialValue()
+        {
+            return new HeldLocks();
+        }
+    };
+
+
+    /**
+     * The minimum interval of checks by the lease tracker in milliseconds.
+     */
+    private static final long MIN_LEASE_CHECK_INTERVAL = 1000;
+
+
+    /**
+     * Leaked-lease detector, or null if disabled.
+     */
+    private volatile LeaseTracker leaseTracker;
+
+
+    /**
+     * The periodic check by the lease tracker.
+     */
+    private ScheduledFuture<?> leaseCheck;
+
+
+    /**
+     * Records the outcomes of the transactions begun by {@link
+     * #beginTransaction(SQLiteDatabase)}. The listener is called on the
+     * thread which ends the transaction.
+     */
+    private final SQLiteTransactionListener transactionRecorder = new SQLiteTransactionListener()
+    {
+        public void onBegin()
+        {
+        }
+
+
+        public void onCommit()
+        {
+            heldLocks.get().resolve(HeldLocks.COMMITTED);
+        }
+
+
+        public void onRollback()
+        {
+            heldLocks.get().resolve(HeldLocks.ROLLED_BACK);
+        }
+    };
+
+
+    /**
+     * The innermost transaction scope of each thread.
+     */
+    private final ThreadLocal<TransactionScope> currentScopes = new ThreadLocal<TransactionScope>();
+
+
+    /**
+     * The default maximum number of retries of {@link #runInTransaction(DatabaseTask, String...)}.
+     */
+    private static final int DEFAULT_BUSY_RETRY_COUNT = 3;
+
+
+    /**
+     * The default wait before the first retry in milliseconds.
      */
-    private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock(true);
+    private static final long DEFAULT_BUSY_RETRY_BACKOFF = 50;
+
+
+    private volatile int busyRetryCount = DEFAULT_BUSY_RETRY_COUNT;
+    private volatile long busyRetryBackoff = DEFAULT_BUSY_RETRY_BACKOFF;
+
+
+    private final AtomicLong openCount  = new AtomicLong();
+    private final AtomicLong closeCount = new AtomicLong();
+    private final AtomicLong reuseCount = new AtomicLong();
 
 
 
@@ -137,23 +343,68 @@ public abstract class BaseOpenHelper extends SQLiteOpenHelper
      */
     public SQLiteDatabase openReadable()
     {
-        try
-        {
-            // Acquire a read lock before opening the database.
-            beginReadLock();
+        return open(false, null, DatabaseLock.NO_TIMEOUT);
+    }
 
-            // Open the database in read mode.
-            return getReadableDatabase();
-        }
-        catch (SQLiteException e)
-        {
-            // Failed to open the database in read mode.
-            // Release the read lock.
-            endReadLock();
 
-            // Re-throw the SQLiteException.
-            throw e;
-        }
+    /**
+     * Open the database in read mode to read the given tables.
+     *
+     * <p>
+     * This method is the same as {@link #openReadable()} except that,
+     * when the lock strategy is {@link LockStrategy#striped(int, boolean)
+     * striped}, only the read locks of the given tables are acquired
+     * (in addition to the read lock of the whole database). In other
+     * strategies, {@code tables} is ignored. The database has to be
+     * closed by {@link #closeReadable(SQLiteDatabase)}.
+     * </p>
+     *
+     * @param tables
+     *         The tables to read. If none is given, the whole
+     *         database is locked.
+     *
+     * @throws IllegalStateException
+     *         The lock strategy is striped, the current thread holds
+     *         the locks of some tables, and this nested open needs a
+     *         lock the outer opens do not hold. See {@link LockStrategy}.
+     *
+     * @since 1.13
+     */
+    public SQLiteDatabase openReadable(String... tables)
+    {
+        return open(false, tables, DatabaseLock.NO_TIMEOUT);
+    }
+
+
+    /**
+     * Open the database in read mode, waiting at most the given time
+     * for the read lock.
+     *
+     * @param timeout
+     *         The maximum time to wait for the lock.
+     *
+     * @param unit
+     *         The time unit of {@code timeout}.
+     *
+     * @param tables
+     *         The tables to read (see {@link #openReadable(String...)}).
+     *         If none is given, the whole database is locked.
+     *
+     * @return
+     *         The database, or {@code null} if the lock could not be
+     *         acquired within the timeout or the calling thread was
+     *         interrupted. A non-null database has to be closed by
+     *         {@link #closeReadable(SQLiteDatabase)}.
+     *
+     * @throws IllegalStateException
+     *         The lock cannot be acquired without a deadlock. See
+     *         {@link #openReadable(String...)}.
+     *
+     * @since 1.13
+     */
+    public SQLiteDatabase tryOpenReadable(long timeout, TimeUnit unit, String... tables)
+    {
+        return open(false, tables, toTimeout(timeout, unit));
     }
 
 
@@ -162,8 +413,10 @@ public abstract class BaseOpenHelper extends SQLiteOpenHelper
      *
      * <p>
      * This method closes the passed database by calling
-     * {@link SQLiteDatabase#close() db.close()} and then releases
-     * a read lock (even if {@code db.close()} failed).
+     * {@link SQLiteDatabase#close() db.close()} unless another thread
+     * is still using it, and then releases a read lock (even if {@code
+     * db.close()} failed). In the lease mode, the database is not closed
+     * here but the lease on it is returned.
      * </p>
      *
      * @param db
@@ -179,15 +432,18 @@ public abstract class BaseOpenHelper extends SQLiteOpenHelper
             return;
         }
 
+        HeldLocks held = heldLocks.get();
+        int index = held.findLast(false);
+
         try
         {
-            // Close the database.
-            db.close();
+            // Close the database or return the lease.
+            endLease(db);
         }
         finally
         {
             // Release a read lock.
-            endReadLock();
+            unlock(held, index, false);
         }
     }
 
@@ -207,23 +463,74 @@ public abstract class BaseOpenHelper extends SQLiteOpenHelper
      */
     public SQLiteDatabase openWritable()
     {
-        try
-        {
-            // Acquire a write lock before opening the database.
-            beginWriteLock();
+        return open(true, null, DatabaseLock.NO_TIMEOUT);
+    }
 
-            // Open the database in write mode.
-            return getWritableDatabase();
-        }
-        catch (SQLiteException e)
-        {
-            // Failed to open the database in write mode.
-            // Release the write lock.
-            endWriteLock();
 
-            // Re-throw the SQLiteException.
-            throw e;
-        }
+    /**
+     * Open the database in write mode to write the given tables.
+     *
+     * <p>
+     * This method is the same as {@link #openWritable()} except that,
+     * when the lock strategy is {@link LockStrategy#striped(int, boolean)
+     * striped}, only the write locks of the given tables are acquired
+     * (in addition to the read lock of the whole database), so writers
+     * of unrelated tables do not wait for each other. In other
+     * strategies, {@code tables} is ignored. The database has to be
+     * closed by {@link #closeWritable(SQLiteDatabase)}.
+     * </p>
+     *
+     * <p>
+     * Don't touch tables other than the given ones. The lock of the
+     * helper does not protect them.
+     * </p>
+     *
+     * @param tables
+     *         The tables to write. If none is given, the whole
+     *         database is locked.
+     *
+     * @throws IllegalStateException
+     *         The lock strategy is striped, the current thread holds
+     *         the locks of some tables, and this nested open needs a
+     *         lock the outer opens do not hold. See {@link LockStrategy}.
+     *
+     * @since 1.13
+     */
+    public SQLiteDatabase openWritable(String... tables)
+    {
+        return open(true, tables, DatabaseLock.NO_TIMEOUT);
+    }
+
+
+    /**
+     * Open the database in write mode, waiting at most the given time
+     * for the write lock.
+     *
+     * @param timeout
+     *         The maximum time to wait for the lock.
+     *
+     * @param unit
+     *         The time unit of {@code timeout}.
+     *
+     * @param tables
+     *         The tables to write (see {@link #openWritable(String...)}).
+     *         If none is given, the whole database is locked.
+     *
+     * @return
+     *         The database, or {@code null} if the lock could not be
+     *         acquired within the timeout or the calling thread was
+     *         interrupted. A non-null database has to be closed by
+     *         {@link #closeWritable(SQLiteDatabase)}.
+     *
+     * @throws IllegalStateException
+     *         The lock cannot be acquired without a deadlock. See
+     *         {@link #openWritable(String...)}.
+     *
+     * @since 1.13
+     */
+    public SQLiteDatabase tryOpenWritable(long timeout, TimeUnit unit, String... tables)
+    {
+        return open(true, tables, toTimeout(timeout, unit));
     }
 
 
@@ -232,8 +539,10 @@ public abstract class BaseOpenHelper extends SQLiteOpenHelper
      *
      * <p>
      * This method closes the passed database by calling
-     * {@link SQLiteDatabase#close() db.close()} and then releases
-     * a write lock (even if {@code db.close()} failed).
+     * {@link SQLiteDatabase#close() db.close()} unless another thread
+     * is still using it, and then releases a write lock (even if {@code
+     * db.close()} failed). In the lease mode, the database is not closed
+     * here but the lease on it is returned.
      * </p>
      *
      * @param db
@@ -249,60 +558,1714 @@ public abstract class BaseOpenHelper extends SQLiteOpenHelper
             return;
         }
 
+        HeldLocks held = heldLocks.get();
+        int index = held.findLast(true);
+
         try
         {
-            // Close the database.
-            db.close();
+            notifyWrites(held, index);
         }
         finally
         {
-            // Release a write lock.
-            endWriteLock();
+            try
+            {
+                // Close the database or return the lease.
+                endLease(db);
+            }
+            finally
+            {
+                // Release a write lock.
+                unlock(held, index, true);
+            }
         }
     }
 
 
     /**
      * Get the internal read-write lock instance.
+     *
+     * <p>
+     * When the lock strategy is {@link LockStrategy#striped(int, boolean)
+     * striped}, this is the lock of the whole database, which is held in
+     * read mode by threads which lock only some tables.
+     * </p>
      */
     public ReentrantReadWriteLock getLock()
     {
-        return rwLock;
+        return lock.getGlobalLock();
+    }
+
+
+    /**
+     * Set the lock strategy. The default strategy is {@link LockStrategy#FAIR}.
+     *
+     * <p>
+     * This method must be called before the helper is used by multiple
+     * threads. Otherwise, threads holding the old lock would not exclude
+     * threads holding the new one.
+     * </p>
+     *
+     * @param strategy
+     *         A lock strategy.
+     *
+     * @throws IllegalArgumentException
+     *         {@code strategy} is {@code null}.
+     *
+     * @throws IllegalStateException
+     *         The current lock is held or waited for by some threads.
+     *
+     * @since 1.13
+     */
+    public synchronized void setLockStrategy(LockStrategy strategy)
+    {
+        if (strategy == null)
+        {
+            throw new IllegalArgumentException("strategy is null.");
+        }
+
+        if (lock.isIdle() == false)
+        {
+            throw new IllegalStateException("The lock is in use.");
+        }
+
+        DatabaseLock newLock = new DatabaseLock(strategy);
+        newLock.setRevocable(leaseTracker != null);
+
+        lock = newLock;
+    }
+
+
+    /**
+     * Get the lock strategy.
+     *
+     * @since 1.13
+     */
+    public LockStrategy getLockStrategy()
+    {
+        return lock.getStrategy();
+    }
+
+
+    /**
+     * Enable or disable the lease mode.
+     *
+     * <p>
+     * In the lease mode, {@link #openReadable()} and {@link #openWritable()}
+     * hand out a lease on one long-lived {@code SQLiteDatabase} instance,
+     * and {@link #closeReadable(SQLiteDatabase)} and {@link
+     * #closeWritable(SQLiteDatabase)} return the lease without closing
+     * the database. The database is closed when no lease has been active
+     * for the idle timeout. The lease mode is disabled by default.
+     * </p>
+     *
+     * @param enabled
+     *         True to enable the lease mode.
+     *
+     * @since 1.13
+     */
+    public void setLeaseEnabled(boolean enabled)
+    {
+        leaseEnabled = enabled;
+    }
+
+
+    /**
+     * Check if the lease mode is enabled.
+     *
+     * @since 1.13
+     */
+    public boolean isLeaseEnabled()
+    {
+        return leaseEnabled;
+    }
+
+
+    /**
+     * Set the idle timeout for the lease mode. The default value is
+     * 10 seconds.
+     *
+     * @param timeout
+     *         The time after which the database is closed if no lease
+     *         is active. 0 means that the database is closed as soon
+     *         as possible after the last lease is returned.
+     *
+     * @param unit
+     *         The time unit of {@code timeout}.
+     *
+     * @throws IllegalArgumentException
+     *         {@code timeout} is negative or {@code unit} is {@code null}.
+     *
+     * @since 1.13
+     */
+    public void setIdleTimeout(long timeout, TimeUnit unit)
+    {
+        if (timeout < 0)
+        {
+            throw new IllegalArgumentException("timeout is negative.");
+        }
+
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("unit is null.");
+        }
+
+        idleTimeout = unit.toMillis(timeout);
     }
 
 
     /**
-     * Acquire a read lock.
+     * Get the idle timeout in milliseconds for the lease mode.
+     *
+     * @since 1.13
      */
-    private void beginReadLock()
+    public long getIdleTimeout()
     {
-        rwLock.readLock().lock();
+        return idleTimeout;
     }
 
 
     /**
-     * Release a read lock.
+     * Set a monitor to record contention on the read/write lock.
+     *
+     * @param monitor
+     *         A lock monitor. {@code null} disables the instrumentation.
+     *
+     * @see LockMonitor
+     *
+     * @since 1.13
      */
-    private void endReadLock()
+    public void setLockMonitor(LockMonitor monitor)
     {
-        rwLock.readLock().unlock();
+        lockMonitor = monitor;
     }
 
 
     /**
-     * Acquire a write lock.
+     * Get the monitor set by {@link #setLockMonitor(LockMonitor)}.
+     *
+     * @since 1.13
      */
-    private void beginWriteLock()
+    public LockMonitor getLockMonitor()
     {
-        rwLock.writeLock().lock();
+        return lockMonitor;
     }
 
 
     /**
-     * Release a write lock.
+     * Set a tracker to detect leases which are not returned.
+     *
+     * <p>
+     * The tracker is checked periodically (at half the threshold of the
+     * tracker, but not more often than once a second) on a background
+     * thread. Leases handed out before the tracker is set are not tracked.
+     * </p>
+     *
+     * @param tracker
+     *         A lease tracker. {@code null} disables the tracking.
+     *
+     * @see LeaseTracker
+     *
+     * @since 1.13
      */
-    private void endWriteLock()
+    public synchronized void setLeaseTracker(LeaseTracker tracker)
     {
-        rwLock.writeLock().unlock();
+        if (leaseCheck != null)
+        {
+            leaseCheck.cancel(false);
+            leaseCheck = null;
+        }
+
+        leaseTracker = tracker;
+
+        // Threads waiting for a lock which may be retired by a forced
+        // release have to notice the retirement.
+        lock.setRevocable(tracker != null);
+
+        if (tracker == null)
+        {
+            return;
+        }
+
+        final LeaseTracker target = tracker;
+        long interval = Math.max(MIN_LEASE_CHECK_INTERVAL, tracker.getThreshold() / 2);
+
+        leaseCheck = getIdleScheduler().scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    checkLeases(target);
+                }
+                catch (RuntimeException e)
+                {
+                    // Keep the periodic check alive.
+                    Log.w("BaseOpenHelper", "Failed to check leases.", e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Get the tracker set by {@link #setLeaseTracker(LeaseTracker)}.
+     *
+     * @since 1.13
+     */
+    public LeaseTracker getLeaseTracker()
+    {
+        return leaseTracker;
+    }
+
+
+    /**
+     * Add a listener to be notified of writes.
+     *
+     * <p>
+     * Listeners are called by {@link #closeWritable(SQLiteDatabase)}
+     * with the tables declared by {@link #openWritable(String...)}
+     * (or {@code null} if no table was declared) while the write lock
+     * is still held.
+     * </p>
+     *
+     * <p>
+     * Whether the writes have been committed is known only for the
+     * transactions begun by {@link #beginTransaction(SQLiteDatabase)}
+     * (including the ones of {@link #beginTransactionScope(String...)}
+     * and {@link #runInTransaction(DatabaseTask, String...)}). If all
+     * such transactions of an open have been rolled back, the listeners
+     * are not called. If the database is closed in such a transaction
+     * of an outer open, the tables are notified when the outer open is
+     * closed, after the transaction has ended. Other writes are assumed
+     * to have been committed.
+     * </p>
+     *
+     * @param listener
+     *         A listener. {@code null} is ignored.
+     *
+     * @since 1.13
+     */
+    public void addTableWriteListener(TableWriteListener listener)
+    {
+        if (listener != null)
+        {
+            writeListeners.add(listener);
+        }
+    }
+
+
+    /**
+     * Remove a listener added by {@link #addTableWriteListener(TableWriteListener)}.
+     *
+     * @param listener
+     *         A listener.
+     *
+     * @since 1.13
+     */
+    public void removeTableWriteListener(TableWriteListener listener)
+    {
+        writeListeners.remove(listener);
+    }
+
+
+    /**
+     * Begin a transaction on a database opened by {@link
+     * #openWritable(String...)}, recording whether it is committed, so
+     * that {@link TableWriteListener}s are not notified of writes which
+     * have been rolled back. Use this method instead of {@code
+     * db.beginTransaction()}, and end the transaction by {@code
+     * db.endTransaction()} as usual before closing the database.
+     *
+     * <p>
+     * If the database is already in a transaction, a nested transaction
+     * is begun by {@code db.beginTransaction()}, and its writes follow
+     * the outcome of the outer transaction.
+     * </p>
+     *
+     * @param db
+     *         A database opened by {@code openWritable()}.
+     *
+     * @throws IllegalArgumentException
+     *         {@code db} is {@code null}.
+     *
+     * @since 1.13
+     */
+    public void beginTransaction(SQLiteDatabase db)
+    {
+        if (db == null)
+        {
+            throw new IllegalArgumentException("db is null.");
+        }
+
+        if (db.inTransaction())
+        {
+            // Nested. The listener would not be called.
+            db.beginTransaction();
+            return;
+        }
+
+        HeldLocks held = heldLocks.get();
+        int index = held.findLast(true);
+
+        db.beginTransactionWithListener(transactionRecorder);
+
+        if (0 <= index)
+        {
+            held.outcomes[index] |= HeldLocks.PENDING;
+        }
+    }
+
+
+    /**
+     * Get a snapshot of the connection counters.
+     *
+     * @since 1.13
+     */
+    public ConnectionStatistics getConnectionStatistics()
+    {
+        return new ConnectionStatistics(
+            openCount.get(), closeCount.get(), reuseCount.get(), leaseCount.get());
+    }
+
+
+    /**
+     * Get a compiled statement for the given SQL.
+     *
+     * <p>
+     * The statement is taken from the LRU cache of compiled statements
+     * of this helper if available, or otherwise compiled by {@link
+     * SQLiteDatabase#compileStatement(String) db.compileStatement(sql)}.
+     * The statement is used exclusively by the caller until it is
+     * returned by {@link #releaseStatement(SQLiteStatement)}; if another
+     * thread requests the same SQL meanwhile, another statement is
+     * compiled for it. Don't close the statement.
+     * </p>
+     *
+     * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+     * SQLiteDatabase db = helper.openWritable();
+     *
+     * <span class="keyword">try</span>
+     * {
+     *     SQLiteStatement statement = helper.acquireStatement(db, sql);
+     *
+     *     <span class="keyword">try</span>
+     *     {
+     *         statement.bindString(1, name);
+     *         statement.executeInsert();
+     *     }
+     *     <span class="keyword">finally</span>
+     *     {
+     *         helper.releaseStatement(statement);
+     *     }
+     * }
+     * <span class="keyword">finally</span>
+     * {
+     *     helper.closeWritable(db);
+     * }</pre>
+     *
+     * <p>
+     * Cached statements are closed when the database is closed, so the
+     * cache is effective mainly in the lease mode ({@link
+     * #setLeaseEnabled(boolean)}).
+     * </p>
+     *
+     * @param db
+     *         A database opened by {@link #openReadable()} or
+     *         {@link #openWritable()}.
+     *
+     * @param sql
+     *         SQL of the statement.
+     *
+     * @return
+     *         A compiled statement.
+     *
+     * @since 1.13
+     */
+    public SQLiteStatement acquireStatement(SQLiteDatabase db, String sql)
+    {
+        if (db == null)
+        {
+            throw new IllegalArgumentException("db is null.");
+        }
+
+        if (sql == null)
+        {
+            throw new IllegalArgumentException("sql is null.");
+        }
+
+        return statementCache.acquire(db, sql);
+    }
+
+
+    /**
+     * Return a statement obtained by {@link #acquireStatement(SQLiteDatabase,
+     * String)}. The bindings of the statement are cleared and the statement
+     * is put back to the cache. If the cache is full, the least recently
+     * used statement is closed.
+     *
+     * @param statement
+     *         A statement obtained by {@code acquireStatement()}.
+     *         If {@code null} is given, nothing is done.
+     *
+     * @throws IllegalArgumentException
+     *         The statement was not obtained by {@code acquireStatement()}
+     *         or has already been returned.
+     *
+     * @since 1.13
+     */
+    public void releaseStatement(SQLiteStatement statement)
+    {
+        if (statement == null)
+        {
+            return;
+        }
+
+        statementCache.release(statement);
+    }
+
+
+    /**
+     * Set the maximum number of compiled statements kept in the cache.
+     * The default value is 25. 0 disables the cache.
+     *
+     * @param size
+     *         The maximum number of cached statements.
+     *
+     * @throws IllegalArgumentException
+     *         {@code size} is negative.
+     *
+     * @since 1.13
+     */
+    public void setStatementCacheSize(int size)
+    {
+        if (size < 0)
+        {
+            throw new IllegalArgumentException("size is negative.");
+        }
+
+        statementCache.setCapacity(size);
+    }
+
+
+    /**
+     * Get the maximum number of compiled statements kept in the cache.
+     *
+     * @since 1.13
+     */
+    public int getStatementCacheSize()
+    {
+        return statementCache.getCapacity();
+    }
+
+
+    /**
+     * Get a snapshot of the counters of the statement cache.
+     * Statements closed because the database was closed are
+     * counted as invalidations.
+     *
+     * @since 1.13
+     */
+    public CacheStatistics getStatementCacheStatistics()
+    {
+        return statementCache.getStatistics();
+    }
+
+
+    /**
+     * Load many rows through one compiled statement, committing them
+     * in chunks.
+     *
+     * <p>
+     * For each chunk, the database is opened by {@link
+     * #openWritable(String...) openWritable}{@code (load.getTables())},
+     * up to {@link BulkLoad#getChunkSize()} rows are bound to the
+     * statement of {@link BulkLoad#getSql()} and executed in one
+     * transaction, and the database is closed by {@link
+     * #closeWritable(SQLiteDatabase)}. Because the write lock is
+     * released between chunks, other threads can access the database
+     * while a long load is running. Inserting rows one by one, each
+     * in its own implicit transaction, is far slower.
+     * </p>
+     *
+     * <p>
+     * If the load fails, the chunks committed so far remain in the
+     * database and the rest of the rows are not consumed. The indexes
+     * of {@link BulkLoad#setRebuiltIndexes(String...)} are rebuilt
+     * whether the load succeeds or not. If the load succeeds but an
+     * index cannot be rebuilt, the exception is thrown. If both fail,
+     * the exception of the load is thrown. In either case, the index
+     * stays recorded in {@link BulkLoad#PENDING_INDEX_TABLE}.
+     * </p>
+     *
+     * @param load
+     *         The description of the bulk load.
+     *
+     * @param rows
+     *         Rows to load.
+     *
+     * @return
+     *         The statistics of the whole load.
+     *
+     * @throws IllegalArgumentException
+     *         {@code load} or {@code rows} is {@code null}.
+     *
+     * @since 1.13
+     */
+    public <T> BulkLoadStatistics bulkLoad(BulkLoad<T> load, Iterator<? extends T> rows)
+    {
+        if (load == null)
+        {
+            throw new IllegalArgumentException("load is null.");
+        }
+
+        if (rows == null)
+        {
+            throw new IllegalArgumentException("rows is null.");
+        }
+
+        String[] tables = load.getTables();
+        String[] indexes = load.getRebuiltIndexes();
+        long startTime = System.nanoTime();
+        long rowCount = 0;
+        int chunkCount = 0;
+        boolean loaded = false;
+
+        if (indexes != null)
+        {
+            // Drop the indexes which are rebuilt after the load.
+            dropIndexes(indexes, tables);
+        }
+
+        try
+        {
+            while (rows.hasNext())
+            {
+                rowCount += loadChunk(load, rows, tables);
+                ++chunkCount;
+
+                BulkLoadListener listener = load.getListener();
+
+                if (listener != null)
+                {
+                    // Notify the progress outside the write lock.
+                    listener.onChunkCommitted(new BulkLoadStatistics(
+                        rowCount, chunkCount, System.nanoTime() - startTime));
+                }
+            }
+
+            loaded = true;
+        }
+        finally
+        {
+            if (indexes != null)
+            {
+                rebuildIndexes(indexes, tables, loaded);
+            }
+        }
+
+        return new BulkLoadStatistics(rowCount, chunkCount, System.nanoTime() - startTime);
+    }
+
+
+    /**
+     * Rebuild the indexes dropped by {@link #bulkLoad(BulkLoad, Iterator)
+     * bulkLoad()} which have not been rebuilt, because the process was
+     * killed during the load or rebuilding failed. They are recorded in
+     * {@link BulkLoad#PENDING_INDEX_TABLE}. For example, call this method
+     * once after the application starts if it uses {@link
+     * BulkLoad#setRebuiltIndexes(String...)}.
+     *
+     * <p>
+     * The database is opened by {@link #openWritable()}. Each index is
+     * rebuilt in its own transaction, and the rest of the indexes are
+     * rebuilt even if one of them fails.
+     * </p>
+     *
+     * @return
+     *         The number of rebuilt indexes.
+     *
+     * @throws SQLiteException
+     *         An index could not be rebuilt, for example, because rows
+     *         loaded meanwhile violate its constraint. The index stays
+     *         recorded.
+     *
+     * @since 1.13
+     */
+    public int rebuildPendingIndexes()
+    {
+        SQLiteDatabase db = openWritable();
+        int count = 0;
+        RuntimeException failure = null;
+
+        try
+        {
+            for (String name : getPendingIndexes(db))
+            {
+                try
+                {
+                    rebuildIndex(db, name);
+                    ++count;
+                }
+                catch (RuntimeException e)
+                {
+                    // Rebuild the rest and throw the first failure.
+                    if (failure == null)
+                    {
+                        failure = e;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            closeWritable(db);
+        }
+
+        if (failure != null)
+        {
+            throw failure;
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Begin a transaction scope. See {@link TransactionScope} for details.
+     *
+     * <p>
+     * If the current thread has no active scope, the database is opened
+     * by {@link #openWritable(String...) openWritable}{@code (tables)}
+     * and a transaction is begun. Otherwise, a savepoint is begun in the
+     * transaction of the outer scope. The tables of an inner scope have
+     * to be a subset of the tables of the outermost scope. The scope has
+     * to be closed by {@link TransactionScope#close()}.
+     * </p>
+     *
+     * @param tables
+     *         The tables to write. If none is given, the whole
+     *         database is locked.
+     *
+     * @return
+     *         A new transaction scope.
+     *
+     * @throws IllegalStateException
+     *         This is an inner scope and the outermost scope has not
+     *         locked the given tables, or the locks cannot be acquired
+     *         without a deadlock. See {@link TransactionScope}.
+     *
+     * @since 1.13
+     */
+    public TransactionScope beginTransactionScope(String... tables)
+    {
+        TransactionScope parent = currentScopes.get();
+
+        if (parent != null && parent.covers(tables) == false)
+        {
+            // Locking other tables in the transaction could deadlock.
+            throw new IllegalStateException(
+                "An inner scope can write only the tables of the outermost scope.");
+        }
+
+        SQLiteDatabase db = openWritable(tables);
+        TransactionScope scope = new TransactionScope(this, db, parent, tables);
+
+        try
+        {
+            scope.begin();
+        }
+        catch (RuntimeException e)
+        {
+            closeWritable(db);
+            throw e;
+        }
+
+        currentScopes.set(scope);
+
+        return scope;
+    }
+
+
+    /**
+     * Execute the given task in a transaction scope, retrying it when
+     * the database is busy.
+     *
+     * <p>
+     * The task is executed in a scope begun by {@link
+     * #beginTransactionScope(String...) beginTransactionScope}{@code
+     * (tables)}. If the task returns normally, the work is committed
+     * (or released, if the scope is an inner one). Otherwise, it is
+     * rolled back and the exception is re-thrown.
+     * </p>
+     *
+     * <p>
+     * If the scope is the outermost one and the task fails because the
+     * database is busy ({@code SQLITE_BUSY} or {@code SQLITE_LOCKED},
+     * for example, because another process holds the database), the
+     * scope is rolled back, the locks are released, and the task is
+     * executed again after a backoff. See {@link #setBusyRetry(int,
+     * long, TimeUnit)}. Inner scopes are not retried because the outer
+     * scope holds the locks; the exception is propagated to the
+     * outermost one.
+     * </p>
+     *
+     * @param task
+     *         A task to execute.
+     *
+     * @param tables
+     *         The tables to write. If none is given, the whole
+     *         database is locked.
+     *
+     * @return
+     *         The value returned by the task.
+     *
+     * @throws Exception
+     *         The task threw an exception.
+     *
+     * @since 1.13
+     */
+    public <T> T runInTransaction(DatabaseTask<T> task, String... tables) throws Exception
+    {
+        if (task == null)
+        {
+            throw new IllegalArgumentException("task is null.");
+        }
+
+        long backoff = busyRetryBackoff;
+
+        for (int retry = 0; ; ++retry)
+        {
+            TransactionScope scope = beginTransactionScope(tables);
+
+            try
+            {
+                T result = task.execute(scope.getDatabase());
+
+                scope.setSuccessful();
+                scope.close();
+
+                return result;
+            }
+            catch (SQLiteException e)
+            {
+                boolean outermost = scope.isOutermost();
+
+                // Roll back and release the locks before waiting.
+                scope.close();
+
+                if (outermost == false || busyRetryCount <= retry || isBusy(e) == false)
+                {
+                    throw e;
+                }
+            }
+            finally
+            {
+                // Rolled back if neither committed nor closed above.
+                scope.close();
+            }
+
+            try
+            {
+                Thread.sleep(backoff);
+            }
+            catch (InterruptedException e)
+            {
+                // Restore the interrupted status and give up.
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+
+            backoff *= 2;
+        }
+    }
+
+
+    /**
+     * Set how {@link #runInTransaction(DatabaseTask, String...)} retries
+     * tasks which failed because the database was busy. The wait before
+     * the n-th retry is {@code initialBackoff * 2^(n-1)}. The default
+     * values are 3 retries and 50 milliseconds.
+     *
+     * @param maxRetries
+     *         The maximum number of retries. 0 disables retries.
+     *
+     * @param initialBackoff
+     *         The wait before the first retry.
+     *
+     * @param unit
+     *         The time unit of {@code initialBackoff}.
+     *
+     * @throws IllegalArgumentException
+     *         {@code maxRetries} or {@code initialBackoff} is negative,
+     *         or {@code unit} is {@code null}.
+     *
+     * @since 1.13
+     */
+    public void setBusyRetry(int maxRetries, long initialBackoff, TimeUnit unit)
+    {
+        if (maxRetries < 0)
+        {
+            throw new IllegalArgumentException("maxRetries is negative.");
+        }
+
+        if (initialBackoff < 0)
+        {
+            throw new IllegalArgumentException("initialBackoff is negative.");
+        }
+
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("unit is null.");
+        }
+
+        busyRetryCount   = maxRetries;
+        busyRetryBackoff = unit.toMillis(initialBackoff);
+    }
+
+
+    /**
+     * Get the maximum number of retries for busy databases.
+     *
+     * @since 1.13
+     */
+    public int getBusyRetryCount()
+    {
+        return busyRetryCount;
+    }
+
+
+    /**
+     * Get the wait before the first retry for busy databases in milliseconds.
+     *
+     * @since 1.13
+     */
+    public long getBusyRetryBackoff()
+    {
+        return busyRetryBackoff;
+    }
+
+
+    /**
+     * Check if the given exception means that the database is busy.
+     *
+     * <p>
+     * {@code SQLiteDatabaseLockedException} does not exist in old Android
+     * versions, so the message of the exception is examined; SQLite reports
+     * {@code SQLITE_BUSY} as "database is locked" and {@code SQLITE_LOCKED}
+     * as "database table is locked".
+     * </p>
+     *
+     * @param e
+     *         An exception thrown by SQLite.
+     *
+     * @return
+     *         True if the exception means that the database is busy.
+     *
+     * @since 1.13
+     */
+    public static boolean isBusy(SQLiteException e)
+    {
+        if (e == null)
+        {
+            return false;
+        }
+
+        String message = e.getMessage();
+
+        if (message == null)
+        {
+            return false;
+        }
+
+        message = message.toLowerCase(Locale.US);
+
+        return message.contains("database is locked")
+            || message.contains("database table is locked")
+            || message.contains("sqlite_busy")
+            || message.contains("database is busy");
+    }
+
+
+    /**
+     * Get the time elapsed since the database was used last.
+     *
+     * @return
+     *         The idle time in milliseconds, or -1 if the database
+     *         is being used.
+     */
+    long getIdleTime()
+    {
+        if (leaseCount.get() != 0)
+        {
+            return -1;
+        }
+
+        return System.currentTimeMillis() - lastReleaseTime;
+    }
+
+
+    /**
+     * Get the number of leases handed out so far.
+     */
+    long getLeaseTotal()
+    {
+        return openCount.get() + reuseCount.get();
+    }
+
+
+    /**
+     * Get the innermost transaction scope of the current thread.
+     */
+    TransactionScope getCurrentScope()
+    {
+        return currentScopes.get();
+    }
+
+
+    /**
+     * Set the innermost transaction scope of the current thread.
+     */
+    void setCurrentScope(TransactionScope scope)
+    {
+        if (scope == null)
+        {
+            currentScopes.remove();
+        }
+        else
+        {
+            currentScopes.set(scope);
+        }
+    }
+
+
+    /**
+     * Close the database. Cached statements are closed, too.
+     *
+     * @since 1.13
+     */
+    @Override
+    public synchronized void close()
+    {
+        statementCache.flush();
+
+        super.close();
+    }
+
+
+    /**
+     * Open the database and count it as a new lease.
+     */
+    private SQLiteDatabase beginLease(boolean writable)
+    {
+        // Count the lease before the database is obtained. Otherwise,
+        // another thread returning the last lease could close the
+        // database between getXxxDatabase() and the count.
+        synchronized (leaseMonitor)
+        {
+            leaseCount.incrementAndGet();
+        }
+
+        SQLiteDatabase db;
+
+        try
+        {
+            db = writable ? getWritableDatabase() : getReadableDatabase();
+        }
+        catch (RuntimeException e)
+        {
+            // Take the count back.
+            endLease(currentDatabase.get());
+            throw e;
+        }
+
+        SQLiteDatabase current = currentDatabase.get();
+
+        if (current == db || currentDatabase.compareAndSet(current, db) == false)
+        {
+            // The database instance opened before was returned
+            // (or another thread has just registered it).
+            reuseCount.incrementAndGet();
+        }
+        else
+        {
+            openCount.incrementAndGet();
+        }
+
+        return db;
+    }
+
+
+    /**
+     * Close the given database or return the lease on it.
+     */
+    private void endLease(SQLiteDatabase db)
+    {
+        synchronized (leaseMonitor)
+        {
+            if (leaseCount.decrementAndGet() != 0)
+            {
+                // Another thread (e.g. a concurrent reader) is still
+                // using the database.
+                return;
+            }
+
+            lastReleaseTime = System.currentTimeMillis();
+
+            if (leaseEnabled == false)
+            {
+                // Close the database as before. No thread can obtain
+                // it until the database has been closed.
+                if (db != null)
+                {
+                    closeDatabase(db);
+                }
+
+                return;
+            }
+        }
+
+        scheduleIdleCheck(idleTimeout);
+    }
+
+
+    private void closeDatabase(SQLiteDatabase db)
+    {
+        // Compiled statements become unusable when the database is closed.
+        statementCache.flush();
+
+        currentDatabase.compareAndSet(db, null);
+        closeCount.incrementAndGet();
+        db.close();
+    }
+
+
+    private synchronized void scheduleIdleCheck(long delay)
+    {
+        if (idleCheckScheduled)
+        {
+            // The scheduled check will reschedule itself if necessary.
+            return;
+        }
+
+        idleCheckScheduled = true;
+
+        getIdleScheduler().schedule(new Runnable()
+        {
+            public void run()
+            {
+                checkIdle();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Close the database if it has been idle for the idle timeout.
+     * This method is called on the thread of the idle scheduler.
+     */
+    private void checkIdle()
+    {
+        synchronized (this)
+        {
+            idleCheckScheduled = false;
+        }
+
+        // Don't block the shared scheduler thread.
+        DatabaseLock lock = this.lock;
+
+        if (lock.tryLockExclusively() == false)
+        {
+            // The database is being used. Check again later.
+            scheduleIdleCheck(idleTimeout);
+            return;
+        }
+
+        long remaining;
+
+        try
+        {
+            synchronized (leaseMonitor)
+            {
+                if (leaseCount.get() != 0)
+                {
+                    // The next endLease() will schedule a check.
+                    return;
+                }
+
+                remaining = lastReleaseTime + idleTimeout - System.currentTimeMillis();
+
+                SQLiteDatabase db = currentDatabase.get();
+
+                if (remaining <= 0 && db != null && db.isOpen())
+                {
+                    // Closed by idle timeout.
+                    closeDatabase(db);
+                }
+            }
+        }
+        finally
+        {
+            lock.unlockExclusively();
+        }
+
+        if (0 < remaining)
+        {
+            // A lease was returned after this check was scheduled.
+            scheduleIdleCheck(remaining);
+        }
+    }
+
+
+    private static synchronized ScheduledExecutorService getIdleScheduler()
+    {
+        if (idleScheduler == null)
+        {
+            idleScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "BaseOpenHelper-idle");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return idleScheduler;
+    }
+
+
+    /**
+     * Acquire the lock and open the database.
+     *
+     * @return
+     *         The database, or null if the lock could not be acquired.
+     */
+    private SQLiteDatabase open(boolean writable, String[] tables, long timeout)
+    {
+        long deadline = System.nanoTime() + timeout;
+        LockMonitor monitor = lockMonitor;
+        DatabaseLock lock;
+        int[] stripes;
+
+        while (true)
+        {
+            // Remember the lock instance used for this acquisition.
+            lock = this.lock;
+
+            // Acquire a lock before opening the database.
+            stripes = lock.lock(writable, tables, timeout, monitor);
+
+            if (stripes != null)
+            {
+                break;
+            }
+
+            if (lock.isRetired() == false)
+            {
+                // Timed out.
+                return null;
+            }
+
+            // The lock was replaced after a forced release. Try the new one.
+            if (timeout != DatabaseLock.NO_TIMEOUT)
+            {
+                timeout = Math.max(0, deadline - System.nanoTime());
+            }
+        }
+
+        SQLiteDatabase db = null;
+        boolean opened = false;
+
+        try
+        {
+            // Open the database in read or write mode.
+            db = beginLease(writable);
+
+            Lease lease = null;
+            LeaseTracker tracker = leaseTracker;
+
+            if (tracker != null)
+            {
+                // Leases are allocated only when they are tracked.
+                lease = new Lease(db, lock, monitor, writable, tables, stripes);
+                lease.tracker = tracker;
+                tracker.begin(lease);
+            }
+
+            // Remember the lock, the stripes and the tables for
+            // closeReadable() and closeWritable().
+            heldLocks.get().push(lock, monitor, stripes, tables, writable, lease);
+
+            opened = true;
+
+            return db;
+        }
+        finally
+        {
+            if (opened == false)
+            {
+                // Failed to open the database (with any exception).
+                // Return the lease if obtained, and release the lock.
+                try
+                {
+                    if (db != null)
+                    {
+                        endLease(db);
+                    }
+                }
+                finally
+                {
+                    lock.unlock(writable, stripes, monitor);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Release the lock of the entry at the given index, which is
+     * removed from the locks held by the current thread.
+     *
+     * @param index
+     *         The index of the entry, or -1 if the current thread
+     *         does not hold a lock of the mode.
+     */
+    private void unlock(HeldLocks held, int index, boolean writable)
+    {
+        if (index < 0)
+        {
+            // Opened on another thread. Try the current lock.
+            lock.unlock(writable, DatabaseLock.NO_STRIPES, lockMonitor);
+            return;
+        }
+
+        DatabaseLock lock   = held.locks[index];
+        LockMonitor monitor = held.monitors[index];
+        int[] stripes       = held.stripes[index];
+        Lease lease         = held.leases[index];
+
+        held.remove(index);
+
+        if (lease != null)
+        {
+            lease.tracker.end(lease);
+        }
+
+        // Release the lock which was acquired, even if it has
+        // been retired since.
+        lock.unlock(writable, stripes, monitor);
+    }
+
+
+    /**
+     * Report leaked leases and forcibly release the leases of terminated
+     * threads if enabled. This method is called on the thread of the
+     * idle scheduler.
+     */
+    private void checkLeases(LeaseTracker tracker)
+    {
+        tracker.reportOverdueLeases();
+
+        if (tracker.isForceReleaseEnabled() == false)
+        {
+            return;
+        }
+
+        List<Lease> deadLeases = tracker.getDeadLeases();
+
+        if (deadLeases.isEmpty())
+        {
+            return;
+        }
+
+        DatabaseLock current = this.lock;
+        boolean held = false;
+
+        for (Lease lease : deadLeases)
+        {
+            if (lease.lock == current)
+            {
+                held = true;
+            }
+        }
+
+        // The lock of terminated threads cannot be released, so the lock
+        // itself is replaced. Wait until no live thread holds it (waiting
+        // writers keep new readers out), so that the holders of the old
+        // lock and the holders of the new one do not overlap.
+        if (held && tracker.hasLiveLeases(current))
+        {
+            // Try again at the next check.
+            return;
+        }
+
+        for (Lease lease : deadLeases)
+        {
+            tracker.forceRelease(lease);
+            endLease(lease.db);
+        }
+
+        if (held)
+        {
+            retireLock(current);
+        }
+    }
+
+
+    private synchronized void retireLock(DatabaseLock current)
+    {
+        if (lock == current)
+        {
+            DatabaseLock replacement = new DatabaseLock(current.getStrategy());
+            replacement.setRevocable(true);
+
+            lock = replacement;
+        }
+
+        // Threads waiting for the old lock move to the new one.
+        current.retire();
+    }
+
+
+    private <T> int loadChunk(BulkLoad<T> load, Iterator<? extends T> rows, String[] tables)
+    {
+        BulkRowBinder<? super T> binder = load.getBinder();
+        int chunkSize = load.getChunkSize();
+        int count = 0;
+
+        SQLiteDatabase db = openWritable(tables);
+
+        try
+        {
+            SQLiteStatement statement = acquireStatement(db, load.getSql());
+
+            try
+            {
+                beginTransaction(db);
+
+                try
+                {
+                    for (; count < chunkSize && rows.hasNext(); ++count)
+                    {
+                        statement.clearBindings();
+                        binder.bind(statement, rows.next());
+                        statement.execute();
+                    }
+
+                    db.setTransactionSuccessful();
+                }
+                finally
+                {
+                    db.endTransaction();
+                }
+            }
+            finally
+            {
+                releaseStatement(statement);
+            }
+        }
+        finally
+        {
+            closeWritable(db);
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Drop the given indexes, recording the SQL to create them again in
+     * {@link BulkLoad#PENDING_INDEX_TABLE}. The records and the drops are
+     * committed in one transaction, so no index is lost if any of them
+     * fails or the process is killed.
+     */
+    private void dropIndexes(String[] names, String[] tables)
+    {
+        SQLiteDatabase db = openWritable(tables);
+
+        try
+        {
+            db.beginTransaction();
+
+            try
+            {
+                db.execSQL(SQL_CREATE_PENDING_INDEX_TABLE);
+
+                for (String name : names)
+                {
+                    String sql = getIndexSql(db, name);
+
+                    if (sql == null)
+                    {
+                        // Not found (e.g. left dropped by an interrupted
+                        // load), or created implicitly by a constraint.
+                        continue;
+                    }
+
+                    if (UNIQUE_INDEX_PATTERN.matcher(sql).lookingAt())
+                    {
+                        // Loaded rows could make the index unbuildable.
+                        continue;
+                    }
+
+                    db.execSQL("INSERT OR REPLACE INTO " + BulkLoad.PENDING_INDEX_TABLE
+                        + " (name, sql) VALUES (?, ?)", new Object[] { name, sql });
+                    db.execSQL("DROP INDEX " + quote(name));
+                }
+
+                db.setTransactionSuccessful();
+            }
+            finally
+            {
+                db.endTransaction();
+            }
+        }
+        finally
+        {
+            closeWritable(db);
+        }
+    }
+
+
+    /**
+     * Rebuild the given indexes if they are recorded as dropped.
+     *
+     * @param loaded
+     *         False if the load has failed. Then, a failure to rebuild
+     *         is logged instead of hiding the exception of the load.
+     */
+    private void rebuildIndexes(String[] names, String[] tables, boolean loaded)
+    {
+        RuntimeException failure = null;
+
+        try
+        {
+            SQLiteDatabase db = openWritable(tables);
+
+            try
+            {
+                for (String name : names)
+                {
+                    try
+                    {
+                        rebuildIndex(db, name);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        // The index stays recorded. Rebuild the rest.
+                        if (failure == null)
+                        {
+                            failure = e;
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                closeWritable(db);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            failure = e;
+        }
+
+        if (failure == null)
+        {
+            return;
+        }
+
+        if (loaded)
+        {
+            throw failure;
+        }
+
+        // Don't hide the exception of the load.
+        Log.w("BaseOpenHelper", "Failed to rebuild indexes after a failed bulk load.", failure);
+    }
+
+
+    /**
+     * Rebuild the given index in one transaction with the removal of
+     * its record, if it is recorded in {@link BulkLoad#PENDING_INDEX_TABLE}.
+     */
+    private static void rebuildIndex(SQLiteDatabase db, String name)
+    {
+        String sql = getPendingIndexSql(db, name);
+
+        if (sql == null)
+        {
+            // Not dropped.
+            return;
+        }
+
+        db.beginTransaction();
+
+        try
+        {
+            if (getIndexSql(db, name) == null)
+            {
+                db.execSQL(sql);
+            }
+
+            db.execSQL("DELETE FROM " + BulkLoad.PENDING_INDEX_TABLE + " WHERE name = ?",
+                new Object[] { name });
+
+            db.setTransactionSuccessful();
+        }
+        finally
+        {
+            db.endTransaction();
+        }
+    }
+
+
+    private static String getPendingIndexSql(SQLiteDatabase db, String name)
+    {
+        Cursor cursor = db.rawQuery(
+            "SELECT sql FROM " + BulkLoad.PENDING_INDEX_TABLE + " WHERE name = ?",
+            new String[] { name });
+
+        try
+        {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+        finally
+        {
+            cursor.close();
+        }
+    }
+
+
+    private static List<String> getPendingIndexes(SQLiteDatabase db)
+    {
+        List<String> names = new ArrayList<String>();
+
+        if (isTableExisting(db, BulkLoad.PENDING_INDEX_TABLE) == false)
+        {
+            // No bulk load has dropped indexes.
+            return names;
+        }
+
+        Cursor cursor = db.rawQuery("SELECT name FROM " + BulkLoad.PENDING_INDEX_TABLE, null);
+
+        try
+        {
+            while (cursor.moveToNext())
+            {
+                names.add(cursor.getString(0));
+            }
+        }
+        finally
+        {
+            cursor.close();
+        }
+
+        return names;
+    }
+
+
+    private static boolean isTableExisting(SQLiteDatabase db, String name)
+    {
+        Cursor cursor = db.rawQuery(
+            "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?",
+            new String[] { name });
+
+        try
+        {
+            return cursor.moveToFirst();
+        }
+        finally
+        {
+            cursor.close();
+        }
+    }
+
+
+    private static String getIndexSql(SQLiteDatabase db, String name)
+    {
+        Cursor cursor = db.rawQuery(
+            "SELECT sql FROM sqlite_master WHERE type = 'index' AND name = ?",
+            new String[] { name });
+
+        try
+        {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+        finally
+        {
+            cursor.close();
+        }
+    }
+
+
+    /**
+     * Quote the given identifier for SQL.
+     */
+    private static String quote(String identifier)
+    {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+
+    /**
+     * Notify the listeners of the writes of the entry at the given index
+     * while the write lock is held, unless they have been rolled back.
+     * Writes in a transaction begun by an outer entry are passed to the
+     * outer entry, which is notified after the transaction ends.
+     */
+    private void notifyWrites(HeldLocks held, int index)
+    {
+        if (index < 0)
+        {
+            // Opened on another thread.
+            fireTablesWritten(null);
+            return;
+        }
+
+        int outcome = held.outcomes[index];
+
+        if ((outcome & HeldLocks.ROLLED_BACK) != 0 && (outcome & HeldLocks.COMMITTED) == 0)
+        {
+            // Nothing has been committed.
+            return;
+        }
+
+        int pending = held.findPending();
+
+        if (pending != index && 0 <= pending)
+        {
+            // Not committed yet. Notify with the outer entry.
+            held.addTables(pending, held.tables[index]);
+            return;
+        }
+
+        fireTablesWritten(held.tables[index]);
+    }
+
+
+    private void fireTablesWritten(String[] tables)
+    {
+        for (TableWriteListener listener : writeListeners)
+        {
+            listener.onTablesWritten(this, tables);
+        }
+    }
+
+
+    private static long toTimeout(long timeout, TimeUnit unit)
+    {
+        if (timeout < 0)
+        {
+            throw new IllegalArgumentException("timeout is negative.");
+        }
+
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("unit is null.");
+        }
+
+        return unit.toNanos(timeout);
     }
 }
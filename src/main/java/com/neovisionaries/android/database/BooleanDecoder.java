@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import android.database.AbstractWindowedCursor;
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+
+/**
+ * Decoder of boolean values of a column.
+ *
+ * <p>
+ * A boolean is stored either as an integer ({@code 0}/{@code 1}) or as
+ * text ({@code "true"}/{@code "false"} or {@code "1"}/{@code "0"}). The
+ * encoding seen last is remembered, and the next value is first checked
+ * against it with a single type test, so a column which uses one encoding
+ * consistently is decoded without detecting its storage type every time.
+ * Text is copied into a reused buffer and is compared without creating
+ * a {@code String}.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+final class BooleanDecoder
+{
+    private static final int ENCODING_UNKNOWN = 0;
+    private static final int ENCODING_INTEGER = 1;
+    private static final int ENCODING_WORD    = 2;
+    private static final int ENCODING_DIGIT   = 3;
+
+
+    private final AbstractWindowedCursor windowed;
+    private final CharArrayBuffer buffer = new CharArrayBuffer(8);
+    private int encoding = ENCODING_UNKNOWN;
+
+
+    BooleanDecoder(Cursor wrapped)
+    {
+        // Unwrap BaseCursor to reach the windowed cursor.
+        while (wrapped instanceof BaseCursor)
+        {
+            wrapped = ((BaseCursor)wrapped).getWrapped();
+        }
+
+        this.windowed = (wrapped instanceof AbstractWindowedCursor)
+                      ? (AbstractWindowedCursor)wrapped : null;
+    }
+
+
+    /**
+     * Decode the value of the column of the current row.
+     */
+    public boolean decode(Cursor cursor, int columnIndex)
+    {
+        if (windowed != null)
+        {
+            // Fast paths for the encoding seen last.
+            switch (encoding)
+            {
+                case ENCODING_INTEGER:
+                    if (windowed.isLong(columnIndex))
+                    {
+                        return windowed.getLong(columnIndex) != 0;
+                    }
+                    break;
+
+                case ENCODING_WORD:
+                case ENCODING_DIGIT:
+                    // Note that isString() returns true for null, too.
+                    if (windowed.isString(columnIndex) && windowed.isNull(columnIndex) == false)
+                    {
+                        return decodeText(cursor, columnIndex);
+                    }
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        switch (CursorTypes.getType(cursor, columnIndex))
+        {
+            case CursorTypes.FIELD_TYPE_NULL:
+                return false;
+
+            case CursorTypes.FIELD_TYPE_INTEGER:
+                encoding = ENCODING_INTEGER;
+                return cursor.getLong(columnIndex) != 0;
+
+            case CursorTypes.FIELD_TYPE_FLOAT:
+                return cursor.getDouble(columnIndex) != 0;
+
+            default:
+                return decodeText(cursor, columnIndex);
+        }
+    }
+
+
+    private boolean decodeText(Cursor cursor, int columnIndex)
+    {
+        cursor.copyStringToBuffer(columnIndex, buffer);
+
+        char[] data = buffer.data;
+        int length  = buffer.sizeCopied;
+
+        if (length == 1)
+        {
+            char c = data[0];
+
+            if (c == '1' || c == '0')
+            {
+                encoding = ENCODING_DIGIT;
+                return c == '1';
+            }
+        }
+        else if (length == 4 && matchesTrue(data))
+        {
+            encoding = ENCODING_WORD;
+            return true;
+        }
+        else if (length == 5 && matchesFalse(data))
+        {
+            encoding = ENCODING_WORD;
+            return false;
+        }
+
+        // Any other text is false as Boolean.valueOf(String) says.
+        return false;
+    }
+
+
+    private static boolean matchesTrue(char[] data)
+    {
+        return (data[0] == 't' || data[0] == 'T')
+            && (data[1] == 'r' || data[1] == 'R')
+            && (data[2] == 'u' || data[2] == 'U')
+            && (data[3] == 'e' || data[3] == 'E');
+    }
+
+
+    private static boolean matchesFalse(char[] data)
+    {
+        return (data[0] == 'f' || data[0] == 'F')
+            && (data[1] == 'a' || data[1] == 'A')
+            && (data[2] == 'l' || data[2] == 'L')
+            && (data[3] == 's' || data[3] == 'S')
+            && (data[4] == 'e' || data[4] == 'E');
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+/**
+ * Description of a bulk load executed by {@link
+ * BaseOpenHelper#bulkLoad(BulkLoad, java.util.Iterator)}.
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * BulkLoad&lt;Item&gt; load = <span class="keyword">new</span> BulkLoad&lt;Item&gt;(
+ *     <span class="comment">// Use "INSERT OR REPLACE" for upserts.</span>
+ *     "INSERT OR REPLACE INTO item (id, name) VALUES (?, ?)",
+ *     <span class="keyword">new</span> BulkRowBinder&lt;Item&gt;()
+ *     {
+ *         <span class="keyword">public void</span> bind(SQLiteStatement statement, Item item)
+ *         {
+ *             statement.bindLong(1, item.id);
+ *             statement.bindString(2, item.name);
+ *         }
+ *     })
+ *     .{@link #setTables(String...) setTables}("item")
+ *     .{@link #setChunkSize(int) setChunkSize}(5000)
+ *     .{@link #setRebuiltIndexes(String...) setRebuiltIndexes}("item_name_index");
+ *
+ * BulkLoadStatistics statistics = helper.bulkLoad(load, items.iterator());
+ * </pre>
+ *
+ * @param <T>
+ *         The type of rows.
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class BulkLoad<T>
+{
+    /**
+     * The default number of rows committed in one transaction.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+
+    /**
+     * The name of the table which records the SQL of the indexes
+     * dropped by {@link #setRebuiltIndexes(String...)} until they are
+     * rebuilt.
+     *
+     * @see BaseOpenHelper#rebuildPendingIndexes()
+     */
+    public static final String PENDING_INDEX_TABLE = "bulk_load_pending_index";
+
+
+    private final String sql;
+    private final BulkRowBinder<? super T> binder;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private String[] tables;
+    private String[] rebuiltIndexes;
+    private BulkLoadListener listener;
+
+
+    /**
+     * Constructor.
+     *
+     * @param sql
+     *         SQL executed for each row, for example, {@code INSERT}
+     *         or {@code INSERT OR REPLACE}.
+     *
+     * @param binder
+     *         A binder which binds a row to the compiled statement
+     *         of {@code sql}.
+     *
+     * @throws IllegalArgumentException
+     *         {@code sql} or {@code binder} is {@code null}.
+     */
+    public BulkLoad(String sql, BulkRowBinder<? super T> binder)
+    {
+        if (sql == null)
+        {
+            throw new IllegalArgumentException("sql is null.");
+        }
+
+        if (binder == null)
+        {
+            throw new IllegalArgumentException("binder is null.");
+        }
+
+        this.sql    = sql;
+        this.binder = binder;
+    }
+
+
+    /**
+     * Get the SQL executed for each row.
+     */
+    public String getSql()
+    {
+        return sql;
+    }
+
+
+    /**
+     * Get the binder.
+     */
+    public BulkRowBinder<? super T> getBinder()
+    {
+        return binder;
+    }
+
+
+    /**
+     * Get the number of rows committed in one transaction.
+     */
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+
+    /**
+     * Set the number of rows committed in one transaction. The write
+     * lock is acquired per chunk, so other threads can access the
+     * database between chunks. The default value is {@link
+     * #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param chunkSize
+     *         The number of rows per chunk.
+     *
+     * @return
+     *         {@code this} object.
+     *
+     * @throws IllegalArgumentException
+     *         {@code chunkSize} is less than 1.
+     */
+    public BulkLoad<T> setChunkSize(int chunkSize)
+    {
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("chunkSize is less than 1.");
+        }
+
+        this.chunkSize = chunkSize;
+
+        return this;
+    }
+
+
+    /**
+     * Get the tables written by the bulk load.
+     *
+     * @return
+     *         The tables, or {@code null} if not set.
+     */
+    public String[] getTables()
+    {
+        return (tables == null) ? null : tables.clone();
+    }
+
+
+    /**
+     * Set the tables written by the bulk load. They are passed to
+     * {@link BaseOpenHelper#openWritable(String...)} for each chunk.
+     * If not set, the whole database is locked for each chunk.
+     *
+     * @param tables
+     *         The tables.
+     *
+     * @return
+     *         {@code this} object.
+     */
+    public BulkLoad<T> setTables(String... tables)
+    {
+        this.tables = (tables == null || tables.length == 0) ? null : tables.clone();
+
+        return this;
+    }
+
+
+    /**
+     * Get the names of the indexes dropped before the load and
+     * rebuilt after it.
+     *
+     * @return
+     *         The index names, or {@code null} if not set.
+     */
+    public String[] getRebuiltIndexes()
+    {
+        return (rebuiltIndexes == null) ? null : rebuiltIndexes.clone();
+    }
+
+
+    /**
+     * Set the names of the indexes dropped before the load and rebuilt
+     * after it. Building an index once is much faster than updating it
+     * for every row, but queries which use the indexes are slow while
+     * the load is running. The indexes are rebuilt even if the load fails.
+     *
+     * <p>
+     * {@code UNIQUE} indexes are not dropped, because rows loaded without
+     * them could violate the constraint and the index could not be built
+     * again. Indexes created implicitly by {@code UNIQUE} or {@code PRIMARY
+     * KEY} constraints cannot be dropped and are ignored, too.
+     * </p>
+     *
+     * <p>
+     * The SQL of the dropped indexes is recorded in {@link
+     * #PENDING_INDEX_TABLE} in the same transaction as the drops, and
+     * removed when the indexes are rebuilt. If the process is killed
+     * during the load, or an index cannot be rebuilt, the index is
+     * rebuilt by the next bulk load which names it or by {@link
+     * BaseOpenHelper#rebuildPendingIndexes()}.
+     * </p>
+     *
+     * @param indexes
+     *         The index names.
+     *
+     * @return
+     *         {@code this} object.
+     */
+    public BulkLoad<T> setRebuiltIndexes(String... indexes)
+    {
+        this.rebuiltIndexes = (indexes == null || indexes.length == 0) ? null : indexes.clone();
+
+        return this;
+    }
+
+
+    /**
+     * Get the listener.
+     */
+    public BulkLoadListener getListener()
+    {
+        return listener;
+    }
+
+
+    /**
+     * Set a listener notified after each chunk is committed.
+     *
+     * @param listener
+     *         A listener, or {@code null} to remove it.
+     *
+     * @return
+     *         {@code this} object.
+     */
+    public BulkLoad<T> setListener(BulkLoadListener listener)
+    {
+        this.listener = listener;
+
+        return this;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+/**
+ * Listener notified of the progress of a bulk load.
+ *
+ * @see BulkLoad#setListener(BulkLoadListener)
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public interface BulkLoadListener
+{
+    /**
+     * Called after each chunk has been committed. The write lock
+     * has already been released when this method is called.
+     *
+     * @param statistics
+     *         The progress of the bulk load so far.
+     */
+    void onChunkCommitted(BulkLoadStatistics statistics);
+}
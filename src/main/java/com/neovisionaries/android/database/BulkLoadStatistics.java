@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Snapshot of the progress of a bulk load.
+ *
+ * @see BaseOpenHelper#bulkLoad(BulkLoad, java.util.Iterator)
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class BulkLoadStatistics
+{
+    private final long rowCount;
+    private final int chunkCount;
+    private final long elapsedTime;
+
+
+    BulkLoadStatistics(long rowCount, int chunkCount, long elapsedTime)
+    {
+        this.rowCount    = rowCount;
+        this.chunkCount  = chunkCount;
+        this.elapsedTime = elapsedTime;
+    }
+
+
+    /**
+     * Get the number of rows committed.
+     */
+    public long getRowCount()
+    {
+        return rowCount;
+    }
+
+
+    /**
+     * Get the number of chunks committed.
+     */
+    public int getChunkCount()
+    {
+        return chunkCount;
+    }
+
+
+    /**
+     * Get the time elapsed since the bulk load started.
+     *
+     * @param unit
+     *         The unit of the returned value.
+     */
+    public long getElapsedTime(TimeUnit unit)
+    {
+        return unit.convert(elapsedTime, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Get the number of rows committed per second.
+     *
+     * @return
+     *         Rows per second. 0.0 is returned when no time has elapsed.
+     */
+    public double getRowsPerSecond()
+    {
+        if (elapsedTime <= 0)
+        {
+            return 0.0;
+        }
+
+        return rowCount * 1000000000.0 / elapsedTime;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "BulkLoadStatistics(rows=%d, chunks=%d, elapsed=%dms, rowsPerSecond=%.1f)",
+            rowCount, chunkCount, getElapsedTime(TimeUnit.MILLISECONDS), getRowsPerSecond());
+    }
+}
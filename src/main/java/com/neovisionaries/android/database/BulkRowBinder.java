@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import android.database.sqlite.SQLiteStatement;
+
+
+/**
+ * Binder which binds a row to the statement of a bulk load.
+ *
+ * @param <T>
+ *         The type of rows.
+ *
+ * @see BulkLoad
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public interface BulkRowBinder<T>
+{
+    /**
+     * Bind the values of the given row to the statement.
+     *
+     * <p>
+     * The bindings of the statement have been cleared before this
+     * method is called. Don't execute or close the statement.
+     * </p>
+     *
+     * @param statement
+     *         The compiled statement of the bulk load.
+     *
+     * @param row
+     *         A row.
+     */
+    void bind(SQLiteStatement statement, T row);
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+/**
+ * Snapshot of the counters of a cache.
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class CacheStatistics
+{
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long invalidationCount;
+    private final int size;
+
+
+    CacheStatistics(long hitCount, long missCount, long evictionCount, long invalidationCount, int size)
+    {
+        this.hitCount          = hitCount;
+        this.missCount         = missCount;
+        this.evictionCount     = evictionCount;
+        this.invalidationCount = invalidationCount;
+        this.size              = size;
+    }
+
+
+    /**
+     * Get the number of lookups which found an entry.
+     */
+    public long getHitCount()
+    {
+        return hitCount;
+    }
+
+
+    /**
+     * Get the number of lookups which did not find an entry.
+     */
+    public long getMissCount()
+    {
+        return missCount;
+    }
+
+
+    /**
+     * Get the number of entries removed to keep the cache within its bound.
+     */
+    public long getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+
+    /**
+     * Get the number of entries removed because they became stale.
+     */
+    public long getInvalidationCount()
+    {
+        return invalidationCount;
+    }
+
+
+    /**
+     * Get the number of entries in the cache when this snapshot was taken.
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+
+    /**
+     * Get the ratio of hits to all the lookups.
+     *
+     * @return
+     *         A value between 0.0 and 1.0. 0.0 is returned when no
+     *         lookup has been performed.
+     */
+    public double getHitRatio()
+    {
+        long total = hitCount + missCount;
+
+        if (total == 0)
+        {
+            return 0.0;
+        }
+
+        return (double)hitCount / total;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "CacheStatistics(hits=%d, misses=%d, evictions=%d, invalidations=%d, size=%d, hitRatio=%.3f)",
+            hitCount, missCount, evictionCount, invalidationCount, size, getHitRatio());
+    }
+}
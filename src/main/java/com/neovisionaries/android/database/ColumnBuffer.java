@@ -0,0 +1,431 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+
+/**
+ * Reusable buffer which receives the values of one column of all
+ * the rows of a cursor.
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="comment">// Create buffers once and reuse them.</span>
+ * ColumnBuffer ages  = ColumnBuffer.{@link #forInt(String) forInt}("age");
+ * ColumnBuffer names = ColumnBuffer.{@link #forString(String) forString}("name");
+ * ColumnBuffer[] buffers = { ages, names };
+ *
+ * <span class="comment">// Read both columns of all the rows in one pass.</span>
+ * <span class="keyword">int</span> rows = cursor.{@link BaseCursor#readColumns(ColumnBuffer...) readColumns}(buffers);
+ *
+ * <span class="keyword">int</span>[] values = ages.{@link #getInts()};
+ *
+ * <span class="keyword">for</span> (<span class="keyword">int</span> i = 0; i &lt; rows; ++i)
+ * {
+ *     <span class="keyword">if</span> (ages.{@link #isNull(int) isNull}(i) == <span class="keyword">false</span>)
+ *     {
+ *         sum += values[i];
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>
+ * Numeric values are stored in a primitive array ({@code int[]},
+ * {@code long[]} or {@code double[]}) and strings are packed into one
+ * {@code char[]} with offsets. Nulls are recorded in a bitmap. The
+ * arrays are enlarged only when they are too small, so reading cursors
+ * of similar sizes repeatedly with the same buffers allocates nothing.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class ColumnBuffer
+{
+    /**
+     * Type of a column buffer.
+     */
+    public enum Type
+    {
+        INT,
+        LONG,
+        DOUBLE,
+        STRING
+    }
+
+
+    private final String columnName;
+    private final Type type;
+    private int columnIndex;
+    private int rowCount;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private char[] chars;
+    private int[] offsets;
+    private int charCount;
+    private long[] nulls = new long[1];
+    private CharArrayBuffer charBuffer;
+
+
+    private ColumnBuffer(String columnName, Type type)
+    {
+        if (columnName == null)
+        {
+            throw new IllegalArgumentException("columnName is null.");
+        }
+
+        this.columnName = columnName;
+        this.type       = type;
+    }
+
+
+    /**
+     * Create a buffer which reads the column as {@code int}.
+     */
+    public static ColumnBuffer forInt(String columnName)
+    {
+        return new ColumnBuffer(columnName, Type.INT);
+    }
+
+
+    /**
+     * Create a buffer which reads the column as {@code int} into the
+     * given array while it is large enough.
+     */
+    public static ColumnBuffer forInt(String columnName, int[] buffer)
+    {
+        ColumnBuffer column = forInt(columnName);
+        column.ints = buffer;
+        return column;
+    }
+
+
+    /**
+     * Create a buffer which reads the column as {@code long}.
+     */
+    public static ColumnBuffer forLong(String columnName)
+    {
+        return new ColumnBuffer(columnName, Type.LONG);
+    }
+
+
+    /**
+     * Create a buffer which reads the column as {@code long} into the
+     * given array while it is large enough.
+     */
+    public static ColumnBuffer forLong(String columnName, long[] buffer)
+    {
+        ColumnBuffer column = forLong(columnName);
+        column.longs = buffer;
+        return column;
+    }
+
+
+    /**
+     * Create a buffer which reads the column as {@code double}.
+     */
+    public static ColumnBuffer forDouble(String columnName)
+    {
+        return new ColumnBuffer(columnName, Type.DOUBLE);
+    }
+
+
+    /**
+     * Create a buffer which reads the column as {@code double} into the
+     * given array while it is large enough.
+     */
+    public static ColumnBuffer forDouble(String columnName, double[] buffer)
+    {
+        ColumnBuffer column = forDouble(columnName);
+        column.doubles = buffer;
+        return column;
+    }
+
+
+    /**
+     * Create a buffer which reads the column as strings packed into
+     * one {@code char} array.
+     */
+    public static ColumnBuffer forString(String columnName)
+    {
+        return new ColumnBuffer(columnName, Type.STRING);
+    }
+
+
+    /**
+     * Get the name of the column.
+     */
+    public String getColumnName()
+    {
+        return columnName;
+    }
+
+
+    /**
+     * Get the type of this buffer.
+     */
+    public Type getType()
+    {
+        return type;
+    }
+
+
+    /**
+     * Get the number of rows read last time.
+     */
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+
+    /**
+     * Check if the value of the row is null.
+     */
+    public boolean isNull(int row)
+    {
+        checkRow(row);
+
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+
+    /**
+     * Get the array of {@code int} values. Only the first
+     * {@link #getRowCount()} elements are valid.
+     */
+    public int[] getInts()
+    {
+        return ints;
+    }
+
+
+    /**
+     * Get the array of {@code long} values. Only the first
+     * {@link #getRowCount()} elements are valid.
+     */
+    public long[] getLongs()
+    {
+        return longs;
+    }
+
+
+    /**
+     * Get the array of {@code double} values. Only the first
+     * {@link #getRowCount()} elements are valid.
+     */
+    public double[] getDoubles()
+    {
+        return doubles;
+    }
+
+
+    /**
+     * Get the array of packed characters of the string values.
+     * The characters of row {@code i} are located from {@link
+     * #getOffset(int) getOffset(i)} and their number is {@link
+     * #getLength(int) getLength(i)}.
+     */
+    public char[] getChars()
+    {
+        return chars;
+    }
+
+
+    /**
+     * Get the offset of the string value of the row in {@link #getChars()}.
+     */
+    public int getOffset(int row)
+    {
+        checkRow(row);
+
+        return offsets[row];
+    }
+
+
+    /**
+     * Get the length of the string value of the row. 0 is returned for null.
+     */
+    public int getLength(int row)
+    {
+        checkRow(row);
+
+        return offsets[row + 1] - offsets[row];
+    }
+
+
+    /**
+     * Get the string value of the row. This method allocates a new
+     * {@code String}.
+     *
+     * @return
+     *         The value, or {@code null} if the value is null.
+     */
+    public String getString(int row)
+    {
+        if (isNull(row))
+        {
+            return null;
+        }
+
+        return new String(chars, offsets[row], offsets[row + 1] - offsets[row]);
+    }
+
+
+    /**
+     * Prepare the buffers for the given column index and number of rows.
+     */
+    void begin(int columnIndex, int capacity)
+    {
+        this.columnIndex = columnIndex;
+
+        rowCount  = 0;
+        charCount = 0;
+
+        int words = (capacity + 63) >>> 6;
+
+        if (nulls.length < words)
+        {
+            nulls = new long[words];
+        }
+        else
+        {
+            for (int i = 0; i < words; ++i)
+            {
+                nulls[i] = 0;
+            }
+        }
+
+        switch (type)
+        {
+            case INT:
+                if (ints == null || ints.length < capacity)
+                {
+                    ints = new int[capacity];
+                }
+                break;
+
+            case LONG:
+                if (longs == null || longs.length < capacity)
+                {
+                    longs = new long[capacity];
+                }
+                break;
+
+            case DOUBLE:
+                if (doubles == null || doubles.length < capacity)
+                {
+                    doubles = new double[capacity];
+                }
+                break;
+
+            case STRING:
+                if (offsets == null || offsets.length < capacity + 1)
+                {
+                    offsets = new int[capacity + 1];
+                }
+
+                if (chars == null)
+                {
+                    chars = new char[Math.max(64, capacity * 8)];
+                }
+
+                if (charBuffer == null)
+                {
+                    charBuffer = new CharArrayBuffer(64);
+                }
+
+                offsets[0] = 0;
+                break;
+        }
+    }
+
+
+    /**
+     * Read the value of the current row of the cursor.
+     */
+    void read(Cursor cursor, int row)
+    {
+        boolean isNull = cursor.isNull(columnIndex);
+
+        if (isNull)
+        {
+            nulls[row >>> 6] |= (1L << row);
+        }
+
+        switch (type)
+        {
+            case INT:
+                ints[row] = isNull ? 0 : cursor.getInt(columnIndex);
+                break;
+
+            case LONG:
+                longs[row] = isNull ? 0 : cursor.getLong(columnIndex);
+                break;
+
+            case DOUBLE:
+                doubles[row] = isNull ? 0.0 : cursor.getDouble(columnIndex);
+                break;
+
+            case STRING:
+                if (isNull == false)
+                {
+                    appendString(cursor, columnIndex);
+                }
+
+                offsets[row + 1] = charCount;
+                break;
+        }
+
+        rowCount = row + 1;
+    }
+
+
+    private void appendString(Cursor cursor, int columnIndex)
+    {
+        // copyStringToBuffer() reuses the buffer's array when it is large enough.
+        cursor.copyStringToBuffer(columnIndex, charBuffer);
+
+        int length = charBuffer.sizeCopied;
+
+        if (chars.length < charCount + length)
+        {
+            char[] copy = new char[Math.max(chars.length * 2, charCount + length)];
+            System.arraycopy(chars, 0, copy, 0, charCount);
+            chars = copy;
+        }
+
+        System.arraycopy(charBuffer.data, 0, chars, charCount, length);
+        charCount += length;
+    }
+
+
+    private void checkRow(int row)
+    {
+        if (row < 0 || rowCount <= row)
+        {
+            throw new IndexOutOfBoundsException("row " + row + " is out of range (0-" + rowCount + ").");
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import android.database.CharArrayBuffer;
+
+
+/**
+ * Reusable view of the characters of a string column, backed by a
+ * pooled {@link CharArrayBuffer}.
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="keyword">while</span> (cursor.moveToNext())
+ * {
+ *     <span class="comment">// No String is created.</span>
+ *     ColumnChars name = cursor.{@link BaseCursor#getCharsByName(String) getCharsByName}("name");
+ *
+ *     <span class="keyword">if</span> (name.{@link #startsWith(CharSequence, boolean) startsWith}(prefix, <span class="keyword">true</span>))
+ *     {
+ *         matches.add(cursor.getLong(0));
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>
+ * A view is owned by a {@link BaseCursor} and is overwritten when the
+ * same column is read again after the cursor moves, so it is valid only
+ * until the next move. Use {@link #toString()} to keep the value. The
+ * helper methods of this class work directly on the buffer and allocate
+ * nothing. {@link #hashCode()} and {@link #equals(Object)} are those of
+ * {@code Object} because the content changes; use {@link
+ * #contentHashCode()} and {@link #contentEquals(CharSequence)} instead.
+ * </p>
+ *
+ * @see BaseCursor#getChars(int)
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class ColumnChars implements CharSequence
+{
+    /**
+     * The initial capacity of the buffer.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+
+    private final CharArrayBuffer buffer = new CharArrayBuffer(INITIAL_CAPACITY);
+    private boolean nullValue;
+
+
+    /**
+     * The cursor position for which the buffer has been filled.
+     */
+    private int position = -1;
+
+
+    ColumnChars()
+    {
+    }
+
+
+    /**
+     * Fill the buffer with the value of the column of the current row
+     * unless it has already been filled for the row.
+     */
+    void fill(BaseCursor cursor, int columnIndex)
+    {
+        int current = cursor.getPosition();
+
+        if (current == position)
+        {
+            // Already filled for this row.
+            return;
+        }
+
+        nullValue = cursor.isNull(columnIndex);
+
+        if (nullValue)
+        {
+            buffer.sizeCopied = 0;
+        }
+        else
+        {
+            // Reuses buffer.data as long as it is large enough.
+            cursor.copyStringToBuffer(columnIndex, buffer);
+        }
+
+        position = current;
+    }
+
+
+    /**
+     * Make the next {@link #fill(BaseCursor, int)} copy the value again.
+     */
+    void invalidate()
+    {
+        position = -1;
+    }
+
+
+    /**
+     * Check if the value is null. A null value is viewed as an empty
+     * sequence.
+     */
+    public boolean isNull()
+    {
+        return nullValue;
+    }
+
+
+    public int length()
+    {
+        return buffer.sizeCopied;
+    }
+
+
+    public char charAt(int index)
+    {
+        if (index < 0 || buffer.sizeCopied <= index)
+        {
+            throw new IndexOutOfBoundsException("index " + index + " is out of range.");
+        }
+
+        return buffer.data[index];
+    }
+
+
+    /**
+     * Get a subsequence. Note that this method creates a new {@code String}.
+     */
+    public CharSequence subSequence(int start, int end)
+    {
+        return toString().substring(start, end);
+    }
+
+
+    /**
+     * Get the content as a new {@code String}, or {@code null} if the
+     * value is null.
+     */
+    @Override
+    public String toString()
+    {
+        return nullValue ? null : new String(buffer.data, 0, buffer.sizeCopied);
+    }
+
+
+    /**
+     * Check if the content is equal to the given character sequence.
+     * A null value is equal only to {@code null}.
+     */
+    public boolean contentEquals(CharSequence other)
+    {
+        if (other == null)
+        {
+            return nullValue;
+        }
+
+        if (nullValue || other.length() != buffer.sizeCopied)
+        {
+            return false;
+        }
+
+        return regionMatches(0, other, false);
+    }
+
+
+    /**
+     * Check if the content is equal to the given character sequence,
+     * ignoring case.
+     */
+    public boolean contentEqualsIgnoreCase(CharSequence other)
+    {
+        if (other == null)
+        {
+            return nullValue;
+        }
+
+        if (nullValue || other.length() != buffer.sizeCopied)
+        {
+            return false;
+        }
+
+        return regionMatches(0, other, true);
+    }
+
+
+    /**
+     * Check if the content starts with the given prefix.
+     *
+     * @param prefix
+     *         A prefix.
+     *
+     * @param ignoreCase
+     *         True to compare characters ignoring case.
+     */
+    public boolean startsWith(CharSequence prefix, boolean ignoreCase)
+    {
+        if (nullValue || buffer.sizeCopied < prefix.length())
+        {
+            return false;
+        }
+
+        return regionMatches(0, prefix, ignoreCase);
+    }
+
+
+    /**
+     * Check if the content ends with the given suffix.
+     *
+     * @param suffix
+     *         A suffix.
+     *
+     * @param ignoreCase
+     *         True to compare characters ignoring case.
+     */
+    public boolean endsWith(CharSequence suffix, boolean ignoreCase)
+    {
+        if (nullValue || buffer.sizeCopied < suffix.length())
+        {
+            return false;
+        }
+
+        return regionMatches(buffer.sizeCopied - suffix.length(), suffix, ignoreCase);
+    }
+
+
+    /**
+     * Find the first occurrence of the given sequence.
+     *
+     * @param target
+     *         A sequence to find.
+     *
+     * @param ignoreCase
+     *         True to compare characters ignoring case.
+     *
+     * @return
+     *         The index of the first occurrence, or -1 if not found.
+     */
+    public int indexOf(CharSequence target, boolean ignoreCase)
+    {
+        int last = buffer.sizeCopied - target.length();
+
+        for (int i = 0; i <= last; ++i)
+        {
+            if (regionMatches(i, target, ignoreCase))
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Compare the content with the given character sequence
+     * lexicographically as {@link String#compareTo(String)} does.
+     * A null value is less than any other value.
+     */
+    public int compareTo(CharSequence other)
+    {
+        if (nullValue)
+        {
+            return (other == null) ? 0 : -1;
+        }
+
+        if (other == null)
+        {
+            return 1;
+        }
+
+        char[] data = buffer.data;
+        int length = buffer.sizeCopied;
+        int otherLength = other.length();
+        int min = Math.min(length, otherLength);
+
+        for (int i = 0; i < min; ++i)
+        {
+            int diff = data[i] - other.charAt(i);
+
+            if (diff != 0)
+            {
+                return diff;
+            }
+        }
+
+        return length - otherLength;
+    }
+
+
+    /**
+     * Get the hash code of the content, which is the same as the
+     * hash code of the equivalent {@code String}. 0 is returned for
+     * a null value.
+     */
+    public int contentHashCode()
+    {
+        char[] data = buffer.data;
+        int length = buffer.sizeCopied;
+        int hash = 0;
+
+        for (int i = 0; i < length; ++i)
+        {
+            hash = 31 * hash + data[i];
+        }
+
+        return hash;
+    }
+
+
+    private boolean regionMatches(int offset, CharSequence other, boolean ignoreCase)
+    {
+        char[] data = buffer.data;
+        int length = other.length();
+
+        for (int i = 0; i < length; ++i)
+        {
+            char a = data[offset + i];
+            char b = other.charAt(i);
+
+            if (a == b)
+            {
+                continue;
+            }
+
+            if (ignoreCase == false)
+            {
+                return false;
+            }
+
+            // The same comparison as String.equalsIgnoreCase().
+            char upperA = Character.toUpperCase(a);
+            char upperB = Character.toUpperCase(b);
+
+            if (upperA != upperB && Character.toLowerCase(upperA) != Character.toLowerCase(upperB))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import android.database.Cursor;
+
+
+/**
+ * Cache of column indexes for a column layout.
+ *
+ * <p>
+ * {@link Cursor#getColumnIndex(String)} scans the column names
+ * linearly (and case-insensitively) every time it is called.
+ * An instance of this class remembers the result of the lookup
+ * so that the scan is performed only once per column name.
+ * </p>
+ *
+ * <p>
+ * Instances are shared among cursors which have the same column
+ * layout (= the same column names in the same order), so cursors
+ * returned by the same query reuse one cache. Instances are
+ * thread-safe.
+ * </p>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * Cursor cursor = ...;
+ *
+ * ColumnIndexCache cache = ColumnIndexCache.{@link #getInstance(Cursor) getInstance}(cursor);
+ * int index = cache.{@link #getColumnIndex(String) getColumnIndex}("name");
+ * </pre>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class ColumnIndexCache
+{
+    /**
+     * The maximum number of column layouts whose caches are shared.
+     */
+    private static final int MAX_SHARED_CACHES = 64;
+
+
+    /**
+     * Shared caches keyed by column layouts (least recently used first).
+     */
+    private static final Map<List<String>, ColumnIndexCache> sharedCaches =
+        new LinkedHashMap<List<String>, ColumnIndexCache>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<String>, ColumnIndexCache> eldest)
+            {
+                return MAX_SHARED_CACHES < size();
+            }
+        };
+
+
+    private final String[] columnNames;
+    private final Map<String, Integer> indexes;
+
+
+    private ColumnIndexCache(String[] columnNames)
+    {
+        this.columnNames = columnNames;
+        this.indexes     = new ConcurrentHashMap<String, Integer>(columnNames.length * 2);
+
+        // Register the exact column names. When the same name appears
+        // more than once, the first one wins as Cursor.getColumnIndex() does.
+        for (int i = columnNames.length - 1; 0 <= i; --i)
+        {
+            indexes.put(columnNames[i], Integer.valueOf(i));
+        }
+    }
+
+
+    /**
+     * Get a cache for the column layout of the given cursor.
+     *
+     * <p>
+     * If a cache for the same column layout has already been created,
+     * the cache is returned. Otherwise, a new cache is created and
+     * registered.
+     * </p>
+     *
+     * @param cursor
+     *         A cursor.
+     *
+     * @return
+     *         A cache for the column layout of the cursor.
+     *
+     * @throws IllegalArgumentException
+     *         {@code cursor} is {@code null}.
+     */
+    public static ColumnIndexCache getInstance(Cursor cursor)
+    {
+        if (cursor == null)
+        {
+            throw new IllegalArgumentException("cursor is null.");
+        }
+
+        return getInstance(cursor.getColumnNames());
+    }
+
+
+    /**
+     * Get a cache for the given column layout.
+     *
+     * @param columnNames
+     *         Column names in the order of their indexes.
+     *
+     * @return
+     *         A cache for the column layout.
+     *
+     * @throws IllegalArgumentException
+     *         {@code columnNames} is {@code null}.
+     */
+    public static ColumnIndexCache getInstance(String[] columnNames)
+    {
+        if (columnNames == null)
+        {
+            throw new IllegalArgumentException("columnNames is null.");
+        }
+
+        // Copy the array so that the key and the cache are not
+        // affected even if the caller modifies the given array.
+        String[] names = columnNames.clone();
+        List<String> key = Arrays.asList(names);
+
+        synchronized (sharedCaches)
+        {
+            ColumnIndexCache cache = sharedCaches.get(key);
+
+            if (cache == null)
+            {
+                cache = new ColumnIndexCache(names);
+                sharedCaches.put(key, cache);
+            }
+
+            return cache;
+        }
+    }
+
+
+    /**
+     * Remove all the shared caches.
+     */
+    public static void clearSharedCaches()
+    {
+        synchronized (sharedCaches)
+        {
+            sharedCaches.clear();
+        }
+    }
+
+
+    /**
+     * Get the column names of the layout.
+     *
+     * @return
+     *         A copy of the column names.
+     */
+    public String[] getColumnNames()
+    {
+        return columnNames.clone();
+    }
+
+
+    /**
+     * Get the column index for the given column name.
+     *
+     * <p>
+     * The result is the same as that of {@link Cursor#getColumnIndex(String)}
+     * of cursors whose column layout is the one of this cache. That is,
+     * the comparison is case-insensitive and the part up to the last
+     * period (e.g. a table name) is ignored.
+     * </p>
+     *
+     * @param columnName
+     *         Column name.
+     *
+     * @return
+     *         The column index, or -1 if the column does not exist.
+     */
+    public int getColumnIndex(String columnName)
+    {
+        Integer index = indexes.get(columnName);
+
+        if (index == null)
+        {
+            // Perform the linear scan only once per column name.
+            index = Integer.valueOf(findColumnIndex(columnName));
+            indexes.put(columnName, index);
+        }
+
+        return index.intValue();
+    }
+
+
+    private int findColumnIndex(String columnName)
+    {
+        // Ignore a table name, as Cursor.getColumnIndex() does.
+        int periodIndex = columnName.lastIndexOf('.');
+
+        if (periodIndex != -1)
+        {
+            columnName = columnName.substring(periodIndex + 1);
+        }
+
+        for (int i = 0; i < columnNames.length; ++i)
+        {
+            if (columnNames[i].equalsIgnoreCase(columnName))
+            {
+                return i;
+            }
+        }
+
+        // Not found.
+        return -1;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Name of the column mapped to a field by {@link RowMapper}.
+ *
+ * <p>
+ * Fields without this annotation are mapped to the column whose name
+ * matches the field name, ignoring case and underscores (for example,
+ * field {@code firstName} is mapped to column {@code first_name}).
+ * </p>
+ *
+ * @since 1.13
+ *
+ * @author Takahiko Kawasaki
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ColumnName
+{
+    /**
+     * The column name.
+     */
+    String value();
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+/**
+ * Snapshot of connection counters of a {@link BaseOpenHelper}.
+ *
+ * @see BaseOpenHelper#getConnectionStatistics()
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class ConnectionStatistics
+{
+    private final long openCount;
+    private final long closeCount;
+    private final long reuseCount;
+    private final int leaseCount;
+
+
+    ConnectionStatistics(long openCount, long closeCount, long reuseCount, int leaseCount)
+    {
+        this.openCount  = openCount;
+        this.closeCount = closeCount;
+        this.reuseCount = reuseCount;
+        this.leaseCount = leaseCount;
+    }
+
+
+    /**
+     * Get the number of times the database was actually opened.
+     */
+    public long getOpenCount()
+    {
+        return openCount;
+    }
+
+
+    /**
+     * Get the number of times the database was actually closed.
+     */
+    public long getCloseCount()
+    {
+        return closeCount;
+    }
+
+
+    /**
+     * Get the number of times an already-open database was reused
+     * by {@code openReadable()} or {@code openWritable()}.
+     */
+    public long getReuseCount()
+    {
+        return reuseCount;
+    }
+
+
+    /**
+     * Get the number of leases which were active when this snapshot
+     * was taken.
+     */
+    public int getLeaseCount()
+    {
+        return leaseCount;
+    }
+
+
+    /**
+     * Get the ratio of reuses to all the {@code openReadable()} and
+     * {@code openWritable()} calls.
+     *
+     * @return
+     *         A value between 0.0 and 1.0. 0.0 is returned when neither
+     *         method has been called.
+     */
+    public double getReuseRatio()
+    {
+        long total = openCount + reuseCount;
+
+        if (total == 0)
+        {
+            return 0.0;
+        }
+
+        return (double)reuseCount / total;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "ConnectionStatistics(opens=%d, closes=%d, reuses=%d, leases=%d, reuseRatio=%.3f)",
+            openCount, closeCount, reuseCount, leaseCount, getReuseRatio());
+    }
+}
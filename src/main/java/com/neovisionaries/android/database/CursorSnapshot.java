@@ -0,0 +1,1174 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.io.UnsupportedEncodingException;
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+
+/**
+ * Immutable copy of the rows of a cursor.
+ *
+ * <p>
+ * Values are stored column by column in typed arrays ({@code long[]}
+ * for integer columns, {@code double[]} for floating point columns, and
+ * one UTF-8 {@code byte[]} with offsets for string columns) with a bitmap
+ * of nulls, so a snapshot is much more compact than a list of {@code
+ * ContentValues} (compare {@link #estimateSize()} with {@link
+ * #estimateContentValuesSize()}). A column whose values have different
+ * storage types is stored as an array of objects.
+ * </p>
+ *
+ * <p>
+ * A snapshot does not hold any database resource and can be read by
+ * any number of threads at the same time without locking. Code which
+ * expects a {@code Cursor}, such as adapters, can read a snapshot
+ * through {@link #asCursor()}.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class CursorSnapshot
+{
+    private final String[] columnNames;
+    private final ColumnIndexCache columnIndexCache;
+    private final Column[] columns;
+    private final int rowCount;
+
+
+    private CursorSnapshot(String[] columnNames, Column[] columns, int rowCount)
+    {
+        this.columnNames      = columnNames;
+        this.columnIndexCache = ColumnIndexCache.getInstance(columnNames);
+        this.columns          = columns;
+        this.rowCount         = rowCount;
+    }
+
+
+    /**
+     * Copy all the rows of the given cursor. The position of the
+     * cursor is moved. The cursor is not closed.
+     *
+     * @param cursor
+     *         A cursor.
+     *
+     * @return
+     *         A snapshot of the rows.
+     *
+     * @throws IllegalArgumentException
+     *         {@code cursor} is {@code null}.
+     */
+    public static CursorSnapshot of(Cursor cursor)
+    {
+        if (cursor == null)
+        {
+            throw new IllegalArgumentException("cursor is null.");
+        }
+
+        String[] names = cursor.getColumnNames().clone();
+        int count = Math.max(0, cursor.getCount());
+        ColumnBuilder[] builders = new ColumnBuilder[names.length];
+
+        for (int i = 0; i < builders.length; ++i)
+        {
+            builders[i] = new ColumnBuilder(count);
+        }
+
+        int row = 0;
+
+        for (boolean ok = cursor.moveToFirst(); ok; ok = cursor.moveToNext(), ++row)
+        {
+            for (int i = 0; i < builders.length; ++i)
+            {
+                builders[i].add(row, cursor, i);
+            }
+        }
+
+        Column[] columns = new Column[builders.length];
+
+        for (int i = 0; i < columns.length; ++i)
+        {
+            columns[i] = builders[i].build(row);
+        }
+
+        return new CursorSnapshot(names, columns, row);
+    }
+
+
+    /**
+     * Build a snapshot from rows of other snapshots which have the same
+     * column layout.
+     *
+     * @param parts
+     *         Source snapshots.
+     *
+     * @param partIndexes
+     *         The index (in {@code parts}) of the source of each row.
+     *
+     * @param rows
+     *         The row (in the source) of each row.
+     */
+    static CursorSnapshot merge(CursorSnapshot[] parts, int[] partIndexes, int[] rows)
+    {
+        String[] names = parts[0].columnNames;
+        int count = rows.length;
+        Column[] columns = new Column[names.length];
+
+        for (int i = 0; i < columns.length; ++i)
+        {
+            ColumnBuilder builder = new ColumnBuilder(count);
+
+            for (int row = 0; row < count; ++row)
+            {
+                builder.add(row, parts[partIndexes[row]].columns[i], rows[row]);
+            }
+
+            columns[i] = builder.build(count);
+        }
+
+        return new CursorSnapshot(names, columns, count);
+    }
+
+
+    /**
+     * Get the number of rows.
+     */
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+
+    /**
+     * Get the number of columns.
+     */
+    public int getColumnCount()
+    {
+        return columnNames.length;
+    }
+
+
+    /**
+     * Get the column names.
+     *
+     * @return
+     *         A copy of the column names.
+     */
+    public String[] getColumnNames()
+    {
+        return columnNames.clone();
+    }
+
+
+    /**
+     * Get the name of the column.
+     */
+    public String getColumnName(int columnIndex)
+    {
+        return columnNames[columnIndex];
+    }
+
+
+    /**
+     * Get the index of the column. The name is compared in the same
+     * way as {@link Cursor#getColumnIndex(String)}.
+     *
+     * @return
+     *         The column index, or -1 if the column does not exist.
+     */
+    public int getColumnIndex(String columnName)
+    {
+        return columnIndexCache.getColumnIndex(columnName);
+    }
+
+
+    /**
+     * Check if the value is null.
+     */
+    public boolean isNull(int row, int columnIndex)
+    {
+        checkRow(row);
+
+        return columns[columnIndex].isNull(row);
+    }
+
+
+    /**
+     * Get the storage type of the value.
+     *
+     * @return
+     *         0 (null), 1 (integer), 2 (float), 3 (string) or 4 (blob),
+     *         which are the values of {@code Cursor.FIELD_TYPE_*}
+     *         constants of API level 11.
+     */
+    public int getType(int row, int columnIndex)
+    {
+        checkRow(row);
+
+        return columns[columnIndex].getFieldType(row);
+    }
+
+
+    /**
+     * Get the value as a long. 0 is returned for null.
+     */
+    public long getLong(int row, int columnIndex)
+    {
+        checkRow(row);
+
+        return columns[columnIndex].getLong(row);
+    }
+
+
+    /**
+     * Get the value as an int. 0 is returned for null.
+     */
+    public int getInt(int row, int columnIndex)
+    {
+        return (int)getLong(row, columnIndex);
+    }
+
+
+    /**
+     * Get the value as a short. 0 is returned for null.
+     */
+    public short getShort(int row, int columnIndex)
+    {
+        return (short)getLong(row, columnIndex);
+    }
+
+
+    /**
+     * Get the value as a double. 0.0 is returned for null.
+     */
+    public double getDouble(int row, int columnIndex)
+    {
+        checkRow(row);
+
+        return columns[columnIndex].getDouble(row);
+    }
+
+
+    /**
+     * Get the value as a float. 0.0 is returned for null.
+     */
+    public float getFloat(int row, int columnIndex)
+    {
+        return (float)getDouble(row, columnIndex);
+    }
+
+
+    /**
+     * Get the value as a string. {@code null} is returned for null.
+     */
+    public String getString(int row, int columnIndex)
+    {
+        checkRow(row);
+
+        return columns[columnIndex].getString(row);
+    }
+
+
+    /**
+     * Copy the value as characters into the given buffer. The array of
+     * the buffer is reused if it is large enough. Values of string columns
+     * are decoded from UTF-8 directly into the buffer.
+     */
+    void copyStringToBuffer(int row, int columnIndex, CharArrayBuffer buffer)
+    {
+        checkRow(row);
+
+        columns[columnIndex].copyStringToBuffer(row, buffer);
+    }
+
+
+    /**
+     * Get the value as a byte array. {@code null} is returned for null.
+     * Strings are converted into UTF-8. The returned array must not be
+     * modified.
+     */
+    public byte[] getBlob(int row, int columnIndex)
+    {
+        checkRow(row);
+
+        return columns[columnIndex].getBlob(row);
+    }
+
+
+    /**
+     * Get a read-only cursor over this snapshot.
+     *
+     * <p>
+     * A cursor has a position, so it cannot be shared by threads. Each
+     * call returns a new lightweight cursor which has its own position
+     * but shares the data of this snapshot. Closing the cursor does not
+     * affect the snapshot. Methods which modify data or depend on the
+     * database, such as {@code requery()}, have no effect.
+     * </p>
+     *
+     * @return
+     *         A new cursor positioned before the first row.
+     */
+    public BaseCursor asCursor()
+    {
+        return new BaseCursor(new SnapshotCursor(this));
+    }
+
+
+    /**
+     * Get an estimate of the memory used by this snapshot in bytes.
+     */
+    public long estimateSize()
+    {
+        long size = 32 + 16 + 4L * columnNames.length;
+
+        for (int i = 0; i < columns.length; ++i)
+        {
+            size += estimateStringSize(columnNames[i]) + columns[i].estimateSize();
+        }
+
+        return size;
+    }
+
+
+    /**
+     * Get an estimate of the memory which the same rows would use if they
+     * were held as an {@code ArrayList<ContentValues>} (as built by {@code
+     * DatabaseUtils.cursorRowToContentValues()}), for comparison with
+     * {@link #estimateSize()}.
+     *
+     * <p>
+     * Each row is a {@code ContentValues} holding a {@code HashMap} with one
+     * entry per column, each non-null value is boxed, and each string is a
+     * separate {@code String} object. The column names are assumed to be
+     * shared by all the rows.
+     * </p>
+     */
+    public long estimateContentValuesSize()
+    {
+        // ArrayList and its array.
+        long size = 24 + 16 + 4L * rowCount;
+
+        // HashMap table capacity for the columns (load factor 0.75).
+        int capacity = Integer.highestOneBit(Math.max(1, columnNames.length * 4 / 3)) * 2;
+
+        // ContentValues + HashMap + table + entries.
+        long rowSize = 16 + 48 + 16 + 4L * capacity + 32L * columnNames.length;
+
+        size += rowSize * rowCount;
+
+        for (int i = 0; i < columns.length; ++i)
+        {
+            for (int row = 0; row < rowCount; ++row)
+            {
+                switch (columns[i].getFieldType(row))
+                {
+                    case CursorTypes.FIELD_TYPE_NULL:
+                        break;
+
+                    case CursorTypes.FIELD_TYPE_STRING:
+                        size += estimateStringSize(columns[i].getString(row));
+                        break;
+
+                    case CursorTypes.FIELD_TYPE_BLOB:
+                        size += 16 + columns[i].getBlob(row).length;
+                        break;
+
+                    default:
+                        // Long or Double.
+                        size += 16;
+                        break;
+                }
+            }
+        }
+
+        return size;
+    }
+
+
+    private void checkRow(int row)
+    {
+        if (row < 0 || rowCount <= row)
+        {
+            throw new IndexOutOfBoundsException("row " + row + " is out of range (0-" + rowCount + ").");
+        }
+    }
+
+
+    static long estimateStringSize(String string)
+    {
+        return (string == null) ? 0 : 40 + 2L * string.length();
+    }
+
+
+    static byte[] toUtf8(String string)
+    {
+        try
+        {
+            return string.getBytes("UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            // This never happens.
+            throw new AssertionError(e);
+        }
+    }
+
+
+    static String fromUtf8(byte[] bytes)
+    {
+        return fromUtf8(bytes, 0, bytes.length);
+    }
+
+
+    static String fromUtf8(byte[] bytes, int offset, int length)
+    {
+        try
+        {
+            return new String(bytes, offset, length, "UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            // This never happens.
+            throw new AssertionError(e);
+        }
+    }
+
+
+    /**
+     * Values of one column.
+     */
+    private static final class Column
+    {
+        private final int type;
+        private final long[] longs;
+        private final double[] doubles;
+        private final Object[] objects;
+        private final long[] nulls;
+
+
+        /**
+         * UTF-8 bytes of all the strings of a string column.
+         */
+        private final byte[] utf8;
+
+
+        /**
+         * Offsets of the strings in {@code utf8}. The string of row
+         * {@code n} ends at {@code offsets[n + 1]}.
+         */
+        private final int[] offsets;
+
+
+        public Column(int type, long[] longs, double[] doubles, Object[] objects, long[] nulls)
+        {
+            this(type, longs, doubles, objects, nulls, null, null);
+        }
+
+
+        private Column(int type, long[] longs, double[] doubles, Object[] objects, long[] nulls,
+                       byte[] utf8, int[] offsets)
+        {
+            this.type    = type;
+            this.longs   = longs;
+            this.doubles = doubles;
+            this.objects = objects;
+            this.nulls   = nulls;
+            this.utf8    = utf8;
+            this.offsets = offsets;
+        }
+
+
+        /**
+         * Create a string column whose strings are packed into one
+         * UTF-8 byte array.
+         */
+        public static Column packStrings(Object[] strings, int rowCount, long[] nulls)
+        {
+            byte[][] encoded = new byte[rowCount][];
+            int[] offsets = new int[rowCount + 1];
+            int total = 0;
+
+            for (int row = 0; row < rowCount; ++row)
+            {
+                offsets[row] = total;
+
+                if (strings[row] != null)
+                {
+                    encoded[row] = toUtf8((String)strings[row]);
+                    total += encoded[row].length;
+                }
+            }
+
+            offsets[rowCount] = total;
+
+            byte[] utf8 = new byte[total];
+
+            for (int row = 0; row < rowCount; ++row)
+            {
+                if (encoded[row] != null)
+                {
+                    System.arraycopy(encoded[row], 0, utf8, offsets[row], encoded[row].length);
+                }
+            }
+
+            return new Column(CursorTypes.FIELD_TYPE_STRING, null, null, null, nulls, utf8, offsets);
+        }
+
+
+        public boolean isNull(int row)
+        {
+            return (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+
+
+        public int getFieldType(int row)
+        {
+            if (isNull(row))
+            {
+                return CursorTypes.FIELD_TYPE_NULL;
+            }
+
+            switch (type)
+            {
+                case CursorTypes.FIELD_TYPE_INTEGER:
+                case CursorTypes.FIELD_TYPE_FLOAT:
+                case CursorTypes.FIELD_TYPE_STRING:
+                case CursorTypes.FIELD_TYPE_BLOB:
+                    return type;
+
+                default:
+                    return getObjectType(objects[row]);
+            }
+        }
+
+
+        public Object getObject(int row)
+        {
+            if (isNull(row))
+            {
+                return null;
+            }
+
+            switch (type)
+            {
+                case CursorTypes.FIELD_TYPE_INTEGER:
+                    return Long.valueOf(longs[row]);
+
+                case CursorTypes.FIELD_TYPE_FLOAT:
+                    return Double.valueOf(doubles[row]);
+
+                case CursorTypes.FIELD_TYPE_STRING:
+                    return getString(row);
+
+                default:
+                    return objects[row];
+            }
+        }
+
+
+        private static int getObjectType(Object object)
+        {
+            if (object instanceof Long)
+            {
+                return CursorTypes.FIELD_TYPE_INTEGER;
+            }
+
+            if (object instanceof Double)
+            {
+                return CursorTypes.FIELD_TYPE_FLOAT;
+            }
+
+            if (object instanceof byte[])
+            {
+                return CursorTypes.FIELD_TYPE_BLOB;
+            }
+
+            return CursorTypes.FIELD_TYPE_STRING;
+        }
+
+
+        public long getLong(int row)
+        {
+            if (isNull(row))
+            {
+                return 0;
+            }
+
+            switch (type)
+            {
+                case CursorTypes.FIELD_TYPE_INTEGER:
+                    return longs[row];
+
+                case CursorTypes.FIELD_TYPE_FLOAT:
+                    return (long)doubles[row];
+
+                case CursorTypes.FIELD_TYPE_STRING:
+                    return toLong(getString(row));
+
+                default:
+                    return toLong(objects[row]);
+            }
+        }
+
+
+        public double getDouble(int row)
+        {
+            if (isNull(row))
+            {
+                return 0.0;
+            }
+
+            switch (type)
+            {
+                case CursorTypes.FIELD_TYPE_INTEGER:
+                    return longs[row];
+
+                case CursorTypes.FIELD_TYPE_FLOAT:
+                    return doubles[row];
+
+                case CursorTypes.FIELD_TYPE_STRING:
+                    return toDouble(getString(row));
+
+                default:
+                    return toDouble(objects[row]);
+            }
+        }
+
+
+        public String getString(int row)
+        {
+            if (isNull(row))
+            {
+                return null;
+            }
+
+            switch (type)
+            {
+                case CursorTypes.FIELD_TYPE_INTEGER:
+                    return Long.toString(longs[row]);
+
+                case CursorTypes.FIELD_TYPE_FLOAT:
+                    return Double.toString(doubles[row]);
+
+                case CursorTypes.FIELD_TYPE_STRING:
+                    return fromUtf8(utf8, offsets[row], offsets[row + 1] - offsets[row]);
+
+                default:
+                    return toString(objects[row]);
+            }
+        }
+
+
+        public void copyStringToBuffer(int row, CharArrayBuffer buffer)
+        {
+            if (type != CursorTypes.FIELD_TYPE_STRING || isNull(row))
+            {
+                String string = getString(row);
+                int length = (string == null) ? 0 : string.length();
+
+                ensureBuffer(buffer, length);
+
+                if (string != null)
+                {
+                    string.getChars(0, length, buffer.data, 0);
+                }
+
+                buffer.sizeCopied = length;
+                return;
+            }
+
+            int start = offsets[row];
+            int end   = offsets[row + 1];
+
+            // A UTF-8 sequence never decodes into more chars than bytes.
+            ensureBuffer(buffer, end - start);
+
+            buffer.sizeCopied = decodeUtf8(utf8, start, end, buffer.data);
+        }
+
+
+        private static void ensureBuffer(CharArrayBuffer buffer, int length)
+        {
+            if (buffer.data == null || buffer.data.length < length)
+            {
+                buffer.data = new char[length];
+            }
+        }
+
+
+        private static int decodeUtf8(byte[] bytes, int start, int end, char[] chars)
+        {
+            int count = 0;
+
+            for (int i = start; i < end; )
+            {
+                int b = bytes[i] & 0xFF;
+
+                if (b < 0x80)
+                {
+                    chars[count++] = (char)b;
+                    i += 1;
+                }
+                else if (b < 0xE0)
+                {
+                    chars[count++] = (char)(((b & 0x1F) << 6) | (bytes[i + 1] & 0x3F));
+                    i += 2;
+                }
+                else if (b < 0xF0)
+                {
+                    chars[count++] = (char)(((b & 0x0F) << 12) | ((bytes[i + 1] & 0x3F) << 6) | (bytes[i + 2] & 0x3F));
+                    i += 3;
+                }
+                else
+                {
+                    // A supplementary character becomes a surrogate pair.
+                    int codePoint = ((b & 0x07) << 18) | ((bytes[i + 1] & 0x3F) << 12)
+                                  | ((bytes[i + 2] & 0x3F) << 6) | (bytes[i + 3] & 0x3F);
+                    count += Character.toChars(codePoint, chars, count);
+                    i += 4;
+                }
+            }
+
+            return count;
+        }
+
+
+        public byte[] getBlob(int row)
+        {
+            if (isNull(row))
+            {
+                return null;
+            }
+
+            if (type == CursorTypes.FIELD_TYPE_BLOB || objects != null && objects[row] instanceof byte[])
+            {
+                return (byte[])objects[row];
+            }
+
+            if (type == CursorTypes.FIELD_TYPE_STRING)
+            {
+                // Copy the UTF-8 bytes as they are.
+                byte[] bytes = new byte[offsets[row + 1] - offsets[row]];
+                System.arraycopy(utf8, offsets[row], bytes, 0, bytes.length);
+                return bytes;
+            }
+
+            return toUtf8(getString(row));
+        }
+
+
+        public long estimateSize()
+        {
+            long size = 48 + 16 + 8L * nulls.length;
+
+            if (longs != null)
+            {
+                size += 16 + 8L * longs.length;
+            }
+
+            if (doubles != null)
+            {
+                size += 16 + 8L * doubles.length;
+            }
+
+            if (utf8 != null)
+            {
+                size += 16 + utf8.length + 16 + 4L * offsets.length;
+            }
+
+            if (objects != null)
+            {
+                size += 16 + 4L * objects.length;
+
+                for (Object object : objects)
+                {
+                    size += estimateObjectSize(object);
+                }
+            }
+
+            return size;
+        }
+
+
+        private static long estimateObjectSize(Object object)
+        {
+            if (object == null)
+            {
+                return 0;
+            }
+
+            if (object instanceof String)
+            {
+                return estimateStringSize((String)object);
+            }
+
+            if (object instanceof byte[])
+            {
+                return 16 + ((byte[])object).length;
+            }
+
+            // Boxed number.
+            return 16;
+        }
+
+
+        private static long toLong(Object value)
+        {
+            if (value instanceof Number)
+            {
+                return ((Number)value).longValue();
+            }
+
+            if (value instanceof String)
+            {
+                try
+                {
+                    return Long.parseLong(((String)value).trim());
+                }
+                catch (NumberFormatException e)
+                {
+                    return (long)toDouble(value);
+                }
+            }
+
+            return 0;
+        }
+
+
+        private static double toDouble(Object value)
+        {
+            if (value instanceof Number)
+            {
+                return ((Number)value).doubleValue();
+            }
+
+            if (value instanceof String)
+            {
+                try
+                {
+                    return Double.parseDouble(((String)value).trim());
+                }
+                catch (NumberFormatException e)
+                {
+                    // SQLite converts non-numeric text into 0.
+                    return 0.0;
+                }
+            }
+
+            return 0.0;
+        }
+
+
+        private static String toString(Object value)
+        {
+            if (value instanceof byte[])
+            {
+                return fromUtf8((byte[])value);
+            }
+
+            return value.toString();
+        }
+    }
+
+
+    /**
+     * Builder of {@link Column}.
+     */
+    private static final class ColumnBuilder
+    {
+        private static final int TYPE_UNKNOWN = -1;
+        private static final int TYPE_MIXED   = 5;
+
+        private int type = TYPE_UNKNOWN;
+        private long[] longs;
+        private double[] doubles;
+        private Object[] objects;
+        private long[] nulls;
+
+
+        public ColumnBuilder(int capacity)
+        {
+            this.nulls = new long[(Math.max(1, capacity) + 63) >>> 6];
+        }
+
+
+        public void add(int row, Cursor cursor, int columnIndex)
+        {
+            int fieldType = CursorTypes.getType(cursor, columnIndex);
+
+            if (prepare(row, fieldType) == false)
+            {
+                return;
+            }
+
+            switch (type)
+            {
+                case CursorTypes.FIELD_TYPE_INTEGER:
+                    longs[row] = cursor.getLong(columnIndex);
+                    break;
+
+                case CursorTypes.FIELD_TYPE_FLOAT:
+                    doubles[row] = cursor.getDouble(columnIndex);
+                    break;
+
+                default:
+                    objects[row] = read(cursor, columnIndex, fieldType);
+                    break;
+            }
+        }
+
+
+        public void add(int row, Column source, int sourceRow)
+        {
+            int fieldType = source.getFieldType(sourceRow);
+
+            if (prepare(row, fieldType) == false)
+            {
+                return;
+            }
+
+            switch (type)
+            {
+                case CursorTypes.FIELD_TYPE_INTEGER:
+                    longs[row] = source.getLong(sourceRow);
+                    break;
+
+                case CursorTypes.FIELD_TYPE_FLOAT:
+                    doubles[row] = source.getDouble(sourceRow);
+                    break;
+
+                default:
+                    objects[row] = source.getObject(sourceRow);
+                    break;
+            }
+        }
+
+
+        /**
+         * Prepare the storage for a value of the given type.
+         *
+         * @return
+         *         False if the value is null (already recorded).
+         */
+        private boolean prepare(int row, int fieldType)
+        {
+            ensureCapacity(row);
+
+            if (fieldType == CursorTypes.FIELD_TYPE_NULL)
+            {
+                nulls[row >>> 6] |= (1L << row);
+                return false;
+            }
+
+            if (type == TYPE_UNKNOWN)
+            {
+                initialize(fieldType);
+            }
+            else if (type != fieldType && type != TYPE_MIXED)
+            {
+                toMixed(row);
+            }
+
+            return true;
+        }
+
+
+        public Column build(int rowCount)
+        {
+            if (type == TYPE_UNKNOWN)
+            {
+                // All the values are null.
+                type = CursorTypes.FIELD_TYPE_NULL;
+            }
+
+            if (type == CursorTypes.FIELD_TYPE_STRING)
+            {
+                // Pack the strings into one UTF-8 byte array.
+                return Column.packStrings(objects, rowCount, trim(nulls, (rowCount + 63) >>> 6));
+            }
+
+            return new Column(type,
+                (longs   == null) ? null : trim(longs,   rowCount),
+                (doubles == null) ? null : trim(doubles, rowCount),
+                (objects == null) ? null : trim(objects, rowCount),
+                trim(nulls, (rowCount + 63) >>> 6));
+        }
+
+
+        private void initialize(int fieldType)
+        {
+            type = fieldType;
+
+            switch (fieldType)
+            {
+                case CursorTypes.FIELD_TYPE_INTEGER:
+                    longs = new long[nulls.length << 6];
+                    break;
+
+                case CursorTypes.FIELD_TYPE_FLOAT:
+                    doubles = new double[nulls.length << 6];
+                    break;
+
+                default:
+                    objects = new Object[nulls.length << 6];
+                    break;
+            }
+        }
+
+
+        private void toMixed(int rowCount)
+        {
+            Object[] mixed = (objects != null) ? objects : new Object[nulls.length << 6];
+
+            for (int row = 0; row < rowCount; ++row)
+            {
+                if ((nulls[row >>> 6] & (1L << row)) != 0)
+                {
+                    continue;
+                }
+
+                if (longs != null)
+                {
+                    mixed[row] = Long.valueOf(longs[row]);
+                }
+                else if (doubles != null)
+                {
+                    mixed[row] = Double.valueOf(doubles[row]);
+                }
+            }
+
+            type    = TYPE_MIXED;
+            longs   = null;
+            doubles = null;
+            objects = mixed;
+        }
+
+
+        private static Object read(Cursor cursor, int columnIndex, int fieldType)
+        {
+            switch (fieldType)
+            {
+                case CursorTypes.FIELD_TYPE_INTEGER:
+                    return Long.valueOf(cursor.getLong(columnIndex));
+
+                case CursorTypes.FIELD_TYPE_FLOAT:
+                    return Double.valueOf(cursor.getDouble(columnIndex));
+
+                case CursorTypes.FIELD_TYPE_BLOB:
+                    return cursor.getBlob(columnIndex);
+
+                default:
+                    return cursor.getString(columnIndex);
+            }
+        }
+
+
+        private void ensureCapacity(int row)
+        {
+            if (row < (nulls.length << 6))
+            {
+                return;
+            }
+
+            // The cursor returned more rows than getCount() said.
+            int length = Math.max(nulls.length * 2, (row >>> 6) + 1);
+
+            nulls = grow(nulls, length);
+
+            if (longs != null)
+            {
+                longs = grow(longs, length << 6);
+            }
+
+            if (doubles != null)
+            {
+                doubles = grow(doubles, length << 6);
+            }
+
+            if (objects != null)
+            {
+                objects = grow(objects, length << 6);
+            }
+        }
+
+
+        private static long[] grow(long[] array, int length)
+        {
+            long[] copy = new long[length];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            return copy;
+        }
+
+
+        private static double[] grow(double[] array, int length)
+        {
+            double[] copy = new double[length];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            return copy;
+        }
+
+
+        private static Object[] grow(Object[] array, int length)
+        {
+            Object[] copy = new Object[length];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            return copy;
+        }
+
+
+        private static long[] trim(long[] array, int length)
+        {
+            if (array.length == length)
+            {
+                return array;
+            }
+
+            long[] copy = new long[length];
+            System.arraycopy(array, 0, copy, 0, length);
+            return copy;
+        }
+
+
+        private static double[] trim(double[] array, int length)
+        {
+            if (array.length == length)
+            {
+                return array;
+            }
+
+            double[] copy = new double[length];
+            System.arraycopy(array, 0, copy, 0, length);
+            return copy;
+        }
+
+
+        private static Object[] trim(Object[] array, int length)
+        {
+            if (array.length == length)
+            {
+                return array;
+            }
+
+            Object[] copy = new Object[length];
+            System.arraycopy(array, 0, copy, 0, length);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import android.database.AbstractWindowedCursor;
+import android.database.Cursor;
+
+
+/**
+ * Storage type detection of cursor fields.
+ *
+ * <p>
+ * {@code Cursor.getType(int)} is not available on old platforms, so
+ * the type is detected by {@link AbstractWindowedCursor}'s {@code isXxx}
+ * methods when possible. For other cursors, non-null values are treated
+ * as strings.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+final class CursorTypes
+{
+    public static final int FIELD_TYPE_NULL    = 0;
+    public static final int FIELD_TYPE_INTEGER = 1;
+    public static final int FIELD_TYPE_FLOAT   = 2;
+    public static final int FIELD_TYPE_STRING  = 3;
+    public static final int FIELD_TYPE_BLOB    = 4;
+
+
+    private CursorTypes()
+    {
+    }
+
+
+    /**
+     * Get the storage type of the field of the current row.
+     */
+    public static int getType(Cursor cursor, int columnIndex)
+    {
+        // Unwrap BaseCursor to reach the windowed cursor.
+        while (cursor instanceof BaseCursor)
+        {
+            cursor = ((BaseCursor)cursor).getWrapped();
+        }
+
+        if (cursor instanceof SnapshotCursor)
+        {
+            return ((SnapshotCursor)cursor).getType(columnIndex);
+        }
+
+        if (cursor.isNull(columnIndex))
+        {
+            return FIELD_TYPE_NULL;
+        }
+
+        if (cursor instanceof AbstractWindowedCursor)
+        {
+            AbstractWindowedCursor windowed = (AbstractWindowedCursor)cursor;
+
+            // Note that isBlob() and isString() return true for null, too.
+            if (windowed.isLong(columnIndex))
+            {
+                return FIELD_TYPE_INTEGER;
+            }
+
+            if (windowed.isFloat(columnIndex))
+            {
+                return FIELD_TYPE_FLOAT;
+            }
+
+            if (windowed.isString(columnIndex))
+            {
+                return FIELD_TYPE_STRING;
+            }
+
+            return FIELD_TYPE_BLOB;
+        }
+
+        // The type cannot be detected.
+        return FIELD_TYPE_STRING;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2013 Neo Visionaries Inc.
+ * Copyright (C) 2013-2026 Neo Visionaries Inc.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,16 @@
 package com.neovisionaries.android.database;
 
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import android.database.Cursor;
 import android.database.DataSetObserver;
+import android.os.Handler;
+import android.os.Looper;
 
 
 /**
@@ -33,15 +41,68 @@ import android.database.DataSetObserver;
  *
  * <span class="comment">// Wait for the cursor to retrieve data.</span> 
  * <span class="keyword">new</span> CursorWaiter(cursor).{@link #join()};
+ *
+ * <span class="comment">// Wait for at most 3 seconds.</span>
+ * <span class="keyword">new</span> CursorWaiter(cursor).{@link #join(long, TimeUnit) join}(3, TimeUnit.SECONDS);
+ *
+ * <span class="comment">// Get notified without blocking.</span>
+ * <span class="keyword">new</span> CursorWaiter(cursor).{@link #joinAsync(CursorWaiterListener) joinAsync}(listener);
  * </pre>
  *
+ * <p>
+ * Since version 1.13, the waiting is performed on the caller's thread
+ * (or not performed at all in the case of {@link
+ * #joinAsync(CursorWaiterListener) joinAsync()}). No thread is created.
+ * </p>
+ *
  * @since 1.3
  * @author Takahiko Kawasaki
  */
 public class CursorWaiter extends DataSetObserver
 {
     private final Cursor cursor;
-    private Thread waiter;
+
+
+    /**
+     * Lock held while this observer is registered to or unregistered
+     * from the cursor. The monitor of this object is never held while
+     * the cursor is called, because the cursor calls {@link #onChanged()}
+     * holding the lock of its observers.
+     */
+    private final Object registration = new Object();
+
+
+    /**
+     * True if the end of the data retrieval has been detected. Set
+     * with the monitor of this object, which threads in {@code join()}
+     * wait on.
+     */
+    private volatile boolean finished;
+
+
+    /**
+     * The futures created by {@link #joinAsync(CursorWaiterListener)}
+     * and not completed yet, created on demand. Guarded by {@code this}.
+     */
+    private List<JoinFuture> futures;
+
+
+    /**
+     * The number of joins being observed. Guarded by {@code this}.
+     */
+    private int users;
+
+
+    /**
+     * The thread executing {@link #onChanged()}. Guarded by {@code this}.
+     */
+    private Thread notifier;
+
+
+    /**
+     * True if this observer is registered. Guarded by {@link #registration}.
+     */
+    private boolean registered;
 
 
     /**
@@ -66,74 +127,413 @@ public class CursorWaiter extends DataSetObserver
      *
      * @return
      *         True if the cursor finished data retrieval.
-     *         False if the internal thread was interrupted for some reasons.
+     *         False if the calling thread was interrupted. In that case,
+     *         the interrupted status of the thread is set again.
      */
     public boolean join()
     {
-        if (0 <= cursor.getCount())
+        if (checkFinished())
         {
             // The cursor has already finished data retrieval.
-            // Return without starting any waiting thread.
             return true;
         }
 
-        waiter = new WaiterThread();
-        waiter.start();
+        beginObservation();
 
-        cursor.registerDataSetObserver(this);
+        try
+        {
+            // Check again for the case where the data retrieval
+            // had finished before registerDataSetObserver() finished.
+            if (checkFinished())
+            {
+                return true;
+            }
 
-        // Interrupt once for the case where the data retrieval
-        // had finished before registerDataSetObserver() finished.
-        waiter.interrupt();
+            synchronized (this)
+            {
+                // Wait until onChanged() detects the end of data retrieval.
+                while (finished == false)
+                {
+                    wait();
+                }
+            }
+
+            // Joined.
+            return true;
+        }
+        catch (InterruptedException e)
+        {
+            // Interrupted. Restore the interrupted status.
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        finally
+        {
+            endObservation();
+        }
+    }
+
+
+    /**
+     * Wait for the cursor to retrieve data with timeout.
+     *
+     * @param timeout
+     *         The maximum time to wait.
+     *
+     * @param unit
+     *         The time unit of {@code timeout}.
+     *
+     * @return
+     *         True if the cursor finished data retrieval.
+     *         False if the timeout elapsed or the calling thread was
+     *         interrupted. In the latter case, the interrupted status
+     *         of the thread is set again.
+     *
+     * @throws IllegalArgumentException
+     *         {@code unit} is {@code null}.
+     *
+     * @since 1.13
+     */
+    public boolean join(long timeout, TimeUnit unit)
+    {
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("unit is null.");
+        }
+
+        if (checkFinished())
+        {
+            // The cursor has already finished data retrieval.
+            return true;
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        beginObservation();
 
         try
         {
-            // Wait until data retrieval finishes.
-            waiter.join();
+            if (checkFinished())
+            {
+                return true;
+            }
+
+            synchronized (this)
+            {
+                // Wait until onChanged() detects the end of data
+                // retrieval or the timeout elapses.
+                while (finished == false)
+                {
+                    long remaining = deadline - System.nanoTime();
+
+                    if (remaining <= 0)
+                    {
+                        return false;
+                    }
+
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+
+            return true;
         }
         catch (InterruptedException e)
         {
-            // Interrupted.
+            // Interrupted. Restore the interrupted status.
+            Thread.currentThread().interrupt();
             return false;
         }
+        finally
+        {
+            endObservation();
+        }
+    }
 
-        // Joined.
-        return true;
+
+    /**
+     * Get notified when the cursor finishes data retrieval, without
+     * blocking the calling thread.
+     *
+     * <p>
+     * The returned {@code Future} completes with the cursor when the
+     * data retrieval finishes. Cancelling the {@code Future} stops
+     * observing the cursor and the listener will not be called. If the
+     * data retrieval has already finished, the {@code Future} is
+     * completed (and the listener is called) before this method returns,
+     * without observing the cursor.
+     * </p>
+     *
+     * @param listener
+     *         A listener to be called when the cursor finishes data
+     *         retrieval. May be {@code null}.
+     *
+     * @return
+     *         A {@code Future} which completes with the cursor.
+     *
+     * @since 1.13
+     */
+    public Future<Cursor> joinAsync(CursorWaiterListener listener)
+    {
+        JoinFuture future = new JoinFuture(listener);
+
+        if (checkFinished())
+        {
+            // No need to observe the cursor.
+            future.run();
+            return future;
+        }
+
+        future.observing = true;
+        beginObservation();
+
+        boolean added;
+
+        synchronized (this)
+        {
+            added = (finished == false);
+
+            if (added)
+            {
+                if (futures == null)
+                {
+                    futures = new ArrayList<JoinFuture>(2);
+                }
+
+                futures.add(future);
+            }
+        }
+
+        if (added)
+        {
+            // Check again for the case where the data retrieval had
+            // finished before registerDataSetObserver() finished. The
+            // future is completed by checkFinished() if so.
+            checkFinished();
+        }
+        else
+        {
+            // Detected by another thread before the future was added.
+            future.run();
+        }
+
+        return future;
     }
 
 
     @Override
     public void onChanged()
     {
-        if (waiter.isAlive())
+        synchronized (this)
+        {
+            notifier = Thread.currentThread();
+        }
+
+        try
         {
-            waiter.interrupt();
+            checkFinished();
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                notifier = null;
+            }
         }
     }
 
 
-    private class WaiterThread extends Thread
+    /**
+     * Check if the cursor has finished data retrieval. If it has
+     * just been detected, release waiting threads and complete
+     * pending futures.
+     */
+    private boolean checkFinished()
     {
-        @Override
-        public void run()
+        if (finished)
+        {
+            // Already detected.
+            return true;
+        }
+
+        if (cursor.getCount() < 0)
+        {
+            // The data retrieval has not finished yet.
+            return false;
+        }
+
+        List<JoinFuture> pending;
+
+        synchronized (this)
+        {
+            if (finished)
+            {
+                // Detected by another thread.
+                return true;
+            }
+
+            finished = true;
+            pending  = futures;
+            futures  = null;
+
+            // Release the threads waiting in join().
+            notifyAll();
+        }
+
+        if (pending != null)
         {
-            while (true)
+            // Complete the futures created by joinAsync().
+            for (JoinFuture future : pending)
             {
-                if (0 <= cursor.getCount())
+                future.run();
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Register this observer to the cursor if this is the first user.
+     */
+    private void beginObservation()
+    {
+        synchronized (this)
+        {
+            ++users;
+        }
+
+        updateRegistration();
+    }
+
+
+    /**
+     * Unregister this observer from the cursor if this is the last user.
+     */
+    private void endObservation()
+    {
+        boolean notifying;
+
+        synchronized (this)
+        {
+            --users;
+            notifying = (notifier == Thread.currentThread());
+        }
+
+        if (notifying)
+        {
+            // Unregistering an observer while the cursor is iterating
+            // the observers breaks the iteration (on API level 8, with
+            // ConcurrentModificationException).
+            postRegistrationUpdate();
+            return;
+        }
+
+        updateRegistration();
+    }
+
+
+    /**
+     * Update the registration on the main thread after the current
+     * notification. If the main thread is the notifying one, the update
+     * runs after the notification returns. Otherwise, it waits for the
+     * cursor to finish iterating its observers.
+     */
+    private void postRegistrationUpdate()
+    {
+        Looper looper = Looper.getMainLooper();
+
+        if (looper == null)
+        {
+            // No main thread. The registration is updated by the next
+            // begin or end on another thread. Until then, onChanged()
+            // does nothing because the data retrieval has finished.
+            return;
+        }
+
+        new Handler(looper).post(new Runnable()
+        {
+            public void run()
+            {
+                updateRegistration();
+            }
+        });
+    }
+
+
+    /**
+     * Register or unregister this observer according to the number
+     * of users.
+     */
+    private void updateRegistration()
+    {
+        synchronized (registration)
+        {
+            boolean needed;
+
+            synchronized (this)
+            {
+                needed = (users != 0);
+            }
+
+            if (needed && registered == false)
+            {
+                cursor.registerDataSetObserver(this);
+                registered = true;
+            }
+            else if (needed == false && registered)
+            {
+                cursor.unregisterDataSetObserver(this);
+                registered = false;
+            }
+        }
+    }
+
+
+    private class JoinFuture extends FutureTask<Cursor>
+    {
+        private final CursorWaiterListener listener;
+
+
+        /**
+         * True if this future has been counted as a user of the
+         * observation. Set before this future is published.
+         */
+        public volatile boolean observing;
+
+
+        public JoinFuture(CursorWaiterListener listener)
+        {
+            super(new Callable<Cursor>()
+            {
+                public Cursor call()
                 {
-                    // The data retrieval has finished.
-                    return;
+                    return cursor;
                 }
+            });
 
-                try
+            this.listener = listener;
+        }
+
+
+        @Override
+        protected void done()
+        {
+            if (observing)
+            {
+                synchronized (CursorWaiter.this)
                 {
-                    synchronized (this)
+                    if (futures != null)
                     {
-                        // Wait until onChanged() method is called.
-                        wait();
+                        futures.remove(this);
                     }
                 }
-                catch (InterruptedException e) {}
+
+                endObservation();
+            }
+
+            if (listener != null && isCancelled() == false)
+            {
+                listener.onJoined(cursor);
             }
         }
     }
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import android.database.Cursor;
+
+
+/**
+ * Listener passed to {@link CursorWaiter#joinAsync(CursorWaiterListener)}.
+ *
+ * @since 1.13
+ *
+ * @author Takahiko Kawasaki
+ */
+public interface CursorWaiterListener
+{
+    /**
+     * Called when the cursor finished data retrieval.
+     *
+     * <p>
+     * This method is called on the thread which detected the end of
+     * the data retrieval, that is, either the thread which called
+     * {@link CursorWaiter#joinAsync(CursorWaiterListener) joinAsync()}
+     * (if the data retrieval had already finished) or the thread which
+     * notified the cursor's {@code DataSetObserver}s. Implementations
+     * should return quickly.
+     * </p>
+     *
+     * @param cursor
+     *         The cursor which finished data retrieval.
+     */
+    void onJoined(Cursor cursor);
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import android.database.sqlite.SQLiteDatabase;
+
+
+/**
+ * Executor which runs database tasks asynchronously with priorities.
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="comment">// Up to 3 concurrent reads.</span>
+ * DatabaseExecutor executor = <span class="keyword">new</span> DatabaseExecutor(helper, 3);
+ *
+ * Future&lt;CursorSnapshot&gt; future = executor.{@link #read(Priority, DatabaseTask, String...) read}(
+ *     Priority.INTERACTIVE, task);
+ *
+ * <span class="comment">// A cancelled task which has not started never touches the lock.</span>
+ * future.cancel(<span class="keyword">false</span>);
+ * </pre>
+ *
+ * <p>
+ * Read tasks are executed concurrently by a bounded pool of threads,
+ * each between {@link BaseOpenHelper#openReadable(String...)} and
+ * {@link BaseOpenHelper#closeReadable(SQLiteDatabase)}. Write tasks are
+ * executed one by one by a single thread, each between {@link
+ * BaseOpenHelper#openWritable(String...)} and {@link
+ * BaseOpenHelper#closeWritable(SQLiteDatabase)}. Queued tasks are taken
+ * in order of priority, and in order of submission among tasks of the
+ * same priority, so interactive tasks overtake queued background tasks.
+ * </p>
+ *
+ * <p>
+ * Results must not depend on the database after the task returns.
+ * For example, return a {@link CursorSnapshot} rather than a cursor.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class DatabaseExecutor
+{
+    /**
+     * Priority of a task.
+     */
+    public enum Priority
+    {
+        /**
+         * Work a user is waiting for.
+         */
+        INTERACTIVE,
+
+
+        /**
+         * Ordinary work.
+         */
+        NORMAL,
+
+
+        /**
+         * Work nobody is waiting for, such as synchronization.
+         */
+        BACKGROUND
+    }
+
+
+    private final BaseOpenHelper helper;
+    private final ThreadPoolExecutor readers;
+    private final ThreadPoolExecutor writer;
+    private final AtomicLong sequence = new AtomicLong();
+
+
+    /**
+     * Constructor.
+     *
+     * @param helper
+     *         The database open helper.
+     *
+     * @param readerCount
+     *         The maximum number of read tasks executed concurrently.
+     *
+     * @throws IllegalArgumentException
+     *         {@code helper} is {@code null} or {@code readerCount}
+     *         is less than 1.
+     */
+    public DatabaseExecutor(BaseOpenHelper helper, int readerCount)
+    {
+        if (helper == null)
+        {
+            throw new IllegalArgumentException("helper is null.");
+        }
+
+        if (readerCount < 1)
+        {
+            throw new IllegalArgumentException("readerCount is less than 1.");
+        }
+
+        this.helper  = helper;
+        this.readers = newExecutor(readerCount, "DatabaseExecutor-reader");
+        this.writer  = newExecutor(1, "DatabaseExecutor-writer");
+    }
+
+
+    /**
+     * Submit a read task.
+     *
+     * @param priority
+     *         The priority of the task.
+     *
+     * @param task
+     *         A task which reads the database.
+     *
+     * @param tables
+     *         The tables the task reads (see {@link
+     *         BaseOpenHelper#openReadable(String...)}). If none is
+     *         given, the whole database is locked.
+     *
+     * @return
+     *         A {@code Future} of the result of the task.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException
+     *         The executor has been shut down.
+     */
+    public <T> Future<T> read(Priority priority, final DatabaseTask<T> task, final String... tables)
+    {
+        checkTask(priority, task);
+
+        return submit(readers, priority, new Callable<T>()
+        {
+            public T call() throws Exception
+            {
+                SQLiteDatabase db = helper.openReadable(tables);
+
+                try
+                {
+                    return task.execute(db);
+                }
+                finally
+                {
+                    helper.closeReadable(db);
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Submit a write task.
+     *
+     * @param priority
+     *         The priority of the task.
+     *
+     * @param task
+     *         A task which writes the database.
+     *
+     * @param tables
+     *         The tables the task writes (see {@link
+     *         BaseOpenHelper#openWritable(String...)}). If none is
+     *         given, the whole database is locked.
+     *
+     * @return
+     *         A {@code Future} of the result of the task.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException
+     *         The executor has been shut down.
+     */
+    public <T> Future<T> write(Priority priority, final DatabaseTask<T> task, final String... tables)
+    {
+        checkTask(priority, task);
+
+        return submit(writer, priority, new Callable<T>()
+        {
+            public T call() throws Exception
+            {
+                SQLiteDatabase db = helper.openWritable(tables);
+
+                try
+                {
+                    return task.execute(db);
+                }
+                finally
+                {
+                    helper.closeWritable(db);
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Stop accepting new tasks. Queued tasks are still executed.
+     */
+    public void shutdown()
+    {
+        readers.shutdown();
+        writer.shutdown();
+    }
+
+
+    /**
+     * Stop accepting new tasks and cancel queued tasks. Running tasks
+     * are interrupted.
+     */
+    public void shutdownNow()
+    {
+        cancelAll(readers);
+        cancelAll(writer);
+    }
+
+
+    /**
+     * Wait for the executor to terminate after {@link #shutdown()}.
+     *
+     * @return
+     *         True if all the threads terminated.
+     *
+     * @throws InterruptedException
+     *         Interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        if (readers.awaitTermination(timeout, unit) == false)
+        {
+            return false;
+        }
+
+        return writer.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+
+    private <T> Future<T> submit(ThreadPoolExecutor executor, Priority priority, Callable<T> callable)
+    {
+        PrioritizedTask<T> task =
+            new PrioritizedTask<T>(callable, priority, sequence.getAndIncrement());
+
+        // execute(), not submit(), so that the queue receives the
+        // comparable task itself.
+        executor.execute(task);
+
+        return task;
+    }
+
+
+    private static void checkTask(Priority priority, DatabaseTask<?> task)
+    {
+        if (priority == null)
+        {
+            throw new IllegalArgumentException("priority is null.");
+        }
+
+        if (task == null)
+        {
+            throw new IllegalArgumentException("task is null.");
+        }
+    }
+
+
+    private static void cancelAll(ThreadPoolExecutor executor)
+    {
+        for (Runnable runnable : executor.shutdownNow())
+        {
+            ((Future<?>)runnable).cancel(false);
+        }
+    }
+
+
+    private static ThreadPoolExecutor newExecutor(int threads, final String name)
+    {
+        final AtomicInteger counter = new AtomicInteger();
+
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<Runnable>(), new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+    }
+
+
+    private static class PrioritizedTask<T> extends FutureTask<T> implements Comparable<PrioritizedTask<?>>
+    {
+        private final Priority priority;
+        private final long sequence;
+
+
+        public PrioritizedTask(Callable<T> callable, Priority priority, long sequence)
+        {
+            super(callable);
+
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+
+        public int compareTo(PrioritizedTask<?> other)
+        {
+            int diff = priority.compareTo(other.priority);
+
+            if (diff != 0)
+            {
+                return diff;
+            }
+
+            return (sequence < other.sequence) ? -1 : ((sequence == other.sequence) ? 0 : 1);
+        }
+    }
+}
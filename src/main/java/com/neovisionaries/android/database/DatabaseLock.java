@@ -0,0 +1,587 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+/**
+ * The lock of {@link BaseOpenHelper} built from a {@link LockStrategy}.
+ *
+ * <p>
+ * All the threads hold the global lock. A thread which accesses the
+ * whole database holds the global lock in its own mode (read or write).
+ * In the striped strategy, a thread which accesses only some tables
+ * holds the global lock in read mode and the stripes of the tables in
+ * its own mode. A thread which reads the whole database holds all the
+ * stripes in read mode, so it conflicts with writers of any table.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+final class DatabaseLock
+{
+    /**
+     * Negative timeout which means "wait forever".
+     */
+    public static final long NO_TIMEOUT = -1;
+
+
+    /**
+     * Stripes returned by {@link #lock(boolean, String[], long, LockMonitor)}
+     * when only the global lock has been acquired.
+     */
+    public static final int[] NO_STRIPES = new int[0];
+
+
+    private final LockStrategy strategy;
+    private final ReentrantReadWriteLock global;
+    private final ReentrantReadWriteLock[] stripes;
+    private final int[] allStripes;
+
+
+    /**
+     * Locks held by each thread (striped strategy only).
+     */
+    private final ThreadLocal<Holds> holds;
+
+
+    /**
+     * Interval at which threads waiting without timeout check whether
+     * the lock has been retired, in nanoseconds.
+     */
+    private static final long RETIREMENT_CHECK_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+
+    /**
+     * True if threads waiting without timeout check whether the lock
+     * has been retired.
+     */
+    private volatile boolean revocable;
+
+
+    /**
+     * True if the lock has been replaced by another one.
+     */
+    private volatile boolean retired;
+
+
+    public DatabaseLock(LockStrategy strategy)
+    {
+        this.strategy = strategy;
+        this.global   = new ReentrantReadWriteLock(strategy.isFair());
+
+        if (strategy.isStriped() == false)
+        {
+            this.stripes    = null;
+            this.allStripes = null;
+            this.holds      = null;
+            return;
+        }
+
+        int count = strategy.getStripeCount();
+
+        this.stripes    = new ReentrantReadWriteLock[count];
+        this.allStripes = new int[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            stripes[i]    = new ReentrantReadWriteLock(strategy.isFair());
+            allStripes[i] = i;
+        }
+
+        this.holds = new ThreadLocal<Holds>()
+        {
+            @Override
+            protected Holds initialValue()
+            {
+                return new Holds(stripes.length);
+            }
+        };
+    }
+
+
+    /**
+     * Make threads which wait without timeout check periodically whether
+     * the lock has been retired. This is needed to retire a lock which
+     * is held by a terminated thread, but threads waiting longer than
+     * the check interval lose their places in the queue of a fair lock.
+     */
+    public void setRevocable(boolean revocable)
+    {
+        this.revocable = revocable;
+    }
+
+
+    public boolean isRevocable()
+    {
+        return revocable;
+    }
+
+
+    /**
+     * Retire this lock. Threads waiting for this lock give up (within
+     * the check interval if they wait without timeout and the lock is
+     * revocable), and no thread can acquire this lock any more. Threads
+     * holding this lock can still release it.
+     */
+    public void retire()
+    {
+        retired = true;
+    }
+
+
+    public boolean isRetired()
+    {
+        return retired;
+    }
+
+
+    public LockStrategy getStrategy()
+    {
+        return strategy;
+    }
+
+
+    public ReentrantReadWriteLock getGlobalLock()
+    {
+        return global;
+    }
+
+
+    /**
+     * Check if no thread holds or waits for the global lock.
+     */
+    public boolean isIdle()
+    {
+        return global.isWriteLocked() == false
+            && global.getReadLockCount() == 0
+            && global.hasQueuedThreads() == false;
+    }
+
+
+    /**
+     * Acquire the lock.
+     *
+     * <p>
+     * In the striped strategy, a thread which already holds the locks
+     * of some tables cannot acquire any other lock. It can only lock
+     * again the stripes it holds, in the same mode or in read mode
+     * within write mode. Otherwise, it could wait for a stripe while
+     * holding the connection lock of {@code SQLiteDatabase} (which is
+     * held from {@code beginTransaction()} until {@code
+     * endTransaction()}), or while holding a stripe another thread
+     * waits for, and the threads would deadlock. Such a request throws
+     * {@code IllegalStateException} instead of waiting forever. A
+     * thread holding the whole database in write mode can lock
+     * anything.
+     * </p>
+     *
+     * @param write
+     *         True for write mode.
+     *
+     * @param tables
+     *         The tables to access. {@code null} or an empty array
+     *         means the whole database.
+     *
+     * @param timeout
+     *         Timeout in nanoseconds, or {@link #NO_TIMEOUT}.
+     *
+     * @param monitor
+     *         A lock monitor, or {@code null}.
+     *
+     * @return
+     *         The indexes of the acquired stripes ({@link #NO_STRIPES}
+     *         if only the global lock has been acquired), which have to
+     *         be passed to {@link #unlock(boolean, int[], LockMonitor)}.
+     *         {@code null} if the timeout elapsed, the thread was
+     *         interrupted while waiting with timeout, or the lock has
+     *         been retired.
+     *
+     * @throws IllegalStateException
+     *         The lock cannot be acquired without a deadlock.
+     */
+    public int[] lock(boolean write, String[] tables, long timeout, LockMonitor monitor)
+    {
+        int mode = write ? LockMonitor.WRITE : LockMonitor.READ;
+        long requestTime = 0;
+
+        if (monitor != null)
+        {
+            requestTime = monitor.beforeAcquire(mode, global.getQueueLength());
+        }
+
+        int[] acquired;
+
+        if (stripes == null)
+        {
+            acquired = acquire(write ? global.writeLock() : global.readLock(), timeout) ? NO_STRIPES : null;
+        }
+        else
+        {
+            acquired = lockStriped(write, tables, timeout);
+        }
+
+        if (acquired != null && retired)
+        {
+            // Acquired after the retirement. Don't use this lock.
+            unlock(write, acquired, null);
+            return null;
+        }
+
+        if (acquired != null && monitor != null)
+        {
+            monitor.afterAcquire(mode, requestTime);
+        }
+
+        return acquired;
+    }
+
+
+    /**
+     * Release the lock acquired by {@link #lock(boolean, String[], long, LockMonitor)}
+     * in the same mode.
+     *
+     * @param stripes
+     *         The stripes returned by {@code lock()}. Locks can be
+     *         released in any order as long as each call is given
+     *         the stripes of its own acquisition.
+     */
+    public void unlock(boolean write, int[] stripes, LockMonitor monitor)
+    {
+        if (monitor != null)
+        {
+            monitor.beforeRelease(write ? LockMonitor.WRITE : LockMonitor.READ);
+        }
+
+        if (stripes == NO_STRIPES)
+        {
+            // The global lock only. (In the striped strategy, the
+            // whole database was locked in write mode.)
+            (write ? global.writeLock() : global.readLock()).unlock();
+            return;
+        }
+
+        Holds holds = this.holds.get();
+
+        for (int i = stripes.length - 1; 0 <= i; --i)
+        {
+            release(holds, stripes[i], write);
+        }
+
+        releaseGlobal(holds);
+    }
+
+
+    /**
+     * Try to acquire the global lock in write mode without waiting.
+     * This excludes all the other threads in any strategy.
+     */
+    public boolean tryLockExclusively()
+    {
+        return global.writeLock().tryLock();
+    }
+
+
+    /**
+     * Release the lock acquired by {@link #tryLockExclusively()}.
+     */
+    public void unlockExclusively()
+    {
+        global.writeLock().unlock();
+    }
+
+
+    private int[] lockStriped(boolean write, String[] tables, long timeout)
+    {
+        boolean whole = (tables == null || tables.length == 0);
+        Holds holds = this.holds.get();
+        boolean exclusive = global.isWriteLockedByCurrentThread();
+
+        if (whole && write)
+        {
+            if (exclusive == false && holds.globalReads != 0)
+            {
+                throw new IllegalStateException(
+                    "The whole database cannot be locked in write mode while the current thread holds locks of tables.");
+            }
+
+            // Writing the whole database.
+            return acquire(global.writeLock(), timeout) ? NO_STRIPES : null;
+        }
+
+        // The whole database is read with all the stripes in read mode.
+        int[] indexes = whole ? allStripes : toStripes(tables);
+
+        if (exclusive == false)
+        {
+            // No other thread can hold any lock if the current thread
+            // holds the whole database in write mode.
+            checkNesting(holds, indexes, write);
+        }
+
+        long deadline = System.nanoTime() + timeout;
+
+        if (acquireGlobal(holds, timeout) == false)
+        {
+            return null;
+        }
+
+        // Stripes are always acquired in ascending order so that the
+        // outermost opens of threads never deadlock.
+        for (int i = 0; i < indexes.length; ++i)
+        {
+            long remaining = (timeout < 0) ? NO_TIMEOUT : Math.max(0, deadline - System.nanoTime());
+
+            if (acquire(holds, indexes[i], write, remaining) == false)
+            {
+                // Release the locks acquired so far.
+                for (int j = i - 1; 0 <= j; --j)
+                {
+                    release(holds, indexes[j], write);
+                }
+
+                releaseGlobal(holds);
+                return null;
+            }
+        }
+
+        return indexes;
+    }
+
+
+    /**
+     * Check if the current thread, which may hold some stripes, can
+     * acquire the given stripes without a deadlock. Only the stripes
+     * the thread holds already can be acquired again.
+     */
+    private void checkNesting(Holds holds, int[] indexes, boolean write)
+    {
+        if (holds.globalReads == 0)
+        {
+            // The current thread holds no stripe.
+            return;
+        }
+
+        for (int index : indexes)
+        {
+            if (holds.writes[index] != 0)
+            {
+                // Reentrant.
+                continue;
+            }
+
+            if (holds.reads[index] == 0)
+            {
+                throw new IllegalStateException(
+                    "Tables locked by a nested open have to be declared by the outermost open.");
+            }
+
+            if (write)
+            {
+                throw new IllegalStateException(
+                    "The lock of a table cannot be upgraded from read mode to write mode.");
+            }
+
+            // Reentrant.
+        }
+    }
+
+
+    /**
+     * Acquire the global lock in read mode unless the current thread
+     * holds it already. Reentrant read locks are counted here because
+     * a fair lock may block them while a writer is waiting.
+     */
+    private boolean acquireGlobal(Holds holds, long timeout)
+    {
+        if (holds.globalReads == 0 && acquire(global.readLock(), timeout) == false)
+        {
+            return false;
+        }
+
+        ++holds.globalReads;
+        return true;
+    }
+
+
+    private void releaseGlobal(Holds holds)
+    {
+        if (holds.globalReads <= 1)
+        {
+            global.readLock().unlock();
+        }
+
+        holds.globalReads = Math.max(0, holds.globalReads - 1);
+    }
+
+
+    private boolean acquire(Holds holds, int index, boolean write, long timeout)
+    {
+        if (write)
+        {
+            // Reentrant write locks are never blocked.
+            if (acquire(stripes[index].writeLock(), timeout) == false)
+            {
+                return false;
+            }
+
+            ++holds.writes[index];
+            return true;
+        }
+
+        if (holds.reads[index] == 0 && acquire(stripes[index].readLock(), timeout) == false)
+        {
+            return false;
+        }
+
+        ++holds.reads[index];
+        return true;
+    }
+
+
+    private void release(Holds holds, int index, boolean write)
+    {
+        if (write)
+        {
+            stripes[index].writeLock().unlock();
+            holds.writes[index] = Math.max(0, holds.writes[index] - 1);
+            return;
+        }
+
+        if (holds.reads[index] <= 1)
+        {
+            stripes[index].readLock().unlock();
+        }
+
+        holds.reads[index] = Math.max(0, holds.reads[index] - 1);
+    }
+
+
+    private int[] toStripes(String[] tables)
+    {
+        boolean[] used = new boolean[stripes.length];
+        int count = 0;
+
+        for (String table : tables)
+        {
+            int index = (table.toLowerCase(Locale.US).hashCode() & 0x7fffffff) % stripes.length;
+
+            if (used[index] == false)
+            {
+                used[index] = true;
+                ++count;
+            }
+        }
+
+        int[] indexes = new int[count];
+
+        for (int i = 0, j = 0; i < used.length; ++i)
+        {
+            if (used[i])
+            {
+                indexes[j++] = i;
+            }
+        }
+
+        return indexes;
+    }
+
+
+    private boolean acquire(Lock lock, long timeout)
+    {
+        if (timeout < 0)
+        {
+            if (revocable)
+            {
+                return acquireRevocably(lock);
+            }
+
+            lock.lock();
+            return true;
+        }
+
+        try
+        {
+            return lock.tryLock(timeout, TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            // Restore the interrupted status and give up.
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+
+    private boolean acquireRevocably(Lock lock)
+    {
+        boolean interrupted = false;
+
+        try
+        {
+            while (retired == false)
+            {
+                try
+                {
+                    if (lock.tryLock(RETIREMENT_CHECK_INTERVAL, TimeUnit.NANOSECONDS))
+                    {
+                        return true;
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    // Wait uninterruptibly as lock() does.
+                    interrupted = true;
+                }
+            }
+
+            return false;
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                // Restore the interrupted status.
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+
+    /**
+     * Locks held by a thread in the striped strategy. Read locks are
+     * acquired only once per thread and released with the last hold.
+     */
+    private static class Holds
+    {
+        public final int[] reads;
+        public final int[] writes;
+        public int globalReads;
+
+
+        public Holds(int stripeCount)
+        {
+            reads  = new int[stripeCount];
+            writes = new int[stripeCount];
+        }
+    }
+}
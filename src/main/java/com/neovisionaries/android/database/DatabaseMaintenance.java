@@ -0,0 +1,820 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+
+/**
+ * Maintenance of a database of {@link BaseOpenHelper} driven by
+ * fragmentation metrics.
+ *
+ * <p>
+ * Each run samples {@code page_count}, {@code freelist_count} and the row
+ * counts recorded in {@code sqlite_stat1}, then plans the operations below
+ * by the configurable thresholds. Row counts are sampled within the time
+ * budget, and a table is counted only up to the number of rows which
+ * reaches the thresholds. Tables not sampled by a run are sampled first
+ * by the next run.
+ * </p>
+ *
+ * <ul>
+ * <li>{@code PRAGMA incremental_vacuum(N)}, when {@code auto_vacuum} is
+ *     incremental and the ratio of free pages reaches the threshold
+ *     ({@link #setIncrementalVacuumThreshold(double)}). Free pages are
+ *     released {@code N} pages per slice.
+ * <li>{@code VACUUM}, when {@code auto_vacuum} is not incremental, the
+ *     ratio of free pages reaches the threshold and the database is large
+ *     enough ({@link #setVacuumThreshold(double, long)}).
+ * <li>{@code REINDEX table}, when the row count of an indexed table has
+ *     changed by the ratio ({@link #setReindexThreshold(double)}) since the
+ *     last {@code ANALYZE}, which leaves sparse index pages behind. This is
+ *     skipped when {@code VACUUM} is executed, which rebuilds indexes anyway.
+ * <li>{@code ANALYZE table}, when an indexed table has never been analyzed
+ *     or its row count has changed by the ratio ({@link
+ *     #setAnalyzeThreshold(double)}) since the last {@code ANALYZE}.
+ * </ul>
+ *
+ * <p>
+ * Each operation (or each slice of an incremental vacuum) is a separate
+ * time slice executed under the write lock of the helper, and the write
+ * lock is released between slices. A scheduled run starts only when the
+ * database has not been used for the idle threshold ({@link
+ * #setIdleThreshold(long, TimeUnit)}), and stops before the next slice
+ * when the database is used again by others than the run itself, the
+ * write lock is not free, or the
+ * time budget ({@link #setTimeBudget(long, TimeUnit)}) has run out. The
+ * rest is planned again by the next run. Note that a single {@code VACUUM}
+ * cannot be sliced; it is started only when the whole budget remains.
+ * </p>
+ *
+ * <p>
+ * The size and the number of free pages of the database, and the latency
+ * of an optional probe query ({@link #setProbeQuery(String, String[])}),
+ * are measured before and after each run and reported by {@link
+ * MaintenanceReport}.
+ * </p>
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * DatabaseMaintenance maintenance = <span class="keyword">new</span> DatabaseMaintenance(helper)
+ *     .{@link #setVacuumThreshold(double, long) setVacuumThreshold}(0.3, 4 * 1024 * 1024)
+ *     .{@link #setProbeQuery(String, String[]) setProbeQuery}("SELECT * FROM item WHERE category = ? LIMIT 50", <span class="keyword">new</span> String[] { "1" });
+ *
+ * <span class="comment">// Check every hour.</span>
+ * maintenance.{@link #start(long, TimeUnit) start}(1, TimeUnit.HOURS);
+ * </pre>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class DatabaseMaintenance
+{
+    private static final String TAG = "DatabaseMaintenance";
+
+
+    /**
+     * {@code PRAGMA auto_vacuum} value for the incremental mode.
+     */
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+
+    private final BaseOpenHelper helper;
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> schedule;
+    private volatile long idleThreshold = 30 * 1000;
+    private volatile long timeBudget = 500;
+    private volatile double vacuumRatio = 0.25;
+    private volatile long vacuumMinSize = 1024 * 1024;
+    private volatile double incrementalVacuumRatio = 0.1;
+    private volatile int incrementalVacuumPages = 256;
+    private volatile double analyzeRatio = 0.2;
+    private volatile double reindexRatio = 1.0;
+    private volatile String probeQuery;
+    private volatile String[] probeArgs;
+    private volatile MaintenanceReport lastReport;
+
+
+    /**
+     * The position in the indexed tables from which the next run
+     * samples row counts.
+     */
+    private int nextTable;
+
+
+    /**
+     * The total number of leases of the helper when the current run
+     * started.
+     */
+    private long leaseTotal;
+
+
+    /**
+     * The number of leases taken by the current run.
+     */
+    private long ownLeases;
+
+
+    /**
+     * Metrics sampled from the database.
+     */
+    private static class Sample
+    {
+        public long pageCount;
+        public long pageSize;
+        public long freelistCount;
+        public int autoVacuum;
+        public final List<String> analyzeTables = new ArrayList<String>();
+        public final List<String> reindexTables = new ArrayList<String>();
+
+
+        public double getFreelistRatio()
+        {
+            return (pageCount == 0) ? 0.0 : (double)freelistCount / pageCount;
+        }
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param helper
+     *         The helper of the database to maintain.
+     *
+     * @throws IllegalArgumentException
+     *         {@code helper} is {@code null}.
+     */
+    public DatabaseMaintenance(BaseOpenHelper helper)
+    {
+        if (helper == null)
+        {
+            throw new IllegalArgumentException("helper is null.");
+        }
+
+        this.helper    = helper;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, TAG);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+
+    /**
+     * Set how long the database must have been unused before a scheduled
+     * run starts. The default value is 30 seconds.
+     *
+     * @param threshold
+     *         The idle threshold.
+     *
+     * @param unit
+     *         The time unit of {@code threshold}.
+     *
+     * @return
+     *         {@code this} object.
+     */
+    public DatabaseMaintenance setIdleThreshold(long threshold, TimeUnit unit)
+    {
+        this.idleThreshold = Math.max(0, unit.toMillis(threshold));
+
+        return this;
+    }
+
+
+    /**
+     * Set the time budget of a run. No new slice is started after the
+     * budget has run out. The default value is 500 milliseconds.
+     *
+     * @param budget
+     *         The time budget.
+     *
+     * @param unit
+     *         The time unit of {@code budget}.
+     *
+     * @return
+     *         {@code this} object.
+     */
+    public DatabaseMaintenance setTimeBudget(long budget, TimeUnit unit)
+    {
+        this.timeBudget = Math.max(0, unit.toMillis(budget));
+
+        return this;
+    }
+
+
+    /**
+     * Set the thresholds of {@code VACUUM}. The default values are 0.25
+     * and 1 MiB.
+     *
+     * @param freelistRatio
+     *         The minimum ratio of free pages to all the pages.
+     *
+     * @param minSize
+     *         The minimum size of the database file in bytes.
+     *
+     * @return
+     *         {@code this} object.
+     */
+    public DatabaseMaintenance setVacuumThreshold(double freelistRatio, long minSize)
+    {
+        this.vacuumRatio   = freelistRatio;
+        this.vacuumMinSize = minSize;
+
+        return this;
+    }
+
+
+    /**
+     * Set the threshold of incremental vacuum, which is used when {@code
+     * auto_vacuum} of the database is {@code INCREMENTAL}. The default
+     * value is 0.1.
+     *
+     * @param freelistRatio
+     *         The minimum ratio of free pages to all the pages.
+     *
+     * @return
+     *         {@code this} object.
+     */
+    public DatabaseMaintenance setIncrementalVacuumThreshold(double freelistRatio)
+    {
+        this.incrementalVacuumRatio = freelistRatio;
+
+        return this;
+    }
+
+
+    /**
+     * Set the number of pages released by one slice of incremental vacuum.
+     * The default value is 256.
+     *
+     * @param pages
+     *         The number of pages per slice.
+     *
+     * @return
+     *         {@code this} object.
+     *
+     * @throws IllegalArgumentException
+     *         {@code pages} is less than 1.
+     */
+    public DatabaseMaintenance setIncrementalVacuumPages(int pages)
+    {
+        if (pages < 1)
+        {
+            throw new IllegalArgumentException("pages is less than 1.");
+        }
+
+        this.incrementalVacuumPages = pages;
+
+        return this;
+    }
+
+
+    /**
+     * Set the threshold of {@code ANALYZE}. The default value is 0.2.
+     *
+     * @param changeRatio
+     *         The minimum ratio of the change of the row count of a table
+     *         since the last {@code ANALYZE} to the recorded row count.
+     *
+     * @return
+     *         {@code this} object.
+     */
+    public DatabaseMaintenance setAnalyzeThreshold(double changeRatio)
+    {
+        this.analyzeRatio = changeRatio;
+
+        return this;
+    }
+
+
+    /**
+     * Set the threshold of {@code REINDEX}. The default value is 1.0.
+     *
+     * @param changeRatio
+     *         The minimum ratio of the change of the row count of a table
+     *         since the last {@code ANALYZE} to the recorded row count.
+     *
+     * @return
+     *         {@code this} object.
+     */
+    public DatabaseMaintenance setReindexThreshold(double changeRatio)
+    {
+        this.reindexRatio = changeRatio;
+
+        return this;
+    }
+
+
+    /**
+     * Set a query whose latency is measured before and after each run.
+     *
+     * @param sql
+     *         A query representative of the application, or {@code null}
+     *         to measure nothing.
+     *
+     * @param selectionArgs
+     *         The arguments of the query, or {@code null}.
+     *
+     * @return
+     *         {@code this} object.
+     */
+    public DatabaseMaintenance setProbeQuery(String sql, String[] selectionArgs)
+    {
+        this.probeQuery = sql;
+        this.probeArgs  = selectionArgs;
+
+        return this;
+    }
+
+
+    /**
+     * Get the report of the last run.
+     *
+     * @return
+     *         The report, or {@code null} if no run has executed anything.
+     */
+    public MaintenanceReport getLastReport()
+    {
+        return lastReport;
+    }
+
+
+    /**
+     * Start checking the database periodically on the background thread
+     * of this object. A check runs only when the database is idle.
+     *
+     * @param interval
+     *         The interval of checks.
+     *
+     * @param unit
+     *         The time unit of {@code interval}.
+     *
+     * @throws IllegalArgumentException
+     *         {@code interval} is not positive.
+     */
+    public synchronized void start(long interval, TimeUnit unit)
+    {
+        if (interval <= 0)
+        {
+            throw new IllegalArgumentException("interval is not positive.");
+        }
+
+        stop();
+
+        try
+        {
+            schedule = scheduler.scheduleWithFixedDelay(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        runMaintenance(true);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        // Keep the periodic check alive.
+                        Log.w(TAG, "Maintenance failed.", e);
+                    }
+                }
+            }, interval, interval, unit);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // Closed.
+        }
+    }
+
+
+    /**
+     * Stop the periodic checks. A run in progress is not interrupted.
+     */
+    public synchronized void stop()
+    {
+        if (schedule != null)
+        {
+            schedule.cancel(false);
+            schedule = null;
+        }
+    }
+
+
+    /**
+     * Stop the periodic checks and the background thread.
+     */
+    public void close()
+    {
+        stop();
+        scheduler.shutdown();
+    }
+
+
+    /**
+     * Sample the metrics and execute the planned operations on the calling
+     * thread now, even if the database is not idle. The time budget still
+     * applies.
+     *
+     * @return
+     *         The report of the run, or {@code null} if no operation
+     *         was necessary.
+     */
+    public MaintenanceReport runNow()
+    {
+        return runMaintenance(false);
+    }
+
+
+    private synchronized MaintenanceReport runMaintenance(boolean scheduled)
+    {
+        if (scheduled && isIdle() == false)
+        {
+            return null;
+        }
+
+        long startTime = System.nanoTime();
+        long deadline  = startTime + TimeUnit.MILLISECONDS.toNanos(timeBudget);
+
+        // The leases of this run don't make the database busy.
+        leaseTotal = helper.getLeaseTotal();
+        ownLeases  = 0;
+
+        Sample before = sample(scheduled, true, deadline);
+
+        if (before == null)
+        {
+            // The database is being used.
+            return null;
+        }
+
+        List<String> operations = plan(before);
+
+        if (operations.isEmpty())
+        {
+            return null;
+        }
+
+        long latencyBefore = probe();
+        List<String> executed = new ArrayList<String>();
+        boolean completed = true;
+
+        for (String operation : operations)
+        {
+            // VACUUM cannot be sliced, so it needs the whole budget.
+            boolean unsliced = operation.equals("VACUUM") && executed.isEmpty() == false;
+
+            if (unsliced || deadline <= System.nanoTime() || (scheduled && isUsedByOthers()))
+            {
+                completed = false;
+                break;
+            }
+
+            if (execute(operation, scheduled) == false)
+            {
+                // The write lock is not free.
+                completed = false;
+                break;
+            }
+
+            executed.add(operation);
+        }
+
+        Sample after = sample(false, false, deadline);
+        long latencyAfter = probe();
+
+        MaintenanceReport report = new MaintenanceReport(executed, completed,
+            before.pageCount * before.pageSize, after.pageCount * after.pageSize,
+            before.freelistCount, after.freelistCount,
+            latencyBefore, latencyAfter, System.nanoTime() - startTime);
+
+        lastReport = report;
+
+        return report;
+    }
+
+
+    private boolean isIdle()
+    {
+        long idle = helper.getIdleTime();
+
+        return 0 <= idle && idleThreshold <= idle;
+    }
+
+
+    /**
+     * Check if the database has been used by others than the current
+     * run since the run started. The leases of the run update the idle
+     * time of the helper, so they are subtracted from its lease total.
+     */
+    private boolean isUsedByOthers()
+    {
+        return helper.getIdleTime() < 0
+            || ownLeases < helper.getLeaseTotal() - leaseTotal;
+    }
+
+
+    private List<String> plan(Sample sample)
+    {
+        List<String> operations = new ArrayList<String>();
+        double ratio = sample.getFreelistRatio();
+        boolean vacuum = false;
+
+        if (sample.autoVacuum == AUTO_VACUUM_INCREMENTAL)
+        {
+            if (incrementalVacuumRatio <= ratio)
+            {
+                // One slice per incrementalVacuumPages pages.
+                for (long pages = sample.freelistCount; 0 < pages; pages -= incrementalVacuumPages)
+                {
+                    operations.add("PRAGMA incremental_vacuum(" + incrementalVacuumPages + ")");
+                }
+            }
+        }
+        else if (vacuumRatio <= ratio && vacuumMinSize <= sample.pageCount * sample.pageSize)
+        {
+            operations.add("VACUUM");
+            vacuum = true;
+        }
+
+        if (vacuum == false)
+        {
+            for (String table : sample.reindexTables)
+            {
+                operations.add("REINDEX " + table);
+            }
+        }
+
+        for (String table : sample.analyzeTables)
+        {
+            operations.add("ANALYZE " + table);
+        }
+
+        return operations;
+    }
+
+
+    private Sample sample(boolean scheduled, boolean tables, long deadline)
+    {
+        SQLiteDatabase db = scheduled
+                          ? helper.tryOpenReadable(0, TimeUnit.MILLISECONDS)
+                          : helper.openReadable();
+
+        if (db == null)
+        {
+            return null;
+        }
+
+        ++ownLeases;
+
+        try
+        {
+            Sample sample = new Sample();
+            sample.pageCount     = queryLong(db, "PRAGMA page_count", null);
+            sample.pageSize      = queryLong(db, "PRAGMA page_size", null);
+            sample.freelistCount = queryLong(db, "PRAGMA freelist_count", null);
+            sample.autoVacuum    = (int)queryLong(db, "PRAGMA auto_vacuum", null);
+
+            if (tables)
+            {
+                sampleTables(db, sample, deadline);
+            }
+
+            return sample;
+        }
+        finally
+        {
+            helper.closeReadable(db);
+        }
+    }
+
+
+    private void sampleTables(SQLiteDatabase db, Sample sample, long deadline)
+    {
+        Map<String, Long> analyzed = getAnalyzedRowCounts(db);
+        List<String> tables = getIndexedTables(db);
+        int count = tables.size();
+
+        // Rows beyond this ratio don't change the plan.
+        double maxRatio = Math.max(analyzeRatio, reindexRatio);
+
+        for (int i = 0; i < count; ++i)
+        {
+            if (deadline <= System.nanoTime())
+            {
+                // The next run starts from the first table not sampled.
+                nextTable = (nextTable + i) % count;
+                return;
+            }
+
+            String table = tables.get((nextTable + i) % count);
+            Long recorded = analyzed.get(table);
+
+            if (recorded == null)
+            {
+                // Never analyzed.
+                sample.analyzeTables.add(table);
+                continue;
+            }
+
+            // Count the rows only up to the limit, so that a table which
+            // has grown a lot is not scanned entirely.
+            long limit = (long)Math.min(recorded.longValue() * (1 + maxRatio) + 1, Long.MAX_VALUE);
+            long rows  = queryLong(db, "SELECT count(*) FROM (SELECT 1 FROM " + table + " LIMIT " + limit + ")", null);
+
+            double change = (double)Math.abs(rows - recorded.longValue())
+                          / Math.max(1, recorded.longValue());
+
+            if (reindexRatio <= change)
+            {
+                sample.reindexTables.add(table);
+            }
+
+            if (analyzeRatio <= change)
+            {
+                sample.analyzeTables.add(table);
+            }
+        }
+    }
+
+
+    /**
+     * Get the tables which have indexes.
+     */
+    private static List<String> getIndexedTables(SQLiteDatabase db)
+    {
+        List<String> tables = new ArrayList<String>();
+
+        Cursor cursor = db.rawQuery(
+            "SELECT DISTINCT tbl_name FROM sqlite_master WHERE type = 'index' ORDER BY tbl_name", null);
+
+        try
+        {
+            while (cursor.moveToNext())
+            {
+                tables.add(cursor.getString(0));
+            }
+        }
+        finally
+        {
+            cursor.close();
+        }
+
+        return tables;
+    }
+
+
+    private static Map<String, Long> getAnalyzedRowCounts(SQLiteDatabase db)
+    {
+        Map<String, Long> counts = new HashMap<String, Long>();
+
+        if (queryLong(db, "SELECT count(*) FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_stat1'", null) == 0)
+        {
+            // ANALYZE has never been executed.
+            return counts;
+        }
+
+        Cursor cursor = db.rawQuery("SELECT tbl, stat FROM sqlite_stat1", null);
+
+        try
+        {
+            while (cursor.moveToNext())
+            {
+                // The first number of 'stat' is the row count of the table.
+                String stat = cursor.getString(1);
+                int space = (stat == null) ? -1 : stat.indexOf(' ');
+                String first = (space < 0) ? stat : stat.substring(0, space);
+
+                try
+                {
+                    counts.put(cursor.getString(0), Long.valueOf(first));
+                }
+                catch (NumberFormatException e)
+                {
+                    // Ignore a broken entry.
+                }
+            }
+        }
+        finally
+        {
+            cursor.close();
+        }
+
+        return counts;
+    }
+
+
+    private boolean execute(String operation, boolean scheduled)
+    {
+        SQLiteDatabase db = scheduled
+                          ? helper.tryOpenWritable(0, TimeUnit.MILLISECONDS)
+                          : helper.openWritable();
+
+        if (db == null)
+        {
+            return false;
+        }
+
+        ++ownLeases;
+
+        try
+        {
+            db.execSQL(operation);
+        }
+        finally
+        {
+            helper.closeWritable(db);
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Measure the latency of the probe query in nanoseconds.
+     *
+     * @return
+     *         The latency, or -1 if no probe query is set.
+     */
+    private long probe()
+    {
+        String sql = probeQuery;
+
+        if (sql == null)
+        {
+            return -1;
+        }
+
+        SQLiteDatabase db = helper.openReadable();
+        ++ownLeases;
+
+        try
+        {
+            long startTime = System.nanoTime();
+            Cursor cursor = db.rawQuery(sql, probeArgs);
+
+            try
+            {
+                // Make the cursor actually execute the query.
+                cursor.getCount();
+            }
+            finally
+            {
+                cursor.close();
+            }
+
+            return System.nanoTime() - startTime;
+        }
+        finally
+        {
+            helper.closeReadable(db);
+        }
+    }
+
+
+    private static long queryLong(SQLiteDatabase db, String sql, String[] args)
+    {
+        Cursor cursor = db.rawQuery(sql, args);
+
+        try
+        {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+        finally
+        {
+            cursor.close();
+        }
+    }
+}
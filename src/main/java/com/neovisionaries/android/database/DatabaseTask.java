@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import android.database.sqlite.SQLiteDatabase;
+
+
+/**
+ * A unit of work performed against a database opened by
+ * {@link BaseOpenHelper}.
+ *
+ * @param <T>
+ *         The type of the result.
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public interface DatabaseTask<T>
+{
+    /**
+     * Perform the work.
+     *
+     * @param db
+     *         The database. Implementations must not close it.
+     *
+     * @return
+     *         The result of the work.
+     *
+     * @throws Exception
+     *         The work failed.
+     */
+    T execute(SQLiteDatabase db) throws Exception;
+}
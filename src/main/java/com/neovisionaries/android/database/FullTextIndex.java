@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import android.database.sqlite.SQLiteDatabase;
+
+
+/**
+ * Full-text search index of a content table.
+ *
+ * <p>
+ * {@code LIKE '%term%'} cannot use an index and scans the whole table
+ * every time. This class declares an FTS3 virtual table which shadows
+ * the given columns of a content table (the row IDs of the content table
+ * are used as the document IDs), and triggers which keep it up to date
+ * on every {@code INSERT}, {@code UPDATE} and {@code DELETE} of the
+ * content table, so the index is maintained incrementally and never
+ * rebuilt from scratch.
+ * </p>
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * FullTextIndex index = <span class="keyword">new</span> FullTextIndex("article", "title", "body");
+ *
+ * <span class="comment">// In onCreate() or a migration step.</span>
+ * index.{@link #create(SQLiteDatabase) create}(db);
+ *
+ * <span class="comment">// The second page of 20 articles, the most relevant first.</span>
+ * BaseCursor cursor = index.{@link #search(SQLiteDatabase, String, String[], int, int)
+ * search}(db, FullTextIndex.{@link #toPrefixQuery(String) toPrefixQuery}(input), <span class="keyword">null</span>, 20, 20);
+ * </pre>
+ *
+ * <p>
+ * FTS3, which is the only full-text module available on all the
+ * supported Android versions, has neither {@code bm25()} nor {@code
+ * matchinfo()}. The rank is approximated by the number of matched
+ * terms in each document, which is counted from the result of {@code
+ * offsets()}. Note also that FTS3 stores its own copy of the indexed
+ * columns, since external content tables are not supported.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class FullTextIndex
+{
+    /**
+     * The name of the column which holds the rank in search results.
+     */
+    public static final String RANK_COLUMN = "_rank";
+
+
+    private final String contentTable;
+    private final String indexTable;
+    private final String[] columns;
+
+
+    /**
+     * Constructor with the default name of the index table, which is
+     * the name of the content table followed by {@code "_fts"}.
+     *
+     * @param contentTable
+     *         The content table.
+     *
+     * @param columns
+     *         The columns of the content table to index.
+     *
+     * @throws IllegalArgumentException
+     *         {@code contentTable} is {@code null}, or no column is given.
+     */
+    public FullTextIndex(String contentTable, String... columns)
+    {
+        this(contentTable, (contentTable == null) ? null : contentTable + "_fts", columns);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param contentTable
+     *         The content table.
+     *
+     * @param indexTable
+     *         The name of the FTS virtual table.
+     *
+     * @param columns
+     *         The columns of the content table to index.
+     *
+     * @throws IllegalArgumentException
+     *         {@code contentTable} or {@code indexTable} is {@code null},
+     *         or no column is given.
+     */
+    public FullTextIndex(String contentTable, String indexTable, String... columns)
+    {
+        if (contentTable == null)
+        {
+            throw new IllegalArgumentException("contentTable is null.");
+        }
+
+        if (indexTable == null)
+        {
+            throw new IllegalArgumentException("indexTable is null.");
+        }
+
+        if (columns == null || columns.length == 0)
+        {
+            throw new IllegalArgumentException("No column is given.");
+        }
+
+        this.contentTable = contentTable;
+        this.indexTable   = indexTable;
+        this.columns      = columns.clone();
+    }
+
+
+    /**
+     * Get the content table.
+     */
+    public String getContentTable()
+    {
+        return contentTable;
+    }
+
+
+    /**
+     * Get the name of the FTS virtual table.
+     */
+    public String getIndexTable()
+    {
+        return indexTable;
+    }
+
+
+    /**
+     * Get the indexed columns.
+     */
+    public String[] getColumns()
+    {
+        return columns.clone();
+    }
+
+
+    /**
+     * Create the index table and the triggers if they do not exist, and
+     * index the rows of the content table which have not been indexed
+     * yet. The content table must exist. Call this method in a transaction.
+     *
+     * @param db
+     *         A writable database.
+     */
+    public void create(SQLiteDatabase db)
+    {
+        String list = join("", columns);
+
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + indexTable + " USING fts3(" + list + ")");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + indexTable + "_ai AFTER INSERT ON " + contentTable
+            + " BEGIN " + insertStatement() + " END");
+
+        // Re-insert the document only when the row ID or an indexed column changed.
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + indexTable + "_au AFTER UPDATE ON " + contentTable
+            + " WHEN " + changedCondition()
+            + " BEGIN " + deleteStatement() + " " + insertStatement() + " END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + indexTable + "_ad AFTER DELETE ON " + contentTable
+            + " BEGIN " + deleteStatement() + " END");
+
+        catchUp(db);
+    }
+
+
+    /**
+     * Index the rows of the content table which have not been indexed
+     * yet, for example, the rows which existed before {@link
+     * #create(SQLiteDatabase)} was called first. Rows which have already
+     * been indexed are not touched.
+     *
+     * @param db
+     *         A writable database.
+     */
+    public void catchUp(SQLiteDatabase db)
+    {
+        db.execSQL("INSERT INTO " + indexTable + " (docid, " + join("", columns) + ")"
+            + " SELECT rowid, " + join("", columns) + " FROM " + contentTable
+            + " WHERE rowid NOT IN (SELECT docid FROM " + indexTable + ")");
+    }
+
+
+    /**
+     * Drop the triggers and the index table.
+     *
+     * @param db
+     *         A writable database.
+     */
+    public void drop(SQLiteDatabase db)
+    {
+        db.execSQL("DROP TRIGGER IF EXISTS " + indexTable + "_ai");
+        db.execSQL("DROP TRIGGER IF EXISTS " + indexTable + "_au");
+        db.execSQL("DROP TRIGGER IF EXISTS " + indexTable + "_ad");
+        db.execSQL("DROP TABLE IF EXISTS " + indexTable);
+    }
+
+
+    /**
+     * Search the content table.
+     *
+     * <p>
+     * The result consists of the requested columns of the matched rows
+     * of the content table and {@link #RANK_COLUMN}, which is the number
+     * of matched terms in the row. Rows are sorted by the rank in
+     * descending order and then by the row ID.
+     * </p>
+     *
+     * @param db
+     *         A database.
+     *
+     * @param match
+     *         An FTS3 full-text query. Use {@link #toPrefixQuery(String)}
+     *         to build one from user input.
+     *
+     * @param projection
+     *         Columns of the content table to return. If {@code null}
+     *         is given, all the columns are returned.
+     *
+     * @param offset
+     *         The number of matched rows to skip.
+     *
+     * @param limit
+     *         The maximum number of rows to return.
+     *
+     * @return
+     *         A cursor of the matched rows.
+     *
+     * @throws IllegalArgumentException
+     *         {@code match} is {@code null}, {@code offset} is negative
+     *         or {@code limit} is less than 1.
+     */
+    public BaseCursor search(SQLiteDatabase db, String match, String[] projection, int offset, int limit)
+    {
+        if (match == null)
+        {
+            throw new IllegalArgumentException("match is null.");
+        }
+
+        if (offset < 0)
+        {
+            throw new IllegalArgumentException("offset is negative.");
+        }
+
+        if (limit < 1)
+        {
+            throw new IllegalArgumentException("limit is less than 1.");
+        }
+
+        String select = (projection == null) ? "c.*" : join("c.", projection);
+
+        // offsets() returns 4 integers per matched term, separated by spaces.
+        String sql = "SELECT " + select + ", r.hits AS " + RANK_COLUMN
+            + " FROM (SELECT docid, (length(o) - length(replace(o, ' ', '')) + 1) / 4 AS hits"
+            + " FROM (SELECT docid, offsets(" + indexTable + ") AS o FROM " + indexTable
+            + " WHERE " + indexTable + " MATCH ?)) r"
+            + " JOIN " + contentTable + " c ON c.rowid = r.docid"
+            + " ORDER BY r.hits DESC, r.docid"
+            + " LIMIT " + limit + " OFFSET " + offset;
+
+        return new BaseCursor(db.rawQuery(sql, new String[] { match }));
+    }
+
+
+    /**
+     * Build an FTS3 query which matches documents containing all the
+     * words of the given text as prefixes. Characters other than letters
+     * and digits are treated as separators, so the syntax of FTS3 queries
+     * in the text has no effect. Only {@code A-Z} are lowercased, as the
+     * {@code simple} tokenizer of FTS3 does when it indexes documents.
+     *
+     * @param text
+     *         Text entered by a user.
+     *
+     * @return
+     *         A full-text query, for example, {@code "net* sea*"} for
+     *         {@code "Net sea"}, or {@code null} if the text contains no word.
+     */
+    public static String toPrefixQuery(String text)
+    {
+        if (text == null)
+        {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        int length = text.length();
+        boolean inWord = false;
+
+        for (int i = 0; i < length; ++i)
+        {
+            char c = text.charAt(i);
+
+            if (Character.isLetterOrDigit(c))
+            {
+                if (inWord == false && builder.length() != 0)
+                {
+                    builder.append(' ');
+                }
+
+                // The simple tokenizer folds only ASCII letters.
+                builder.append(('A' <= c && c <= 'Z') ? (char)(c + ('a' - 'A')) : c);
+                inWord = true;
+            }
+            else if (inWord)
+            {
+                builder.append('*');
+                inWord = false;
+            }
+        }
+
+        if (inWord)
+        {
+            builder.append('*');
+        }
+
+        if (builder.length() == 0)
+        {
+            return null;
+        }
+
+        return builder.toString();
+    }
+
+
+    private String insertStatement()
+    {
+        return "INSERT INTO " + indexTable + " (docid, " + join("", columns) + ")"
+            + " VALUES (new.rowid, " + join("new.", columns) + ");";
+    }
+
+
+    private String changedCondition()
+    {
+        StringBuilder builder = new StringBuilder("old.rowid <> new.rowid");
+
+        for (String column : columns)
+        {
+            builder.append(" OR old.").append(column).append(" IS NOT new.").append(column);
+        }
+
+        return builder.toString();
+    }
+
+
+    private String deleteStatement()
+    {
+        return "DELETE FROM " + indexTable + " WHERE docid = old.rowid;";
+    }
+
+
+    private static String join(String prefix, String[] names)
+    {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < names.length; ++i)
+        {
+            if (i != 0)
+            {
+                builder.append(", ");
+            }
+
+            builder.append(prefix).append(names[i]);
+        }
+
+        return builder.toString();
+    }
+}
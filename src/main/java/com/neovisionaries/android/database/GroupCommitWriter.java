@@ -0,0 +1,569 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import android.database.sqlite.SQLiteDatabase;
+
+
+/**
+ * Writer which executes write tasks submitted from multiple threads
+ * in batches, each batch in one transaction (group commit).
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="comment">// A subclass of BaseOpenHelper.</span>
+ * MyOpenHelper helper = ...;
+ *
+ * <span class="comment">// Up to 100 tasks per transaction, waiting at most 5 milliseconds
+ * // for a batch to fill up, and at most 1000 queued tasks.</span>
+ * GroupCommitWriter writer = <span class="keyword">new</span> GroupCommitWriter(
+ *     helper, 100, 5, TimeUnit.MILLISECONDS, 1000);
+ *
+ * Future&lt;Long&gt; future = writer.{@link #submit(DatabaseTask) submit}(task);
+ * </pre>
+ *
+ * <p>
+ * Committing a transaction is expensive because SQLite syncs the
+ * database file to the storage. When many threads write small amounts
+ * of data, executing their tasks in one transaction by one writer
+ * thread reduces both the number of commits and the contention on the
+ * write lock of {@link BaseOpenHelper}.
+ * </p>
+ *
+ * <p>
+ * Each task is executed within its own savepoint. If a task throws an
+ * exception, only the changes made by the task are rolled back, and
+ * only the {@code Future} of the task fails. The {@code Future}s of the
+ * other tasks in the batch complete after the transaction is committed.
+ * If the transaction itself fails, even with an {@code Error}, all the
+ * {@code Future}s of the batch fail. If the writer thread terminates
+ * unexpectedly, the {@code Future}s of the queued tasks fail with {@code
+ * RejectedExecutionException}.
+ * </p>
+ *
+ * <p>
+ * The task queue is bounded. {@link #submit(DatabaseTask)} blocks when
+ * the queue is full, which gives backpressure to producers.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class GroupCommitWriter
+{
+    /**
+     * The default maximum number of tasks executed in one transaction.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+
+    /**
+     * The default linger time in milliseconds.
+     */
+    public static final long DEFAULT_LINGER_TIME = 5;
+
+
+    /**
+     * The default capacity of the task queue.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+
+    private static final String SAVEPOINT = "group_commit_task";
+
+
+    private final BaseOpenHelper helper;
+    private final int batchSize;
+    private final long lingerTime;
+    private final BlockingQueue<Entry<?>> queue;
+    private final Thread writer;
+    private volatile boolean shutdown;
+
+
+    /**
+     * Constructor with the default settings. This constructor does the following.
+     *
+     * <pre style="border: 1px solid black; margin: 0.5em; padding: 0.5em;">
+     * {@link #GroupCommitWriter(BaseOpenHelper, int, long, TimeUnit, int)
+     * this}(helper, {@link #DEFAULT_BATCH_SIZE}, {@link #DEFAULT_LINGER_TIME},
+     * TimeUnit.MILLISECONDS, {@link #DEFAULT_QUEUE_CAPACITY});</pre>
+     */
+    public GroupCommitWriter(BaseOpenHelper helper)
+    {
+        this(helper, DEFAULT_BATCH_SIZE, DEFAULT_LINGER_TIME,
+             TimeUnit.MILLISECONDS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+
+    /**
+     * Constructor. The writer thread is started by this constructor.
+     *
+     * @param helper
+     *         The database open helper.
+     *
+     * @param batchSize
+     *         The maximum number of tasks executed in one transaction.
+     *
+     * @param lingerTime
+     *         The maximum time to wait for more tasks after the first
+     *         task of a batch has been taken from the queue.
+     *
+     * @param unit
+     *         The time unit of {@code lingerTime}.
+     *
+     * @param queueCapacity
+     *         The maximum number of tasks waiting in the queue.
+     *
+     * @throws IllegalArgumentException
+     *         {@code helper} or {@code unit} is {@code null},
+     *         {@code batchSize} or {@code queueCapacity} is less than 1,
+     *         or {@code lingerTime} is negative.
+     */
+    public GroupCommitWriter(
+            BaseOpenHelper helper, int batchSize,
+            long lingerTime, TimeUnit unit, int queueCapacity)
+    {
+        if (helper == null)
+        {
+            throw new IllegalArgumentException("helper is null.");
+        }
+
+        if (batchSize < 1)
+        {
+            throw new IllegalArgumentException("batchSize is less than 1.");
+        }
+
+        if (lingerTime < 0)
+        {
+            throw new IllegalArgumentException("lingerTime is negative.");
+        }
+
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("unit is null.");
+        }
+
+        if (queueCapacity < 1)
+        {
+            throw new IllegalArgumentException("queueCapacity is less than 1.");
+        }
+
+        this.helper     = helper;
+        this.batchSize  = batchSize;
+        this.lingerTime = unit.toNanos(lingerTime);
+        this.queue      = new ArrayBlockingQueue<Entry<?>>(queueCapacity);
+        this.writer     = new WriterThread();
+
+        writer.start();
+    }
+
+
+    /**
+     * Submit a write task. This method blocks while the task queue is full.
+     *
+     * @param task
+     *         A write task.
+     *
+     * @return
+     *         A {@code Future} which completes with the result of the
+     *         task after the transaction containing the task is committed.
+     *         Cancelling it before the task is executed skips the task.
+     *
+     * @throws IllegalArgumentException
+     *         {@code task} is {@code null}.
+     *
+     * @throws RejectedExecutionException
+     *         {@link #shutdown()} has been called.
+     *
+     * @throws InterruptedException
+     *         Interrupted while waiting for space in the queue.
+     */
+    public <T> Future<T> submit(DatabaseTask<T> task) throws InterruptedException
+    {
+        Entry<T> entry = newEntry(task);
+
+        queue.put(entry);
+
+        return accepted(entry);
+    }
+
+
+    /**
+     * Submit a write task, waiting at most the given time for space
+     * in the task queue.
+     *
+     * @param task
+     *         A write task.
+     *
+     * @param timeout
+     *         The maximum time to wait for space in the queue.
+     *
+     * @param unit
+     *         The time unit of {@code timeout}.
+     *
+     * @return
+     *         A {@code Future} which completes with the result of the
+     *         task, or {@code null} if the queue stayed full.
+     *
+     * @throws IllegalArgumentException
+     *         {@code task} is {@code null}.
+     *
+     * @throws RejectedExecutionException
+     *         {@link #shutdown()} has been called.
+     *
+     * @throws InterruptedException
+     *         Interrupted while waiting for space in the queue.
+     */
+    public <T> Future<T> submit(DatabaseTask<T> task, long timeout, TimeUnit unit) throws InterruptedException
+    {
+        Entry<T> entry = newEntry(task);
+
+        if (queue.offer(entry, timeout, unit) == false)
+        {
+            // The queue is full.
+            return null;
+        }
+
+        return accepted(entry);
+    }
+
+
+    /**
+     * Stop accepting new tasks. Tasks which have already been queued
+     * are executed before the writer thread terminates.
+     */
+    public void shutdown()
+    {
+        shutdown = true;
+
+        // Wake up the writer thread if it is waiting for tasks.
+        writer.interrupt();
+    }
+
+
+    /**
+     * Wait for the writer thread to terminate after {@link #shutdown()}.
+     *
+     * @param timeout
+     *         The maximum time to wait.
+     *
+     * @param unit
+     *         The time unit of {@code timeout}.
+     *
+     * @return
+     *         True if the writer thread terminated.
+     *
+     * @throws InterruptedException
+     *         Interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        unit.timedJoin(writer, timeout);
+
+        return writer.isAlive() == false;
+    }
+
+
+    /**
+     * Get the number of tasks waiting in the queue.
+     */
+    public int getQueueSize()
+    {
+        return queue.size();
+    }
+
+
+    private <T> Entry<T> newEntry(DatabaseTask<T> task)
+    {
+        if (task == null)
+        {
+            throw new IllegalArgumentException("task is null.");
+        }
+
+        if (shutdown)
+        {
+            throw new RejectedExecutionException("The writer has been shut down.");
+        }
+
+        return new Entry<T>(task);
+    }
+
+
+    private <T> Future<T> accepted(Entry<T> entry)
+    {
+        // If the writer thread terminated after newEntry() checked the
+        // shutdown flag, nobody will execute the entry.
+        if (shutdown && writer.isAlive() == false && queue.remove(entry))
+        {
+            throw new RejectedExecutionException("The writer has been shut down.");
+        }
+
+        return entry.future;
+    }
+
+
+    /**
+     * Wait for the next batch. An empty list is returned only when
+     * the writer has been shut down and the queue is empty.
+     */
+    private List<Entry<?>> takeBatch()
+    {
+        List<Entry<?>> batch = new ArrayList<Entry<?>>(batchSize);
+
+        try
+        {
+            // Wait for the first task of the batch.
+            batch.add(queue.take());
+
+            long deadline = System.nanoTime() + lingerTime;
+
+            // Collect more tasks until the batch becomes full
+            // or the linger time elapses.
+            while (batch.size() < batchSize)
+            {
+                long remaining = deadline - System.nanoTime();
+                Entry<?> entry = (0 < remaining)
+                    ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+
+                if (entry == null)
+                {
+                    break;
+                }
+
+                batch.add(entry);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // Interrupted by shutdown(). Take whatever is queued.
+            queue.drainTo(batch, batchSize - batch.size());
+        }
+
+        return batch;
+    }
+
+
+    private void executeBatch(List<Entry<?>> batch)
+    {
+        SQLiteDatabase db = null;
+        boolean committed = false;
+
+        try
+        {
+            db = helper.openWritable();
+            helper.beginTransaction(db);
+
+            try
+            {
+                for (Entry<?> entry : batch)
+                {
+                    entry.execute(db);
+                }
+
+                db.setTransactionSuccessful();
+            }
+            finally
+            {
+                db.endTransaction();
+            }
+
+            committed = true;
+        }
+        catch (Throwable t)
+        {
+            // Opening the database or committing the transaction failed
+            // (or an Error was thrown). Don't let the writer thread die.
+            for (Entry<?> entry : batch)
+            {
+                entry.fail(t);
+            }
+        }
+        finally
+        {
+            helper.closeWritable(db);
+        }
+
+        if (committed)
+        {
+            for (Entry<?> entry : batch)
+            {
+                entry.complete();
+            }
+        }
+    }
+
+
+    private static class Entry<T>
+    {
+        private final DatabaseTask<T> task;
+        private final ResultFuture<T> future = new ResultFuture<T>();
+        private T result;
+        private Throwable failure;
+
+
+        public Entry(DatabaseTask<T> task)
+        {
+            this.task = task;
+        }
+
+
+        public void execute(SQLiteDatabase db)
+        {
+            if (future.isCancelled())
+            {
+                // Skip the cancelled task.
+                return;
+            }
+
+            db.execSQL("SAVEPOINT " + SAVEPOINT);
+
+            try
+            {
+                result = task.execute(db);
+            }
+            catch (Throwable t)
+            {
+                // Roll back only the changes made by this task.
+                db.execSQL("ROLLBACK TO " + SAVEPOINT);
+                failure = t;
+            }
+
+            db.execSQL("RELEASE " + SAVEPOINT);
+        }
+
+
+        public void complete()
+        {
+            if (failure != null)
+            {
+                future.setException(failure);
+            }
+            else
+            {
+                future.set(result);
+            }
+        }
+
+
+        public void fail(Throwable cause)
+        {
+            future.setException(cause);
+        }
+    }
+
+
+    private class WriterThread extends Thread
+    {
+        public WriterThread()
+        {
+            super("GroupCommitWriter");
+            setDaemon(true);
+        }
+
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                loop();
+            }
+            finally
+            {
+                // Don't leave queued tasks which nobody will execute,
+                // even if this thread is dying of an unexpected error.
+                shutdown = true;
+                failQueuedTasks();
+            }
+        }
+
+
+        private void loop()
+        {
+            while (true)
+            {
+                if (shutdown && queue.isEmpty())
+                {
+                    // No more tasks.
+                    return;
+                }
+
+                List<Entry<?>> batch = takeBatch();
+
+                if (batch.size() == 0)
+                {
+                    continue;
+                }
+
+                try
+                {
+                    executeBatch(batch);
+                }
+                catch (Throwable t)
+                {
+                    // For example, closing the database failed. Complete
+                    // the futures which have not been completed yet.
+                    for (Entry<?> entry : batch)
+                    {
+                        entry.fail(t);
+                    }
+
+                    throw rethrow(t);
+                }
+            }
+        }
+
+
+        private void failQueuedTasks()
+        {
+            List<Entry<?>> rest = new ArrayList<Entry<?>>();
+            queue.drainTo(rest);
+
+            for (Entry<?> entry : rest)
+            {
+                entry.fail(new RejectedExecutionException("The writer thread has terminated."));
+            }
+        }
+
+
+        private RuntimeException rethrow(Throwable t)
+        {
+            if (t instanceof Error)
+            {
+                throw (Error)t;
+            }
+
+            if (t instanceof RuntimeException)
+            {
+                return (RuntimeException)t;
+            }
+
+            return new RuntimeException(t);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+/**
+ * Locks held by a thread through {@code openReadable()} and {@code
+ * openWritable()} of {@link BaseOpenHelper}, in the order of acquisition.
+ *
+ * <p>
+ * Entries are kept in parallel arrays which are reused, so that opening
+ * and closing the database allocates nothing once the arrays are large
+ * enough. A {@link Lease} is attached only when a {@link LeaseTracker}
+ * is set.
+ * </p>
+ *
+ * <p>
+ * The outcomes of the transactions begun by {@link
+ * BaseOpenHelper#beginTransaction(android.database.sqlite.SQLiteDatabase)}
+ * are recorded in the write entries opened during the transactions, so
+ * that writes which have been rolled back are not notified.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+final class HeldLocks
+{
+    private static final int INITIAL_CAPACITY = 4;
+
+
+    /**
+     * The entry began a transaction which has not ended yet.
+     */
+    public static final int PENDING = 1;
+
+
+    /**
+     * A transaction of the entry has been committed.
+     */
+    public static final int COMMITTED = 2;
+
+
+    /**
+     * A transaction of the entry has been rolled back.
+     */
+    public static final int ROLLED_BACK = 4;
+
+
+    public DatabaseLock[] locks = new DatabaseLock[INITIAL_CAPACITY];
+    public LockMonitor[] monitors = new LockMonitor[INITIAL_CAPACITY];
+    public int[][] stripes = new int[INITIAL_CAPACITY][];
+    public String[][] tables = new String[INITIAL_CAPACITY][];
+    public boolean[] writables = new boolean[INITIAL_CAPACITY];
+    public Lease[] leases = new Lease[INITIAL_CAPACITY];
+    public int[] outcomes = new int[INITIAL_CAPACITY];
+    private int size;
+
+
+    /**
+     * Add an entry.
+     *
+     * @param tables
+     *         The tables. An empty array is stored as {@code null}.
+     *
+     * @param lease
+     *         The tracked lease, or {@code null}.
+     */
+    public void push(DatabaseLock lock, LockMonitor monitor, int[] stripes,
+            String[] tables, boolean writable, Lease lease)
+    {
+        if (size == locks.length)
+        {
+            grow();
+        }
+
+        this.locks[size]     = lock;
+        this.monitors[size]  = monitor;
+        this.stripes[size]   = stripes;
+        this.tables[size]    = (tables == null || tables.length == 0) ? null : tables;
+        this.writables[size] = writable;
+        this.leases[size]    = lease;
+        this.outcomes[size]  = 0;
+
+        ++size;
+    }
+
+
+    /**
+     * Find the last entry of the given mode.
+     *
+     * @return
+     *         The index of the entry, or -1 if not found.
+     */
+    public int findLast(boolean writable)
+    {
+        for (int i = size - 1; 0 <= i; --i)
+        {
+            if (writables[i] == writable)
+            {
+                return i;
+            }
+        }
+
+        // Unknown.
+        return -1;
+    }
+
+
+    /**
+     * Find the last entry which began a transaction not ended yet.
+     *
+     * @return
+     *         The index of the entry, or -1 if not found.
+     */
+    public int findPending()
+    {
+        for (int i = size - 1; 0 <= i; --i)
+        {
+            if ((outcomes[i] & PENDING) != 0)
+            {
+                return i;
+            }
+        }
+
+        // Not in a tracked transaction.
+        return -1;
+    }
+
+
+    /**
+     * Record the outcome of the pending transaction in the write entries
+     * opened since its beginning.
+     *
+     * @param outcome
+     *         {@link #COMMITTED} or {@link #ROLLED_BACK}.
+     */
+    public void resolve(int outcome)
+    {
+        int index = findPending();
+
+        if (index < 0)
+        {
+            return;
+        }
+
+        outcomes[index] &= ~PENDING;
+
+        for (int i = index; i < size; ++i)
+        {
+            if (writables[i])
+            {
+                outcomes[i] |= outcome;
+            }
+        }
+    }
+
+
+    /**
+     * Add tables to the entry at the given index.
+     *
+     * @param tables
+     *         The tables, or {@code null} for the whole database.
+     */
+    public void addTables(int index, String[] tables)
+    {
+        String[] current = this.tables[index];
+
+        if (current == null)
+        {
+            // The whole database already.
+            return;
+        }
+
+        if (tables == null)
+        {
+            this.tables[index] = null;
+            return;
+        }
+
+        String[] merged = new String[current.length + tables.length];
+        System.arraycopy(current, 0, merged, 0, current.length);
+        System.arraycopy(tables, 0, merged, current.length, tables.length);
+
+        this.tables[index] = merged;
+    }
+
+
+    /**
+     * Remove the entry at the given index.
+     */
+    public void remove(int index)
+    {
+        int moved = size - index - 1;
+
+        if (0 < moved)
+        {
+            System.arraycopy(locks,     index + 1, locks,     index, moved);
+            System.arraycopy(monitors,  index + 1, monitors,  index, moved);
+            System.arraycopy(stripes,   index + 1, stripes,   index, moved);
+            System.arraycopy(tables,    index + 1, tables,    index, moved);
+            System.arraycopy(writables, index + 1, writables, index, moved);
+            System.arraycopy(leases,    index + 1, leases,    index, moved);
+            System.arraycopy(outcomes,  index + 1, outcomes,  index, moved);
+        }
+
+        --size;
+
+        // Don't keep references.
+        locks[size]    = null;
+        monitors[size] = null;
+        stripes[size]  = null;
+        tables[size]   = null;
+        leases[size]   = null;
+    }
+
+
+    private void grow()
+    {
+        int capacity = locks.length * 2;
+
+        DatabaseLock[] newLocks    = new DatabaseLock[capacity];
+        LockMonitor[] newMonitors  = new LockMonitor[capacity];
+        int[][] newStripes         = new int[capacity][];
+        String[][] newTables       = new String[capacity][];
+        boolean[] newWritables     = new boolean[capacity];
+        Lease[] newLeases          = new Lease[capacity];
+        int[] newOutcomes          = new int[capacity];
+
+        System.arraycopy(locks,     0, newLocks,     0, size);
+        System.arraycopy(monitors,  0, newMonitors,  0, size);
+        System.arraycopy(stripes,   0, newStripes,   0, size);
+        System.arraycopy(tables,    0, newTables,    0, size);
+        System.arraycopy(writables, 0, newWritables, 0, size);
+        System.arraycopy(leases,    0, newLeases,    0, size);
+        System.arraycopy(outcomes,  0, newOutcomes,  0, size);
+
+        locks     = newLocks;
+        monitors  = newMonitors;
+        stripes   = newStripes;
+        tables    = newTables;
+        writables = newWritables;
+        leases    = newLeases;
+        outcomes  = newOutcomes;
+    }
+}
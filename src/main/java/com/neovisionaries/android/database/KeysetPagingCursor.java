@@ -0,0 +1,767 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import android.database.AbstractCursor;
+import android.database.Cursor;
+import android.database.CursorIndexOutOfBoundsException;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+
+
+/**
+ * Cursor which reads a large result set page by page using keyset
+ * pagination.
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="comment">// Scan "log" in pages of 1000 rows ordered by "_id".</span>
+ * KeysetPagingCursor cursor = <span class="keyword">new</span> KeysetPagingCursor(
+ *     helper, "log", <span class="keyword">null</span>, "_id", "level = ?", <span class="keyword">new</span> String[] { "E" }, 1000);
+ *
+ * <span class="keyword">try</span>
+ * {
+ *     <span class="keyword">while</span> (cursor.moveToNext())
+ *     {
+ *         String message = cursor.getStringByName("message");
+ *         ......
+ *     }
+ * }
+ * <span class="keyword">finally</span>
+ * {
+ *     cursor.close();
+ * }</pre>
+ *
+ * <p>
+ * Each page is fetched by a query in the form of
+ * {@code SELECT columns FROM table WHERE (selection) AND key > lastKey
+ * ORDER BY key LIMIT pageSize} where {@code lastKey} is the last key of
+ * the previous page (the first page has no condition on the key). The page is copied into a {@link CursorSnapshot}
+ * and the underlying cursor is closed immediately. The read lock of the helper is held only while
+ * a page is being fetched. While the rows of a page are being read,
+ * the next page is fetched on a background thread. If the next page has
+ * not been fetched yet when the reader reaches it, the background fetch
+ * is abandoned and the page is fetched on the reader's thread, so the
+ * reader never waits for the background thread (which may be waiting
+ * for a transaction of the reader). At most two pages are kept in
+ * memory.
+ * </p>
+ *
+ * <p>
+ * The key column must be an integer column with unique values (e.g.
+ * {@code _id} or {@code rowid}), and must be included in the result.
+ * Moves do not count the rows. The end of the rows is detected by
+ * the first page shorter than the page size. The number of rows is
+ * counted by {@code COUNT(*)} only when {@code getCount()}, {@code
+ * isLast()} or {@code moveToLast()} is called before the end is
+ * reached, so the rows should not be inserted or deleted while the
+ * cursor is used.
+ * Moving backwards is supported but refetches pages.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class KeysetPagingCursor extends BaseCursor
+{
+    /**
+     * Threads which prefetch pages.
+     */
+    private static ExecutorService prefetcher;
+
+
+    private final PageCursor pages;
+
+
+    /**
+     * Constructor.
+     *
+     * @param helper
+     *         The database open helper.
+     *
+     * @param table
+     *         The table to scan.
+     *
+     * @param columns
+     *         The columns to return. {@code null} means all the columns.
+     *         The key column must be included.
+     *
+     * @param keyColumn
+     *         The integer key column used for ordering and pagination.
+     *
+     * @param selection
+     *         The {@code WHERE} clause without {@code WHERE}. May be
+     *         {@code null}.
+     *
+     * @param selectionArgs
+     *         Bind arguments for {@code selection}. May be {@code null}.
+     *
+     * @param pageSize
+     *         The number of rows per page.
+     *
+     * @throws IllegalArgumentException
+     *         A required argument is {@code null}, {@code pageSize} is
+     *         less than 1, or the key column is not included in the result.
+     */
+    public KeysetPagingCursor(
+            BaseOpenHelper helper, String table, String[] columns, String keyColumn,
+            String selection, String[] selectionArgs, int pageSize)
+    {
+        super(new PageCursor(helper, table, columns, keyColumn, selection, selectionArgs, pageSize));
+
+        this.pages = (PageCursor)getWrapped();
+    }
+
+
+    // The moves of AbstractCursor are final and call getCount(),
+    // so the moves are implemented here without counting the rows.
+
+
+    @Override
+    public boolean moveToPosition(int position)
+    {
+        return pages.moveTo(position);
+    }
+
+
+    @Override
+    public boolean move(int offset)
+    {
+        return moveToPosition(getPosition() + offset);
+    }
+
+
+    @Override
+    public boolean moveToFirst()
+    {
+        return moveToPosition(0);
+    }
+
+
+    @Override
+    public boolean moveToNext()
+    {
+        return moveToPosition(getPosition() + 1);
+    }
+
+
+    @Override
+    public boolean moveToPrevious()
+    {
+        return moveToPosition(getPosition() - 1);
+    }
+
+
+    @Override
+    public boolean isFirst()
+    {
+        return getPosition() == 0 && pages.isAfterLastPosition() == false;
+    }
+
+
+    @Override
+    public boolean isBeforeFirst()
+    {
+        return getPosition() == -1 || pages.isEmpty();
+    }
+
+
+    @Override
+    public boolean isAfterLast()
+    {
+        return pages.isAfterLastPosition();
+    }
+
+
+    private static synchronized ExecutorService getPrefetcher()
+    {
+        if (prefetcher == null)
+        {
+            prefetcher = Executors.newFixedThreadPool(2, new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "KeysetPagingCursor-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return prefetcher;
+    }
+
+
+    /**
+     * Cursor over the pages.
+     */
+    private static final class PageCursor extends AbstractCursor
+    {
+        private final BaseOpenHelper helper;
+        private final String table;
+        private final String firstPageSql;
+        private final String pageSqlHead;
+        private final String pageSqlTail;
+        private final String countSql;
+        private final String[] selectionArgs;
+        private final int pageSize;
+        private final String keyColumn;
+
+        /**
+         * The number of rows, or -1 if not counted yet.
+         */
+        private int count = -1;
+        private String[] columnNames;
+        private int keyIndex;
+
+        /**
+         * lastKeys[i] is the last key of page i.
+         */
+        private long[] lastKeys = new long[16];
+        private int knownPages;
+
+        private int currentPageNumber = -1;
+        private CursorSnapshot currentPage;
+
+        private int nextPageNumber = -1;
+        private Future<CursorSnapshot> nextPage;
+
+
+        public PageCursor(
+                BaseOpenHelper helper, String table, String[] columns, String keyColumn,
+                String selection, String[] selectionArgs, int pageSize)
+        {
+            if (helper == null)
+            {
+                throw new IllegalArgumentException("helper is null.");
+            }
+
+            if (table == null)
+            {
+                throw new IllegalArgumentException("table is null.");
+            }
+
+            if (keyColumn == null)
+            {
+                throw new IllegalArgumentException("keyColumn is null.");
+            }
+
+            if (pageSize < 1)
+            {
+                throw new IllegalArgumentException("pageSize is less than 1.");
+            }
+
+            String where = (selection == null) ? "" : "(" + selection + ") AND ";
+
+            this.helper        = helper;
+            this.table         = table;
+            this.keyColumn     = keyColumn;
+            this.selectionArgs = (selectionArgs == null) ? new String[0] : selectionArgs.clone();
+            this.pageSize      = pageSize;
+            this.countSql      = "SELECT COUNT(*) FROM " + table
+                               + ((selection == null) ? "" : " WHERE " + selection);
+            this.firstPageSql  = "SELECT " + toColumnList(columns) + " FROM " + table
+                               + ((selection == null) ? "" : " WHERE " + selection)
+                               + " ORDER BY " + keyColumn + " LIMIT " + pageSize;
+            this.pageSqlHead   = "SELECT " + toColumnList(columns) + " FROM " + table
+                               + " WHERE " + where + keyColumn + " > ";
+            this.pageSqlTail   = " ORDER BY " + keyColumn + " LIMIT " + pageSize;
+
+            initialize();
+        }
+
+
+        private void initialize()
+        {
+            // Counted lazily by getCount().
+            count       = -1;
+            knownPages  = 0;
+            currentPage = fetch(buildPageSql(0));
+            currentPageNumber = 0;
+            columnNames = currentPage.getColumnNames();
+            keyIndex    = currentPage.getColumnIndex(keyColumn);
+
+            if (keyIndex < 0)
+            {
+                throw new IllegalArgumentException("The key column is not included in the result.");
+            }
+
+            recordLastKey(0, currentPage);
+            checkLastPage();
+            prefetch(1);
+        }
+
+
+        /**
+         * Move to the given position without counting the rows.
+         */
+        public boolean moveTo(int position)
+        {
+            if (position < 0)
+            {
+                mPos = -1;
+                return false;
+            }
+
+            if (0 <= count && count <= position)
+            {
+                // Beyond the last row.
+                mPos = count;
+                return false;
+            }
+
+            int pageNumber = position / pageSize;
+
+            if (pageNumber != currentPageNumber)
+            {
+                moveToPage(pageNumber);
+            }
+
+            if (pageNumber != currentPageNumber
+                    || currentPage.getRowCount() <= position - pageNumber * pageSize)
+            {
+                // Beyond the last row. The count is known now.
+                mPos = Math.max(0, count);
+                return false;
+            }
+
+            mPos = position;
+            return true;
+        }
+
+
+        /**
+         * Check if the position is after the last row, without counting
+         * the rows.
+         */
+        public boolean isAfterLastPosition()
+        {
+            return 0 <= count && count <= mPos;
+        }
+
+
+        /**
+         * Check if there is no row, without counting the rows.
+         */
+        public boolean isEmpty()
+        {
+            return count == 0;
+        }
+
+
+        @Override
+        public int getCount()
+        {
+            if (count < 0)
+            {
+                count = countRows();
+            }
+
+            return count;
+        }
+
+
+        @Override
+        public String[] getColumnNames()
+        {
+            return columnNames;
+        }
+
+
+        @Override
+        public boolean onMove(int oldPosition, int newPosition)
+        {
+            int pageNumber = newPosition / pageSize;
+
+            if (pageNumber != currentPageNumber)
+            {
+                moveToPage(pageNumber);
+            }
+
+            return (newPosition - pageNumber * pageSize) < currentPage.getRowCount();
+        }
+
+
+        @Override
+        public String getString(int column)
+        {
+            return currentPage.getString(row(), column);
+        }
+
+
+        @Override
+        public short getShort(int column)
+        {
+            return currentPage.getShort(row(), column);
+        }
+
+
+        @Override
+        public int getInt(int column)
+        {
+            return currentPage.getInt(row(), column);
+        }
+
+
+        @Override
+        public long getLong(int column)
+        {
+            return currentPage.getLong(row(), column);
+        }
+
+
+        @Override
+        public float getFloat(int column)
+        {
+            return currentPage.getFloat(row(), column);
+        }
+
+
+        @Override
+        public double getDouble(int column)
+        {
+            return currentPage.getDouble(row(), column);
+        }
+
+
+        @Override
+        public byte[] getBlob(int column)
+        {
+            return currentPage.getBlob(row(), column);
+        }
+
+
+        @Override
+        public boolean isNull(int column)
+        {
+            return currentPage.isNull(row(), column);
+        }
+
+
+        @Override
+        public boolean requery()
+        {
+            cancelPrefetch();
+            initialize();
+
+            return super.requery();
+        }
+
+
+        @Override
+        public void close()
+        {
+            cancelPrefetch();
+            currentPage = null;
+
+            super.close();
+        }
+
+
+        private int row()
+        {
+            checkPosition();
+
+            return mPos - currentPageNumber * pageSize;
+        }
+
+
+        @Override
+        protected void checkPosition()
+        {
+            // Don't count the rows as AbstractCursor does.
+            if (mPos < 0 || isAfterLastPosition())
+            {
+                throw new CursorIndexOutOfBoundsException(mPos, count);
+            }
+        }
+
+
+        private void moveToPage(int pageNumber)
+        {
+            // Walk forward through the pages whose first key is not known yet.
+            while (knownPages < pageNumber)
+            {
+                load(knownPages);
+
+                if (currentPage.getRowCount() < pageSize)
+                {
+                    // The last page. (Or rows were deleted after
+                    // the cursor was created.)
+                    return;
+                }
+            }
+
+            load(pageNumber);
+
+            // Read ahead the next page.
+            prefetch(pageNumber + 1);
+        }
+
+
+        private void load(int pageNumber)
+        {
+            CursorSnapshot page;
+
+            if (pageNumber == nextPageNumber)
+            {
+                // Take the prefetched page.
+                page = takePrefetched(pageNumber);
+            }
+            else
+            {
+                // Jumped. Fetch the page on this thread.
+                cancelPrefetch();
+                page = fetch(buildPageSql(pageNumber));
+            }
+
+            // Keep only the current page and the prefetched page.
+            currentPage       = page;
+            currentPageNumber = pageNumber;
+
+            recordLastKey(pageNumber, page);
+            checkLastPage();
+        }
+
+
+        /**
+         * Count the rows if the current page is the last one, i.e. it
+         * is shorter than the page size.
+         */
+        private void checkLastPage()
+        {
+            int rows = currentPage.getRowCount();
+
+            if (rows < pageSize)
+            {
+                count = currentPageNumber * pageSize + rows;
+            }
+        }
+
+
+        private void prefetch(int pageNumber)
+        {
+            if (pageNumber == nextPageNumber || isBeyondLastPage(pageNumber))
+            {
+                // Already prefetching, or beyond the last page.
+                return;
+            }
+
+            cancelPrefetch();
+
+            if (knownPages < pageNumber)
+            {
+                // The last key of the previous page is unknown.
+                return;
+            }
+
+            // Compute the SQL here so that the prefetch thread does not
+            // touch the state of this cursor.
+            final String sql = buildPageSql(pageNumber);
+
+            nextPageNumber = pageNumber;
+            nextPage = getPrefetcher().submit(new Callable<CursorSnapshot>()
+            {
+                public CursorSnapshot call()
+                {
+                    return fetch(sql);
+                }
+            });
+        }
+
+
+        /**
+         * Check if the given page is beyond the last page, without
+         * counting the rows if they have not been counted yet.
+         */
+        private boolean isBeyondLastPage(int pageNumber)
+        {
+            if (0 <= count)
+            {
+                return count <= pageNumber * pageSize;
+            }
+
+            // A page shorter than the page size is the last one.
+            return currentPageNumber < pageNumber && currentPage.getRowCount() < pageSize;
+        }
+
+
+        private CursorSnapshot takePrefetched(int pageNumber)
+        {
+            Future<CursorSnapshot> future = nextPage;
+
+            nextPage       = null;
+            nextPageNumber = -1;
+
+            if (future.isDone() == false)
+            {
+                // Don't wait for the prefetch thread, which may be
+                // waiting for a transaction of this thread.
+                future.cancel(false);
+                return fetch(buildPageSql(pageNumber));
+            }
+
+            try
+            {
+                // Completed already. This does not block.
+                return future.get();
+            }
+            catch (ExecutionException e)
+            {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof RuntimeException)
+                {
+                    throw (RuntimeException)cause;
+                }
+
+                throw new SQLiteException("Failed to prefetch a page: " + cause);
+            }
+            catch (CancellationException e)
+            {
+                return fetch(buildPageSql(pageNumber));
+            }
+            catch (InterruptedException e)
+            {
+                // Restore the interrupted status and fetch the page here.
+                Thread.currentThread().interrupt();
+                return fetch(buildPageSql(pageNumber));
+            }
+        }
+
+
+        private void cancelPrefetch()
+        {
+            if (nextPage != null)
+            {
+                nextPage.cancel(false);
+                nextPage       = null;
+                nextPageNumber = -1;
+            }
+        }
+
+
+        private void recordLastKey(int pageNumber, CursorSnapshot page)
+        {
+            int rows = page.getRowCount();
+
+            if (rows == 0 || pageNumber < knownPages)
+            {
+                return;
+            }
+
+            if (lastKeys.length <= pageNumber)
+            {
+                long[] copy = new long[Math.max(lastKeys.length * 2, pageNumber + 1)];
+                System.arraycopy(lastKeys, 0, copy, 0, lastKeys.length);
+                lastKeys = copy;
+            }
+
+            lastKeys[pageNumber] = page.getLong(rows - 1, keyIndex);
+            knownPages = pageNumber + 1;
+        }
+
+
+        /**
+         * Build the query of a page. The last key of the previous page
+         * must be known. The key is embedded as a literal so that it is
+         * compared as an integer regardless of the column affinity.
+         * The first page has no condition on the key.
+         */
+        private String buildPageSql(int pageNumber)
+        {
+            if (pageNumber == 0)
+            {
+                return firstPageSql;
+            }
+
+            return pageSqlHead + lastKeys[pageNumber - 1] + pageSqlTail;
+        }
+
+
+        /**
+         * Fetch a page. This method may be called on a prefetch thread.
+         */
+        private CursorSnapshot fetch(String sql)
+        {
+            SQLiteDatabase db = helper.openReadable(table);
+
+            try
+            {
+                Cursor cursor = db.rawQuery(sql, selectionArgs);
+
+                try
+                {
+                    return CursorSnapshot.of(cursor);
+                }
+                finally
+                {
+                    cursor.close();
+                }
+            }
+            finally
+            {
+                helper.closeReadable(db);
+            }
+        }
+
+
+        private int countRows()
+        {
+            SQLiteDatabase db = helper.openReadable(table);
+
+            try
+            {
+                return (int)DatabaseUtils.longForQuery(db, countSql, selectionArgs);
+            }
+            finally
+            {
+                helper.closeReadable(db);
+            }
+        }
+
+
+        private static String toColumnList(String[] columns)
+        {
+            if (columns == null || columns.length == 0)
+            {
+                return "*";
+            }
+
+            StringBuilder builder = new StringBuilder(columns[0]);
+
+            for (int i = 1; i < columns.length; ++i)
+            {
+                builder.append(", ").append(columns[i]);
+            }
+
+            return builder.toString();
+        }
+    }
+}
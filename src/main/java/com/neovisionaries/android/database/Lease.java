@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import android.database.sqlite.SQLiteDatabase;
+
+
+/**
+ * A lease handed out by {@code openReadable()} or {@code openWritable()},
+ * remembered until the matching {@code closeReadable()} or
+ * {@code closeWritable()}.
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+final class Lease
+{
+    public final SQLiteDatabase db;
+    public final DatabaseLock lock;
+    public final LockMonitor monitor;
+    public final boolean writable;
+    public final String[] tables;
+    public final int[] stripes;
+    public final Thread owner;
+    public final long startTime;
+
+
+    /**
+     * The tracker of this lease, or null if not tracked.
+     */
+    public LeaseTracker tracker;
+
+
+    /**
+     * The call site of the open, or null if it was not sampled.
+     */
+    public Throwable callSite;
+
+
+    /**
+     * True if the lease has been reported as leaked.
+     */
+    public volatile boolean reported;
+
+
+    public Lease(SQLiteDatabase db, DatabaseLock lock, LockMonitor monitor, boolean writable, String[] tables, int[] stripes)
+    {
+        this.db        = db;
+        this.lock      = lock;
+        this.monitor   = monitor;
+        this.writable  = writable;
+        this.tables    = (tables == null || tables.length == 0) ? null : tables.clone();
+        this.stripes   = stripes;
+        this.owner     = Thread.currentThread();
+        this.startTime = System.nanoTime();
+    }
+
+
+    public long getHeldTime()
+    {
+        return System.nanoTime() - startTime;
+    }
+}
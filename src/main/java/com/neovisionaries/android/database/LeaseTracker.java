@@ -0,0 +1,465 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import android.util.Log;
+
+
+/**
+ * Detector of leases which are not returned, that is, {@code
+ * openReadable()} or {@code openWritable()} of {@link BaseOpenHelper}
+ * without the matching {@code closeReadable()} or {@code closeWritable()}.
+ *
+ * <p>
+ * A leaked lease keeps its lock held forever, so every writer eventually
+ * blocks. A tracker set by {@link BaseOpenHelper#setLeaseTracker(LeaseTracker)}
+ * remembers all the active leases, captures the call site of sampled ones,
+ * and periodically reports (by {@code Log.w}) the leases which have been
+ * held longer than the threshold, together with the call site when it was
+ * sampled.
+ * </p>
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="comment">// Capture the call site of every 10th lease and
+ * // report leases held for more than 30 seconds.</span>
+ * LeaseTracker tracker = <span class="keyword">new</span> LeaseTracker(10, 30, TimeUnit.SECONDS);
+ * tracker.{@link #setForceReleaseEnabled(boolean) setForceReleaseEnabled}(<span class="keyword">true</span>);
+ * helper.{@link BaseOpenHelper#setLeaseTracker(LeaseTracker) setLeaseTracker}(tracker);
+ *
+ * ......
+ *
+ * Log.d(TAG, tracker.{@link #snapshot()}.toString());
+ * </pre>
+ *
+ * <p>
+ * Locks held by a thread cannot be released by other threads. When the
+ * forced release is enabled and some leases are held by threads which
+ * have terminated, the helper returns the leases and replaces its lock
+ * with a new one, provided that no live thread holds the old lock. The
+ * threads waiting for the old lock move to the new one.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class LeaseTracker
+{
+    private static final String TAG = "LeaseTracker";
+
+
+    private final int samplingInterval;
+    private final long threshold;
+    private volatile boolean forceReleaseEnabled;
+    private final ConcurrentHashMap<Lease, Lease> leases = new ConcurrentHashMap<Lease, Lease>();
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong forcedReleaseCount = new AtomicLong();
+
+
+    /**
+     * Constructor.
+     *
+     * @param samplingInterval
+     *         The call site of one in every {@code samplingInterval}
+     *         leases is captured. 1 captures all the call sites
+     *         (expensive). 0 disables call-site sampling.
+     *
+     * @param threshold
+     *         Leases held longer than this are reported as leaked.
+     *
+     * @param unit
+     *         The time unit of {@code threshold}.
+     *
+     * @throws IllegalArgumentException
+     *         {@code samplingInterval} is negative, {@code threshold}
+     *         is not positive, or {@code unit} is {@code null}.
+     */
+    public LeaseTracker(int samplingInterval, long threshold, TimeUnit unit)
+    {
+        if (samplingInterval < 0)
+        {
+            throw new IllegalArgumentException("samplingInterval is negative.");
+        }
+
+        if (threshold <= 0)
+        {
+            throw new IllegalArgumentException("threshold is not positive.");
+        }
+
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("unit is null.");
+        }
+
+        this.samplingInterval = samplingInterval;
+        this.threshold        = unit.toMillis(threshold);
+    }
+
+
+    /**
+     * Get the threshold in milliseconds.
+     */
+    public long getThreshold()
+    {
+        return threshold;
+    }
+
+
+    /**
+     * Enable or disable the forced release of leases whose owner
+     * threads have terminated. Disabled by default.
+     */
+    public void setForceReleaseEnabled(boolean enabled)
+    {
+        forceReleaseEnabled = enabled;
+    }
+
+
+    /**
+     * Check if the forced release is enabled.
+     */
+    public boolean isForceReleaseEnabled()
+    {
+        return forceReleaseEnabled;
+    }
+
+
+    /**
+     * Take a snapshot of the active leases and the counters.
+     */
+    public Snapshot snapshot()
+    {
+        List<LeaseInfo> list = new ArrayList<LeaseInfo>();
+
+        for (Lease lease : leases.keySet())
+        {
+            list.add(new LeaseInfo(lease));
+        }
+
+        // Longest first.
+        Collections.sort(list, new Comparator<LeaseInfo>()
+        {
+            public int compare(LeaseInfo a, LeaseInfo b)
+            {
+                return (a.heldTime < b.heldTime) ? 1 : ((a.heldTime == b.heldTime) ? 0 : -1);
+            }
+        });
+
+        return new Snapshot(Collections.unmodifiableList(list),
+            leaseCount.get(), leakCount.get(), forcedReleaseCount.get());
+    }
+
+
+    /**
+     * Called after a lease has been handed out.
+     */
+    void begin(Lease lease)
+    {
+        long count = leaseCount.incrementAndGet();
+
+        if (samplingInterval != 0 && count % samplingInterval == 0)
+        {
+            // Capture the call site of this lease.
+            lease.callSite = new Throwable("Call site of the lease");
+        }
+
+        leases.put(lease, lease);
+    }
+
+
+    /**
+     * Called when a lease has been returned or forcibly released.
+     */
+    void end(Lease lease)
+    {
+        leases.remove(lease);
+    }
+
+
+    /**
+     * Report the leases which have newly exceeded the threshold.
+     */
+    void reportOverdueLeases()
+    {
+        long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(threshold);
+
+        for (Lease lease : leases.keySet())
+        {
+            if (lease.reported || lease.getHeldTime() < thresholdNanos)
+            {
+                continue;
+            }
+
+            lease.reported = true;
+            leakCount.incrementAndGet();
+
+            Log.w(TAG, String.format(
+                "A %s lease has been held by thread '%s' (%s) for %d ms.%s",
+                lease.writable ? "writable" : "readable", lease.owner.getName(),
+                lease.owner.isAlive() ? "alive" : "terminated",
+                TimeUnit.NANOSECONDS.toMillis(lease.getHeldTime()),
+                (lease.callSite == null) ? " The call site was not sampled." : ""),
+                lease.callSite);
+        }
+    }
+
+
+    /**
+     * Get the leases whose owner threads have terminated.
+     */
+    List<Lease> getDeadLeases()
+    {
+        List<Lease> list = new ArrayList<Lease>();
+
+        for (Lease lease : leases.keySet())
+        {
+            if (lease.owner.isAlive() == false)
+            {
+                list.add(lease);
+            }
+        }
+
+        return list;
+    }
+
+
+    /**
+     * Check if a live thread holds a lease acquired with the given lock.
+     */
+    boolean hasLiveLeases(DatabaseLock lock)
+    {
+        for (Lease lease : leases.keySet())
+        {
+            if (lease.lock == lock && lease.owner.isAlive())
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Called when a lease has been forcibly released.
+     */
+    void forceRelease(Lease lease)
+    {
+        end(lease);
+        forcedReleaseCount.incrementAndGet();
+
+        Log.w(TAG, String.format(
+            "Forcibly released a %s lease of terminated thread '%s'.",
+            lease.writable ? "writable" : "readable", lease.owner.getName()),
+            lease.callSite);
+    }
+
+
+    /**
+     * Snapshot of the active leases and the counters.
+     */
+    public static final class Snapshot
+    {
+        private final List<LeaseInfo> leases;
+        private final long leaseCount;
+        private final long leakCount;
+        private final long forcedReleaseCount;
+
+
+        Snapshot(List<LeaseInfo> leases, long leaseCount, long leakCount, long forcedReleaseCount)
+        {
+            this.leases             = leases;
+            this.leaseCount         = leaseCount;
+            this.leakCount          = leakCount;
+            this.forcedReleaseCount = forcedReleaseCount;
+        }
+
+
+        /**
+         * Get the active leases, longest held first.
+         */
+        public List<LeaseInfo> getLeases()
+        {
+            return leases;
+        }
+
+
+        /**
+         * Get the number of leases tracked so far.
+         */
+        public long getLeaseCount()
+        {
+            return leaseCount;
+        }
+
+
+        /**
+         * Get the number of leases reported as leaked so far.
+         */
+        public long getLeakCount()
+        {
+            return leakCount;
+        }
+
+
+        /**
+         * Get the number of leases forcibly released so far.
+         */
+        public long getForcedReleaseCount()
+        {
+            return forcedReleaseCount;
+        }
+
+
+        @Override
+        public String toString()
+        {
+            StringBuilder builder = new StringBuilder()
+                .append("leases=").append(leaseCount)
+                .append(", leaks=").append(leakCount)
+                .append(", forcedReleases=").append(forcedReleaseCount)
+                .append(", active=").append(leases.size());
+
+            for (LeaseInfo lease : leases)
+            {
+                builder.append("\n  ").append(lease);
+            }
+
+            return builder.toString();
+        }
+    }
+
+
+    /**
+     * An active lease.
+     */
+    public static final class LeaseInfo
+    {
+        private final boolean writable;
+        private final String[] tables;
+        private final String threadName;
+        private final boolean threadAlive;
+        private final long heldTime;
+        private final StackTraceElement[] callSite;
+
+
+        LeaseInfo(Lease lease)
+        {
+            this.writable    = lease.writable;
+            this.tables      = lease.tables;
+            this.threadName  = lease.owner.getName();
+            this.threadAlive = lease.owner.isAlive();
+            this.heldTime    = TimeUnit.NANOSECONDS.toMillis(lease.getHeldTime());
+            this.callSite    = (lease.callSite == null) ? null : lease.callSite.getStackTrace();
+        }
+
+
+        /**
+         * Check if the lease was handed out by {@code openWritable()}.
+         */
+        public boolean isWritable()
+        {
+            return writable;
+        }
+
+
+        /**
+         * Get the declared tables, or {@code null} if none was declared.
+         */
+        public String[] getTables()
+        {
+            return (tables == null) ? null : tables.clone();
+        }
+
+
+        /**
+         * Get the name of the thread which holds the lease.
+         */
+        public String getThreadName()
+        {
+            return threadName;
+        }
+
+
+        /**
+         * Check if the thread which holds the lease was alive
+         * when the snapshot was taken.
+         */
+        public boolean isThreadAlive()
+        {
+            return threadAlive;
+        }
+
+
+        /**
+         * Get the time the lease has been held in milliseconds.
+         */
+        public long getHeldTime()
+        {
+            return heldTime;
+        }
+
+
+        /**
+         * Get the call site of the open, or {@code null} if it was
+         * not sampled.
+         */
+        public StackTraceElement[] getCallSite()
+        {
+            return callSite;
+        }
+
+
+        @Override
+        public String toString()
+        {
+            StringBuilder builder = new StringBuilder()
+                .append(writable ? "writable" : "readable")
+                .append(" held=").append(heldTime).append("ms")
+                .append(" thread=").append(threadName)
+                .append(threadAlive ? "" : " (terminated)");
+
+            if (tables != null)
+            {
+                builder.append(" tables=").append(Arrays.toString(tables));
+            }
+
+            if (callSite != null)
+            {
+                for (StackTraceElement element : callSite)
+                {
+                    builder.append("\n    at ").append(element);
+                }
+            }
+
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,658 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Contention instrumentation for the read/write lock of
+ * {@link BaseOpenHelper}.
+ *
+ * <p>
+ * A monitor records, per lock mode (read and write),
+ * </p>
+ *
+ * <ul>
+ * <li>a histogram of the time threads wait for the lock,
+ * <li>a histogram of the time threads hold the lock,
+ * <li>a histogram of the number of threads queued when the lock is requested, and
+ * <li>the longest holds, with the call site of the acquisition when it
+ *     was sampled.
+ * </ul>
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="comment">// Capture the call site of every 100th acquisition.</span>
+ * LockMonitor monitor = <span class="keyword">new</span> LockMonitor(100);
+ * helper.{@link BaseOpenHelper#setLockMonitor(LockMonitor) setLockMonitor}(monitor);
+ *
+ * ......
+ *
+ * <span class="comment">// Dump the statistics periodically.</span>
+ * Log.d(TAG, monitor.{@link #snapshot()}.toString());
+ * </pre>
+ *
+ * <p>
+ * When no monitor is set to a {@code BaseOpenHelper}, the cost is one
+ * volatile read per lock operation.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class LockMonitor
+{
+    /**
+     * Index of the read mode.
+     */
+    static final int READ = 0;
+
+
+    /**
+     * Index of the write mode.
+     */
+    static final int WRITE = 1;
+
+
+    /**
+     * The number of the longest holds kept per mode.
+     */
+    private static final int LONGEST_HOLDS = 8;
+
+
+    private final int samplingInterval;
+    private final AtomicLong acquisitionCount = new AtomicLong();
+    private final ModeRecorder[] recorders = { new ModeRecorder(), new ModeRecorder() };
+    private final ThreadLocal<HoldStack> holdStacks = new ThreadLocal<HoldStack>()
+    {
+        @Override
+        protected HoldStack initialValue()
+        {
+            return new HoldStack();
+        }
+    };
+
+
+    /**
+     * Constructor without call-site sampling. This constructor does the following.
+     *
+     * <pre style="border: 1px solid black; margin: 0.5em; padding: 0.5em;">
+     * {@link #LockMonitor(int) this}(0);</pre>
+     */
+    public LockMonitor()
+    {
+        this(0);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param samplingInterval
+     *         The call site of one in every {@code samplingInterval}
+     *         acquisitions is captured. 1 captures all the call sites
+     *         (expensive). 0 disables call-site sampling.
+     *
+     * @throws IllegalArgumentException
+     *         {@code samplingInterval} is negative.
+     */
+    public LockMonitor(int samplingInterval)
+    {
+        if (samplingInterval < 0)
+        {
+            throw new IllegalArgumentException("samplingInterval is negative.");
+        }
+
+        this.samplingInterval = samplingInterval;
+    }
+
+
+    /**
+     * Take a snapshot of the statistics recorded so far.
+     */
+    public Snapshot snapshot()
+    {
+        return new Snapshot(recorders[READ].snapshot(), recorders[WRITE].snapshot());
+    }
+
+
+    /**
+     * Called before a thread requests the lock.
+     *
+     * @return
+     *         The time of the request.
+     */
+    long beforeAcquire(int mode, int queueLength)
+    {
+        recorders[mode].queueLengths.record(queueLength);
+
+        return System.nanoTime();
+    }
+
+
+    /**
+     * Called after a thread acquired the lock.
+     */
+    void afterAcquire(int mode, long requestTime)
+    {
+        long now = System.nanoTime();
+
+        recorders[mode].waitTimes.record((now - requestTime) / 1000);
+
+        Throwable site = null;
+
+        if (samplingInterval != 0 && acquisitionCount.incrementAndGet() % samplingInterval == 0)
+        {
+            // Capture the call site of this acquisition.
+            site = new Throwable();
+        }
+
+        holdStacks.get().push(mode, now, site);
+    }
+
+
+    /**
+     * Called before a thread releases the lock.
+     */
+    void beforeRelease(int mode)
+    {
+        HoldStack stack = holdStacks.get();
+
+        if (stack.depth == 0 || stack.modes[stack.depth - 1] != mode)
+        {
+            // The lock was acquired before this monitor was set.
+            return;
+        }
+
+        long hold = (System.nanoTime() - stack.pop()) / 1000;
+        Throwable site = stack.sites[stack.depth];
+        stack.sites[stack.depth] = null;
+
+        ModeRecorder recorder = recorders[mode];
+        recorder.holdTimes.record(hold);
+        recorder.recordHold(hold, site);
+    }
+
+
+    /**
+     * Snapshot of the statistics of both lock modes.
+     */
+    public static final class Snapshot
+    {
+        private final ModeSnapshot read;
+        private final ModeSnapshot write;
+
+
+        Snapshot(ModeSnapshot read, ModeSnapshot write)
+        {
+            this.read  = read;
+            this.write = write;
+        }
+
+
+        /**
+         * Get the statistics of the read lock.
+         */
+        public ModeSnapshot getRead()
+        {
+            return read;
+        }
+
+
+        /**
+         * Get the statistics of the write lock.
+         */
+        public ModeSnapshot getWrite()
+        {
+            return write;
+        }
+
+
+        @Override
+        public String toString()
+        {
+            return "read: " + read + "\nwrite: " + write;
+        }
+    }
+
+
+    /**
+     * Snapshot of the statistics of one lock mode.
+     */
+    public static final class ModeSnapshot
+    {
+        private final Histogram waitTimes;
+        private final Histogram holdTimes;
+        private final Histogram queueLengths;
+        private final List<Hold> longestHolds;
+
+
+        ModeSnapshot(Histogram waitTimes, Histogram holdTimes, Histogram queueLengths, List<Hold> longestHolds)
+        {
+            this.waitTimes    = waitTimes;
+            this.holdTimes    = holdTimes;
+            this.queueLengths = queueLengths;
+            this.longestHolds = longestHolds;
+        }
+
+
+        /**
+         * Get the histogram of wait times in microseconds.
+         */
+        public Histogram getWaitTimes()
+        {
+            return waitTimes;
+        }
+
+
+        /**
+         * Get the histogram of hold times in microseconds.
+         */
+        public Histogram getHoldTimes()
+        {
+            return holdTimes;
+        }
+
+
+        /**
+         * Get the histogram of the numbers of threads which were
+         * waiting for the lock when it was requested.
+         */
+        public Histogram getQueueLengths()
+        {
+            return queueLengths;
+        }
+
+
+        /**
+         * Get the longest holds, longest first.
+         */
+        public List<Hold> getLongestHolds()
+        {
+            return longestHolds;
+        }
+
+
+        @Override
+        public String toString()
+        {
+            StringBuilder builder = new StringBuilder()
+                .append("wait(us)=").append(waitTimes)
+                .append(", hold(us)=").append(holdTimes)
+                .append(", queue=").append(queueLengths);
+
+            for (Hold hold : longestHolds)
+            {
+                builder.append("\n  ").append(hold);
+            }
+
+            return builder.toString();
+        }
+    }
+
+
+    /**
+     * A hold of the lock.
+     */
+    public static final class Hold
+    {
+        private final long holdTime;
+        private final String threadName;
+        private final StackTraceElement[] callSite;
+
+
+        Hold(long holdTime, String threadName, StackTraceElement[] callSite)
+        {
+            this.holdTime   = holdTime;
+            this.threadName = threadName;
+            this.callSite   = callSite;
+        }
+
+
+        /**
+         * Get the hold time in microseconds.
+         */
+        public long getHoldTime()
+        {
+            return holdTime;
+        }
+
+
+        /**
+         * Get the name of the thread which held the lock.
+         */
+        public String getThreadName()
+        {
+            return threadName;
+        }
+
+
+        /**
+         * Get the call site of the acquisition, or {@code null}
+         * if it was not sampled.
+         */
+        public StackTraceElement[] getCallSite()
+        {
+            return callSite;
+        }
+
+
+        @Override
+        public String toString()
+        {
+            StringBuilder builder = new StringBuilder()
+                .append(holdTime).append("us by ").append(threadName);
+
+            if (callSite != null && callSite.length != 0)
+            {
+                builder.append(" at ").append(callSite[0]);
+            }
+
+            return builder.toString();
+        }
+    }
+
+
+    /**
+     * Histogram with power-of-two buckets. Bucket {@code i} counts
+     * values in the range [2<sup>i-1</sup>, 2<sup>i</sup>), and bucket
+     * 0 counts zeros.
+     */
+    public static final class Histogram
+    {
+        /**
+         * The number of buckets.
+         */
+        public static final int BUCKETS = 48;
+
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+
+        Histogram(long[] counts, long count, long sum, long max)
+        {
+            this.counts = counts;
+            this.count  = count;
+            this.sum    = sum;
+            this.max    = max;
+        }
+
+
+        static int bucketOf(long value)
+        {
+            return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+        }
+
+
+        /**
+         * Get the count of the given bucket.
+         */
+        public long getBucketCount(int bucket)
+        {
+            return counts[bucket];
+        }
+
+
+        /**
+         * Get the number of recorded values.
+         */
+        public long getCount()
+        {
+            return count;
+        }
+
+
+        /**
+         * Get the maximum of the recorded values.
+         */
+        public long getMax()
+        {
+            return max;
+        }
+
+
+        /**
+         * Get the mean of the recorded values.
+         */
+        public double getMean()
+        {
+            return (count == 0) ? 0.0 : (double)sum / count;
+        }
+
+
+        /**
+         * Get the upper bound of the bucket containing the given
+         * percentile.
+         *
+         * @param percentile
+         *         A value between 0 and 100.
+         */
+        public long getPercentile(double percentile)
+        {
+            long threshold = (long)Math.ceil(count * percentile / 100.0);
+            long accumulated = 0;
+
+            for (int i = 0; i < BUCKETS; ++i)
+            {
+                accumulated += counts[i];
+
+                if (threshold <= accumulated)
+                {
+                    return Math.min(max, (i == 0) ? 0 : (1L << i) - 1);
+                }
+            }
+
+            return max;
+        }
+
+
+        @Override
+        public String toString()
+        {
+            return String.format("(count=%d, mean=%.1f, p50=%d, p99=%d, max=%d)",
+                count, getMean(), getPercentile(50), getPercentile(99), max);
+        }
+    }
+
+
+    private static class Recorder
+    {
+        private final AtomicLongArray counts = new AtomicLongArray(Histogram.BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+
+        public void record(long value)
+        {
+            value = Math.max(0, value);
+
+            counts.incrementAndGet(Histogram.bucketOf(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+
+            long current;
+
+            while ((current = max.get()) < value && max.compareAndSet(current, value) == false)
+            {
+            }
+        }
+
+
+        public Histogram snapshot()
+        {
+            long[] copy = new long[Histogram.BUCKETS];
+
+            for (int i = 0; i < copy.length; ++i)
+            {
+                copy[i] = counts.get(i);
+            }
+
+            return new Histogram(copy, count.get(), sum.get(), max.get());
+        }
+    }
+
+
+    private static class ModeRecorder
+    {
+        public final Recorder waitTimes = new Recorder();
+        public final Recorder holdTimes = new Recorder();
+        public final Recorder queueLengths = new Recorder();
+        private final List<Hold> longestHolds = new ArrayList<Hold>(LONGEST_HOLDS + 1);
+        private volatile long threshold;
+
+
+        public void recordHold(long holdTime, Throwable site)
+        {
+            if (holdTime <= threshold)
+            {
+                // Not one of the longest holds. Avoid synchronization.
+                return;
+            }
+
+            Hold hold = new Hold(holdTime, Thread.currentThread().getName(), toCallSite(site));
+
+            synchronized (longestHolds)
+            {
+                int index = 0;
+
+                while (index < longestHolds.size() && holdTime <= longestHolds.get(index).getHoldTime())
+                {
+                    ++index;
+                }
+
+                longestHolds.add(index, hold);
+
+                if (LONGEST_HOLDS < longestHolds.size())
+                {
+                    longestHolds.remove(LONGEST_HOLDS);
+                }
+
+                if (longestHolds.size() == LONGEST_HOLDS)
+                {
+                    threshold = longestHolds.get(LONGEST_HOLDS - 1).getHoldTime();
+                }
+            }
+        }
+
+
+        public ModeSnapshot snapshot()
+        {
+            List<Hold> holds;
+
+            synchronized (longestHolds)
+            {
+                holds = Collections.unmodifiableList(new ArrayList<Hold>(longestHolds));
+            }
+
+            return new ModeSnapshot(
+                waitTimes.snapshot(), holdTimes.snapshot(), queueLengths.snapshot(), holds);
+        }
+
+
+        private static StackTraceElement[] toCallSite(Throwable site)
+        {
+            if (site == null)
+            {
+                return null;
+            }
+
+            StackTraceElement[] elements = site.getStackTrace();
+            int start = 0;
+
+            // Skip the frames of this package's lock management.
+            while (start < elements.length &&
+                   (elements[start].getClassName().equals(LockMonitor.class.getName()) ||
+                    elements[start].getClassName().equals(BaseOpenHelper.class.getName())))
+            {
+                ++start;
+            }
+
+            StackTraceElement[] callSite = new StackTraceElement[elements.length - start];
+            System.arraycopy(elements, start, callSite, 0, callSite.length);
+
+            return callSite;
+        }
+    }
+
+
+    private static class HoldStack
+    {
+        public int[] modes = new int[4];
+        public long[] times = new long[4];
+        public Throwable[] sites = new Throwable[4];
+        public int depth;
+
+
+        public void push(int mode, long time, Throwable site)
+        {
+            if (depth == modes.length)
+            {
+                modes = grow(modes);
+                times = grow(times);
+                sites = grow(sites);
+            }
+
+            modes[depth] = mode;
+            times[depth] = time;
+            sites[depth] = site;
+            ++depth;
+        }
+
+
+        public long pop()
+        {
+            return times[--depth];
+        }
+
+
+        private static int[] grow(int[] array)
+        {
+            int[] copy = new int[array.length * 2];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            return copy;
+        }
+
+
+        private static long[] grow(long[] array)
+        {
+            long[] copy = new long[array.length * 2];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            return copy;
+        }
+
+
+        private static Throwable[] grow(Throwable[] array)
+        {
+            Throwable[] copy = new Throwable[array.length * 2];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+/**
+ * Locking strategy of {@link BaseOpenHelper}.
+ *
+ * <ul>
+ * <li>{@link #FAIR} (default) &mdash; One fair read/write lock for the
+ *     whole database. Threads acquire the lock in arrival order.
+ * <li>{@link #NON_FAIR} &mdash; One non-fair read/write lock for the
+ *     whole database. Higher throughput under read-heavy load, but a
+ *     writer may wait longer.
+ * <li>{@link #striped(int, boolean) striped}{@code (stripes, fair)}
+ *     &mdash; In addition to the lock for the whole database, tables
+ *     are mapped to a fixed number of read/write locks ("stripes").
+ *     Threads which declare the tables they access by {@link
+ *     BaseOpenHelper#openReadable(String...)} or {@link
+ *     BaseOpenHelper#openWritable(String...)} lock only the stripes of
+ *     the tables, so writers to unrelated tables do not serialize
+ *     against each other or against readers of other tables.
+ * </ul>
+ *
+ * <p>
+ * In the striped strategy, declare all the tables a thread accesses by
+ * its outermost open. While a thread holds the locks of some tables, a
+ * nested open can only open the tables already declared, in the same
+ * mode or in read mode within write mode. Any other nested open throws
+ * {@code IllegalStateException}, because it could wait forever: for
+ * example, a thread in a transaction holds the connection lock of
+ * {@code SQLiteDatabase} until the transaction ends, so it would
+ * deadlock waiting for a table whose holder waits for the connection.
+ * A thread which has locked the whole database in write mode can open
+ * anything.
+ * </p>
+ *
+ * <p>
+ * Note that striping does not make writes run in parallel. All the
+ * threads share one connection, and SQLite allows only one writer per
+ * database file, so statements and transactions are still executed
+ * one at a time. Striping only shortens the time threads wait for the
+ * lock of the helper, i.e. the work done between opening and closing
+ * the database outside statements and transactions.
+ * </p>
+ *
+ * @see BaseOpenHelper#setLockStrategy(LockStrategy)
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class LockStrategy
+{
+    /**
+     * One fair read/write lock for the whole database.
+     */
+    public static final LockStrategy FAIR = new LockStrategy(true, 0);
+
+
+    /**
+     * One non-fair read/write lock for the whole database.
+     */
+    public static final LockStrategy NON_FAIR = new LockStrategy(false, 0);
+
+
+    private final boolean fair;
+    private final int stripeCount;
+
+
+    private LockStrategy(boolean fair, int stripeCount)
+    {
+        this.fair        = fair;
+        this.stripeCount = stripeCount;
+    }
+
+
+    /**
+     * Get a strategy which maps tables to the given number of locks.
+     *
+     * @param stripeCount
+     *         The number of table locks. Tables whose names are mapped
+     *         to the same lock serialize against each other.
+     *
+     * @param fair
+     *         True to make the locks fair.
+     *
+     * @return
+     *         A striped lock strategy.
+     *
+     * @throws IllegalArgumentException
+     *         {@code stripeCount} is less than 1.
+     */
+    public static LockStrategy striped(int stripeCount, boolean fair)
+    {
+        if (stripeCount < 1)
+        {
+            throw new IllegalArgumentException("stripeCount is less than 1.");
+        }
+
+        return new LockStrategy(fair, stripeCount);
+    }
+
+
+    /**
+     * Check if the locks are fair.
+     */
+    public boolean isFair()
+    {
+        return fair;
+    }
+
+
+    /**
+     * Check if tables are locked separately.
+     */
+    public boolean isStriped()
+    {
+        return stripeCount != 0;
+    }
+
+
+    /**
+     * Get the number of table locks. 0 is returned if this
+     * strategy is not striped.
+     */
+    public int getStripeCount()
+    {
+        return stripeCount;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return String.format("LockStrategy(fair=%s, stripes=%d)", fair, stripeCount);
+    }
+}
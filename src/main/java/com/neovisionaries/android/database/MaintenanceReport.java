@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Result of a maintenance run of {@link DatabaseMaintenance}.
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class MaintenanceReport
+{
+    private final List<String> operations;
+    private final boolean completed;
+    private final long sizeBefore;
+    private final long sizeAfter;
+    private final long freelistBefore;
+    private final long freelistAfter;
+    private final long latencyBefore;
+    private final long latencyAfter;
+    private final long elapsedTime;
+
+
+    MaintenanceReport(
+        List<String> operations, boolean completed,
+        long sizeBefore, long sizeAfter, long freelistBefore, long freelistAfter,
+        long latencyBefore, long latencyAfter, long elapsedTime)
+    {
+        this.operations     = Collections.unmodifiableList(operations);
+        this.completed      = completed;
+        this.sizeBefore     = sizeBefore;
+        this.sizeAfter      = sizeAfter;
+        this.freelistBefore = freelistBefore;
+        this.freelistAfter  = freelistAfter;
+        this.latencyBefore  = latencyBefore;
+        this.latencyAfter   = latencyAfter;
+        this.elapsedTime    = elapsedTime;
+    }
+
+
+    /**
+     * Get the statements executed, for example, {@code "ANALYZE item"}.
+     */
+    public List<String> getOperations()
+    {
+        return operations;
+    }
+
+
+    /**
+     * Check if all the planned operations were executed. False is
+     * returned when the run stopped because the time budget ran out
+     * or the database became busy. The rest is planned again next time.
+     */
+    public boolean isCompleted()
+    {
+        return completed;
+    }
+
+
+    /**
+     * Get the size of the database file in bytes before the run.
+     */
+    public long getSizeBefore()
+    {
+        return sizeBefore;
+    }
+
+
+    /**
+     * Get the size of the database file in bytes after the run.
+     */
+    public long getSizeAfter()
+    {
+        return sizeAfter;
+    }
+
+
+    /**
+     * Get the number of free pages before the run.
+     */
+    public long getFreelistBefore()
+    {
+        return freelistBefore;
+    }
+
+
+    /**
+     * Get the number of free pages after the run.
+     */
+    public long getFreelistAfter()
+    {
+        return freelistAfter;
+    }
+
+
+    /**
+     * Get the latency of the probe query before the run.
+     *
+     * @param unit
+     *         The unit of the returned value.
+     *
+     * @return
+     *         The latency, or -1 if no probe query is set.
+     */
+    public long getLatencyBefore(TimeUnit unit)
+    {
+        return (latencyBefore < 0) ? -1 : unit.convert(latencyBefore, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Get the latency of the probe query after the run.
+     *
+     * @param unit
+     *         The unit of the returned value.
+     *
+     * @return
+     *         The latency, or -1 if no probe query is set.
+     */
+    public long getLatencyAfter(TimeUnit unit)
+    {
+        return (latencyAfter < 0) ? -1 : unit.convert(latencyAfter, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Get the time spent on the run.
+     *
+     * @param unit
+     *         The unit of the returned value.
+     */
+    public long getElapsedTime(TimeUnit unit)
+    {
+        return unit.convert(elapsedTime, TimeUnit.NANOSECONDS);
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "MaintenanceReport(operations=%s, completed=%b, size=%d->%d, freelist=%d->%d, latency=%dus->%dus, elapsed=%dms)",
+            operations, completed, sizeBefore, sizeAfter, freelistBefore, freelistAfter,
+            getLatencyBefore(TimeUnit.MICROSECONDS), getLatencyAfter(TimeUnit.MICROSECONDS),
+            getElapsedTime(TimeUnit.MILLISECONDS));
+    }
+}
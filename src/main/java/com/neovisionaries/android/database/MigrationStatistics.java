@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Snapshot of the progress of a migration step.
+ *
+ * @see Migrator
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class MigrationStatistics
+{
+    private final String name;
+    private final int version;
+    private final int chunkCount;
+    private final boolean resumed;
+    private final long elapsedTime;
+    private final long totalElapsedTime;
+
+
+    MigrationStatistics(
+        String name, int version, int chunkCount, boolean resumed,
+        long elapsedTime, long totalElapsedTime)
+    {
+        this.name             = name;
+        this.version          = version;
+        this.chunkCount       = chunkCount;
+        this.resumed          = resumed;
+        this.elapsedTime      = elapsedTime;
+        this.totalElapsedTime = totalElapsedTime;
+    }
+
+
+    /**
+     * Get the name of the step.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+
+    /**
+     * Get the database version which the step upgrades to.
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+
+    /**
+     * Get the number of chunks committed in this run.
+     */
+    public int getChunkCount()
+    {
+        return chunkCount;
+    }
+
+
+    /**
+     * Check if the step was resumed from the progress of a previous run.
+     */
+    public boolean isResumed()
+    {
+        return resumed;
+    }
+
+
+    /**
+     * Get the time spent on the step in this run.
+     *
+     * @param unit
+     *         The unit of the returned value.
+     */
+    public long getElapsedTime(TimeUnit unit)
+    {
+        return unit.convert(elapsedTime, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Get the time spent on the step in all the runs including
+     * interrupted ones (up to their last checkpoints).
+     *
+     * @param unit
+     *         The unit of the returned value.
+     */
+    public long getTotalElapsedTime(TimeUnit unit)
+    {
+        return unit.convert(totalElapsedTime, TimeUnit.NANOSECONDS);
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "MigrationStatistics(name=%s, version=%d, chunks=%d, resumed=%b, elapsed=%dms, totalElapsed=%dms)",
+            name, version, chunkCount, resumed,
+            getElapsedTime(TimeUnit.MILLISECONDS), getTotalElapsedTime(TimeUnit.MILLISECONDS));
+    }
+}
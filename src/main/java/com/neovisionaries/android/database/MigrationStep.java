@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import android.database.sqlite.SQLiteDatabase;
+
+
+/**
+ * A step of a schema migration executed by {@link Migrator}.
+ *
+ * <p>
+ * A step is executed in three phases.
+ * </p>
+ *
+ * <ol>
+ * <li>{@link #prepare(SQLiteDatabase)} changes the schema, for example,
+ *     creates a new table. It is executed under the write lock of the
+ *     helper.
+ * <li>{@link #transform(SQLiteDatabase, String, int)} is called repeatedly
+ *     to copy or rewrite data chunk by chunk. Each chunk is committed in
+ *     its own transaction together with the checkpoint it returns, so an
+ *     interrupted migration resumes from the last checkpoint. Each chunk
+ *     is executed under the write lock of the tables given to the
+ *     constructor (or of the whole database if none is given), and the
+ *     {@link TableWriteListener}s of the helper are notified of the
+ *     tables when the chunk is committed. Other threads can read and
+ *     write the database between chunks.
+ * <li>{@link #complete(SQLiteDatabase)} finishes the schema change, for
+ *     example, drops the old table and renames the new one. It is
+ *     executed under the write lock of the helper.
+ * </ol>
+ *
+ * <p>
+ * The tables are locked only while a phase or a chunk is running, so data
+ * which has already been copied may be modified between chunks. Such
+ * changes can be carried over in {@link #complete(SQLiteDatabase)}.
+ * </p>
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="keyword">new</span> MigrationStep(2, "split_user_name", "user")
+ * {
+ *     <span class="keyword">protected void</span> prepare(SQLiteDatabase db)
+ *     {
+ *         db.execSQL("CREATE TABLE user_new (id INTEGER PRIMARY KEY, first TEXT, last TEXT)");
+ *     }
+ *
+ *     <span class="keyword">protected</span> String transform(SQLiteDatabase db, String checkpoint, <span class="keyword">int</span> chunkSize)
+ *     {
+ *         <span class="comment">// Copy the next chunk of rows after the last copied id.</span>
+ *         String last = (checkpoint == <span class="keyword">null</span>) ? "-1" : checkpoint;
+ *         ......
+ *         <span class="comment">// Return null when all the rows have been copied.</span>
+ *         <span class="keyword">return</span> (copied &lt; chunkSize) ? <span class="keyword">null</span> : String.valueOf(lastId);
+ *     }
+ *
+ *     <span class="keyword">protected void</span> complete(SQLiteDatabase db)
+ *     {
+ *         db.execSQL("DROP TABLE user");
+ *         db.execSQL("ALTER TABLE user_new RENAME TO user");
+ *     }
+ * };
+ * </pre>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public abstract class MigrationStep
+{
+    private final int version;
+    private final String name;
+    private final String[] tables;
+
+
+    /**
+     * Constructor.
+     *
+     * @param version
+     *         The database version which this step upgrades to.
+     *
+     * @param name
+     *         The name of this step, which must be unique among the
+     *         steps. It is used to record the progress of this step.
+     *
+     * @param tables
+     *         The tables read or written by {@link #transform(SQLiteDatabase,
+     *         String, int) transform()}. If none is given, the write lock of
+     *         the whole database is held during transforms, and listeners
+     *         are notified that any table may have been written.
+     *
+     * @throws IllegalArgumentException
+     *         {@code name} is {@code null}.
+     */
+    protected MigrationStep(int version, String name, String... tables)
+    {
+        if (name == null)
+        {
+            throw new IllegalArgumentException("name is null.");
+        }
+
+        this.version = version;
+        this.name    = name;
+        this.tables  = tables;
+    }
+
+
+    /**
+     * Get the database version which this step upgrades to.
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+
+    /**
+     * Get the name of this step.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+
+    /**
+     * Get the tables read or written by transforms.
+     */
+    public String[] getTables()
+    {
+        return tables;
+    }
+
+
+    /**
+     * Change the schema before the data are transformed. This method is
+     * executed once in a transaction under the write lock. The default
+     * implementation does nothing.
+     *
+     * @param db
+     *         The database.
+     *
+     * @throws Exception
+     *         The schema change failed. The transaction is rolled back.
+     */
+    protected void prepare(SQLiteDatabase db) throws Exception
+    {
+    }
+
+
+    /**
+     * Transform the next chunk of data. This method is executed in a
+     * transaction under the read lock. The default implementation does
+     * nothing and returns {@code null}.
+     *
+     * @param db
+     *         The database.
+     *
+     * @param checkpoint
+     *         The checkpoint returned by the previous call, or {@code null}
+     *         for the first call.
+     *
+     * @param chunkSize
+     *         The recommended number of rows to transform in this call.
+     *
+     * @return
+     *         The checkpoint from which the next call continues, or
+     *         {@code null} if all the data have been transformed.
+     *
+     * @throws Exception
+     *         The transform failed. The transaction is rolled back and
+     *         the migration resumes from the previous checkpoint next time.
+     */
+    protected String transform(SQLiteDatabase db, String checkpoint, int chunkSize) throws Exception
+    {
+        return null;
+    }
+
+
+    /**
+     * Finish the schema change after all the data have been transformed.
+     * This method is executed once in a transaction under the write lock.
+     * The default implementation does nothing.
+     *
+     * @param db
+     *         The database.
+     *
+     * @throws Exception
+     *         The schema change failed. The transaction is rolled back.
+     */
+    protected void complete(SQLiteDatabase db) throws Exception
+    {
+    }
+}
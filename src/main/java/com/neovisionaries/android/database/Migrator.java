@@ -0,0 +1,577 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+
+/**
+ * Resumable schema migration on top of {@link BaseOpenHelper}.
+ *
+ * <p>
+ * {@code SQLiteOpenHelper} calls {@code onUpgrade()} in one transaction
+ * on the thread which opens the database first, so a large data rewrite
+ * there blocks the thread for long and is lost entirely when the process
+ * is killed. With this class, {@code onUpgrade()} just records the steps
+ * to execute by {@link #onUpgrade(SQLiteDatabase, int, int)}, and {@link
+ * #run()} (or {@link #runInBackground()}) executes them afterwards. Each
+ * {@link MigrationStep} changes the schema under the write lock and
+ * transforms data in short chunks, each under the write lock of the
+ * tables of the step, recording its progress in the {@link
+ * #PROGRESS_TABLE} table in the same transactions, so an interrupted
+ * migration resumes from the last checkpoint. Other threads can use
+ * the database between chunks.
+ * </p>
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="keyword">public class</span> MyOpenHelper <span class="keyword">extends</span> BaseOpenHelper
+ * {
+ *     <span class="keyword">private final</span> Migrator migrator = <span class="keyword">new</span> Migrator(<span class="keyword">this</span>)
+ *         .{@link #addStep(MigrationStep) addStep}(<span class="keyword">new</span> SplitUserNameStep())
+ *         .{@link #addStep(MigrationStep) addStep}(<span class="keyword">new</span> AddIndexesStep());
+ *
+ *     <span class="keyword">public void</span> onUpgrade(SQLiteDatabase db, <span class="keyword">int</span> oldVersion, <span class="keyword">int</span> newVersion)
+ *     {
+ *         <span class="comment">// Just record the steps to execute.</span>
+ *         migrator.{@link #onUpgrade(SQLiteDatabase, int, int) onUpgrade}(db, oldVersion, newVersion);
+ *     }
+ *
+ *     <span class="keyword">public</span> Future&lt;List&lt;MigrationStatistics&gt;&gt; migrate()
+ *     {
+ *         <span class="comment">// Execute the recorded steps (and the ones left
+ *         // by an interrupted run) on a background thread.</span>
+ *         <span class="keyword">return</span> migrator.{@link #runInBackground()};
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>
+ * Code which depends on the new schema has to wait for the migration,
+ * for example, by {@code Future.get()}.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class Migrator
+{
+    /**
+     * The name of the table which records the progress of steps.
+     */
+    public static final String PROGRESS_TABLE = "migration_progress";
+
+
+    /**
+     * The default number of rows transformed in one chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+
+    private static final int PHASE_PENDING     = 0;
+    private static final int PHASE_PREPARED    = 1;
+    private static final int PHASE_TRANSFORMED = 2;
+
+
+    private static final String SQL_CREATE_PROGRESS_TABLE =
+        "CREATE TABLE IF NOT EXISTS " + PROGRESS_TABLE + " ("
+        + "name TEXT PRIMARY KEY, "
+        + "version INTEGER NOT NULL, "
+        + "seq INTEGER NOT NULL, "
+        + "phase INTEGER NOT NULL, "
+        + "checkpoint TEXT, "
+        + "elapsed INTEGER NOT NULL)";
+
+
+    private final BaseOpenHelper helper;
+    private final List<MigrationStep> steps = new ArrayList<MigrationStep>();
+    private volatile int chunkSize = DEFAULT_CHUNK_SIZE;
+    private volatile MigrationListener listener;
+
+
+    /**
+     * Progress of a step recorded in the progress table.
+     */
+    private static class Progress
+    {
+        public final String name;
+        public int phase;
+        public String checkpoint;
+        public long elapsed;
+
+
+        public Progress(String name, int phase, String checkpoint, long elapsed)
+        {
+            this.name       = name;
+            this.phase      = phase;
+            this.checkpoint = checkpoint;
+            this.elapsed    = elapsed;
+        }
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param helper
+     *         The helper of the database to migrate.
+     *
+     * @throws IllegalArgumentException
+     *         {@code helper} is {@code null}.
+     */
+    public Migrator(BaseOpenHelper helper)
+    {
+        if (helper == null)
+        {
+            throw new IllegalArgumentException("helper is null.");
+        }
+
+        this.helper = helper;
+    }
+
+
+    /**
+     * Add a step. Steps are executed in the order of their versions,
+     * and steps of the same version are executed in the order of addition.
+     *
+     * @param step
+     *         A step.
+     *
+     * @return
+     *         {@code this} object.
+     *
+     * @throws IllegalArgumentException
+     *         {@code step} is {@code null}, or a step of the same name
+     *         has already been added.
+     */
+    public synchronized Migrator addStep(MigrationStep step)
+    {
+        if (step == null)
+        {
+            throw new IllegalArgumentException("step is null.");
+        }
+
+        if (findStep(step.getName()) != null)
+        {
+            throw new IllegalArgumentException("Duplicate step name: " + step.getName());
+        }
+
+        steps.add(step);
+
+        return this;
+    }
+
+
+    /**
+     * Get the number of rows recommended to transform in one chunk.
+     */
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+
+    /**
+     * Set the number of rows recommended to transform in one chunk,
+     * which is passed to {@link MigrationStep#transform(SQLiteDatabase,
+     * String, int)}. The default value is {@link #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param chunkSize
+     *         The number of rows per chunk.
+     *
+     * @return
+     *         {@code this} object.
+     *
+     * @throws IllegalArgumentException
+     *         {@code chunkSize} is less than 1.
+     */
+    public Migrator setChunkSize(int chunkSize)
+    {
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("chunkSize is less than 1.");
+        }
+
+        this.chunkSize = chunkSize;
+
+        return this;
+    }
+
+
+    /**
+     * Get the listener.
+     */
+    public MigrationListener getListener()
+    {
+        return listener;
+    }
+
+
+    /**
+     * Set a listener notified of the progress.
+     *
+     * @param listener
+     *         A listener, or {@code null} to remove the current one.
+     *
+     * @return
+     *         {@code this} object.
+     */
+    public Migrator setListener(MigrationListener listener)
+    {
+        this.listener = listener;
+
+        return this;
+    }
+
+
+    /**
+     * Record the steps to execute for the upgrade. Call this method from
+     * {@code onUpgrade()} of the helper. Steps whose versions are greater
+     * than {@code oldVersion} and not greater than {@code newVersion} are
+     * recorded in the progress table. They are executed by {@link #run()}
+     * or {@link #runInBackground()}.
+     *
+     * @param db
+     *         The database given to {@code onUpgrade()}.
+     *
+     * @param oldVersion
+     *         The old version.
+     *
+     * @param newVersion
+     *         The new version.
+     */
+    public synchronized void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion)
+    {
+        db.execSQL(SQL_CREATE_PROGRESS_TABLE);
+
+        int count = steps.size();
+
+        for (int i = 0; i < count; ++i)
+        {
+            MigrationStep step = steps.get(i);
+            int version = step.getVersion();
+
+            if (version <= oldVersion || newVersion < version)
+            {
+                continue;
+            }
+
+            // A step left by an interrupted run keeps its progress.
+            db.execSQL("INSERT OR IGNORE INTO " + PROGRESS_TABLE
+                + " (name, version, seq, phase, checkpoint, elapsed) VALUES (?, ?, ?, ?, NULL, 0)",
+                new Object[] { step.getName(), Integer.valueOf(version),
+                               Integer.valueOf(i), Integer.valueOf(PHASE_PENDING) });
+        }
+    }
+
+
+    /**
+     * Check if there are steps which have not been completed.
+     *
+     * <p>
+     * The database is opened by this method, so {@code onUpgrade()}
+     * is called here if it has not been called yet.
+     * </p>
+     *
+     * @return
+     *         True if {@link #run()} has steps to execute.
+     */
+    public boolean isPending()
+    {
+        return loadProgress().isEmpty() == false;
+    }
+
+
+    /**
+     * Execute the recorded steps on the calling thread.
+     *
+     * <p>
+     * Steps left by an interrupted run are resumed from their last
+     * checkpoints. If a step fails, the exception is thrown and the
+     * remaining steps are not executed; the next run resumes from the
+     * failed step.
+     * </p>
+     *
+     * @return
+     *         The results of the executed steps.
+     *
+     * @throws IllegalStateException
+     *         A recorded step has not been added to this migrator.
+     *
+     * @throws Exception
+     *         A step failed.
+     */
+    public synchronized List<MigrationStatistics> run() throws Exception
+    {
+        List<MigrationStatistics> results = new ArrayList<MigrationStatistics>();
+
+        for (Progress progress : loadProgress())
+        {
+            MigrationStep step = findStep(progress.name);
+
+            if (step == null)
+            {
+                throw new IllegalStateException("Unknown migration step: " + progress.name);
+            }
+
+            results.add(runStep(step, progress));
+        }
+
+        return results;
+    }
+
+
+    /**
+     * Execute the recorded steps on a new background thread.
+     *
+     * @return
+     *         A future which gives the results of {@link #run()}.
+     */
+    public Future<List<MigrationStatistics>> runInBackground()
+    {
+        FutureTask<List<MigrationStatistics>> task =
+            new FutureTask<List<MigrationStatistics>>(new Callable<List<MigrationStatistics>>()
+            {
+                public List<MigrationStatistics> call() throws Exception
+                {
+                    return run();
+                }
+            });
+
+        new Thread(task, "Migrator").start();
+
+        return task;
+    }
+
+
+    private MigrationStep findStep(String name)
+    {
+        for (MigrationStep step : steps)
+        {
+            if (step.getName().equals(name))
+            {
+                return step;
+            }
+        }
+
+        // Not found.
+        return null;
+    }
+
+
+    private List<Progress> loadProgress()
+    {
+        List<Progress> list = new ArrayList<Progress>();
+
+        // Opening the database triggers onUpgrade() if necessary.
+        SQLiteDatabase db = helper.openReadable();
+
+        try
+        {
+            if (hasProgressTable(db) == false)
+            {
+                return list;
+            }
+
+            Cursor cursor = db.rawQuery("SELECT name, phase, checkpoint, elapsed FROM "
+                + PROGRESS_TABLE + " ORDER BY version, seq", null);
+
+            try
+            {
+                while (cursor.moveToNext())
+                {
+                    list.add(new Progress(cursor.getString(0), cursor.getInt(1),
+                        cursor.getString(2), cursor.getLong(3)));
+                }
+            }
+            finally
+            {
+                cursor.close();
+            }
+
+            return list;
+        }
+        finally
+        {
+            helper.closeReadable(db);
+        }
+    }
+
+
+    private static boolean hasProgressTable(SQLiteDatabase db)
+    {
+        Cursor cursor = db.rawQuery(
+            "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?",
+            new String[] { PROGRESS_TABLE });
+
+        try
+        {
+            return cursor.moveToFirst();
+        }
+        finally
+        {
+            cursor.close();
+        }
+    }
+
+
+    private MigrationStatistics runStep(MigrationStep step, Progress progress) throws Exception
+    {
+        long startTime = System.nanoTime();
+        long previous  = progress.elapsed;
+        boolean resumed = (progress.phase != PHASE_PENDING || progress.checkpoint != null);
+        int chunks = 0;
+
+        if (progress.phase == PHASE_PENDING)
+        {
+            runSchemaChange(step, progress, false, previous + System.nanoTime() - startTime);
+        }
+
+        while (progress.phase == PHASE_PREPARED)
+        {
+            runChunk(step, progress, previous + System.nanoTime() - startTime);
+            ++chunks;
+
+            MigrationListener l = listener;
+
+            if (l != null)
+            {
+                l.onChunkCommitted(step, createStatistics(step, chunks, resumed, startTime, previous));
+            }
+        }
+
+        runSchemaChange(step, progress, true, 0);
+
+        MigrationStatistics statistics = createStatistics(step, chunks, resumed, startTime, previous);
+        MigrationListener l = listener;
+
+        if (l != null)
+        {
+            l.onStepCompleted(step, statistics);
+        }
+
+        return statistics;
+    }
+
+
+    private static MigrationStatistics createStatistics(
+        MigrationStep step, int chunks, boolean resumed, long startTime, long previous)
+    {
+        long elapsed = System.nanoTime() - startTime;
+
+        return new MigrationStatistics(step.getName(), step.getVersion(),
+            chunks, resumed, elapsed, previous + elapsed);
+    }
+
+
+    private void runSchemaChange(MigrationStep step, Progress progress, boolean complete, long elapsed) throws Exception
+    {
+        // Schema changes exclude readers.
+        SQLiteDatabase db = helper.openWritable();
+
+        try
+        {
+            helper.beginTransaction(db);
+
+            try
+            {
+                if (complete)
+                {
+                    step.complete(db);
+
+                    // The step is done. Forget it.
+                    db.execSQL("DELETE FROM " + PROGRESS_TABLE + " WHERE name = ?",
+                        new Object[] { progress.name });
+                }
+                else
+                {
+                    step.prepare(db);
+                    saveProgress(db, progress.name, PHASE_PREPARED, null, elapsed);
+                }
+
+                db.setTransactionSuccessful();
+            }
+            finally
+            {
+                db.endTransaction();
+            }
+        }
+        finally
+        {
+            helper.closeWritable(db);
+        }
+
+        if (complete == false)
+        {
+            progress.phase = PHASE_PREPARED;
+        }
+    }
+
+
+    private void runChunk(MigrationStep step, Progress progress, long elapsed) throws Exception
+    {
+        // Each chunk holds the write lock of the tables of the step, so
+        // readers never see rows move under them. closeWritable()
+        // notifies the listeners while the lock is still held.
+        SQLiteDatabase db = helper.openWritable(step.getTables());
+        String checkpoint;
+
+        try
+        {
+            helper.beginTransaction(db);
+
+            try
+            {
+                checkpoint = step.transform(db, progress.checkpoint, chunkSize);
+
+                // Commit the checkpoint together with the chunk.
+                saveProgress(db, progress.name,
+                    (checkpoint == null) ? PHASE_TRANSFORMED : PHASE_PREPARED, checkpoint, elapsed);
+
+                db.setTransactionSuccessful();
+            }
+            finally
+            {
+                db.endTransaction();
+            }
+        }
+        finally
+        {
+            helper.closeWritable(db);
+        }
+
+        progress.checkpoint = checkpoint;
+        progress.phase = (checkpoint == null) ? PHASE_TRANSFORMED : PHASE_PREPARED;
+    }
+
+
+    private static void saveProgress(SQLiteDatabase db, String name, int phase, String checkpoint, long elapsed)
+    {
+        db.execSQL("UPDATE " + PROGRESS_TABLE + " SET phase = ?, checkpoint = ?, elapsed = ? WHERE name = ?",
+            new Object[] { Integer.valueOf(phase), checkpoint, Long.valueOf(elapsed), name });
+    }
+}
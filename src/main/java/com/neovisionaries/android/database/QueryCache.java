@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+
+/**
+ * Cache of the results of read-only queries, invalidated by writes
+ * made through {@link BaseOpenHelper}.
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="comment">// Up to 1 MB of results.</span>
+ * QueryCache cache = <span class="keyword">new</span> QueryCache(helper, 1024 * 1024);
+ *
+ * <span class="comment">// The tables the query reads have to be declared.</span>
+ * CursorSnapshot result = cache.{@link #query(String, String[], String...) query}(
+ *     "SELECT * FROM config WHERE key = ?", <span class="keyword">new</span> String[] { key }, "config");
+ *
+ * <span class="comment">// Writers declare the tables they write.</span>
+ * SQLiteDatabase db = helper.{@link BaseOpenHelper#openWritable(String...) openWritable}("config");
+ * ......
+ * helper.closeWritable(db);  <span class="comment">// Entries reading "config" are invalidated.</span>
+ * </pre>
+ *
+ * <p>
+ * Entries are keyed by SQL and bind arguments, and results are stored
+ * as {@link CursorSnapshot}s, which are immutable and can be shared by
+ * threads. The total estimated size of the results is bounded, and the
+ * least recently used entries are evicted first.
+ * </p>
+ *
+ * <p>
+ * A write made through {@link BaseOpenHelper#openWritable(String...)}
+ * invalidates the entries which read any of the declared tables. A write
+ * made through {@link BaseOpenHelper#openWritable()} without declaring
+ * tables invalidates all the entries. Writes which bypass the helper are
+ * not detected; call {@link #invalidate(String...)} for them.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class QueryCache implements TableWriteListener
+{
+    private final BaseOpenHelper helper;
+    private final long maxSize;
+
+
+    /**
+     * Entries (least recently used first).
+     */
+    private final LinkedHashMap<List<String>, Entry> entries =
+        new LinkedHashMap<List<String>, Entry>(16, 0.75f, true);
+
+
+    /**
+     * Keys of the entries which read each table.
+     */
+    private final Map<String, Set<List<String>>> dependents =
+        new HashMap<String, Set<List<String>>>();
+
+
+    /**
+     * Versions of tables, incremented by writes. Used to detect writes
+     * which happen while a query is being executed.
+     */
+    private final Map<String, Long> versions = new HashMap<String, Long>();
+
+
+    /**
+     * Incremented by writes which did not declare tables.
+     */
+    private long globalVersion;
+
+
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+
+    /**
+     * Constructor. The cache registers itself to the helper
+     * by {@link BaseOpenHelper#addTableWriteListener(TableWriteListener)}.
+     *
+     * @param helper
+     *         The database open helper.
+     *
+     * @param maxSize
+     *         The maximum total of the estimated sizes of cached
+     *         results in bytes.
+     *
+     * @throws IllegalArgumentException
+     *         {@code helper} is {@code null} or {@code maxSize} is negative.
+     */
+    public QueryCache(BaseOpenHelper helper, long maxSize)
+    {
+        if (helper == null)
+        {
+            throw new IllegalArgumentException("helper is null.");
+        }
+
+        if (maxSize < 0)
+        {
+            throw new IllegalArgumentException("maxSize is negative.");
+        }
+
+        this.helper  = helper;
+        this.maxSize = maxSize;
+
+        helper.addTableWriteListener(this);
+    }
+
+
+    /**
+     * Execute a read-only query, or return the cached result.
+     *
+     * @param sql
+     *         SQL of the query.
+     *
+     * @param selectionArgs
+     *         Bind arguments. May be {@code null}.
+     *
+     * @param tables
+     *         The tables which the query reads. At least one table has
+     *         to be given.
+     *
+     * @return
+     *         The result of the query.
+     *
+     * @throws IllegalArgumentException
+     *         {@code sql} is {@code null} or no table is given.
+     */
+    public CursorSnapshot query(String sql, String[] selectionArgs, String... tables)
+    {
+        if (sql == null)
+        {
+            throw new IllegalArgumentException("sql is null.");
+        }
+
+        if (tables == null || tables.length == 0)
+        {
+            throw new IllegalArgumentException("No table is given.");
+        }
+
+        List<String> key = toKey(sql, selectionArgs);
+        long[] versionsBefore;
+
+        synchronized (this)
+        {
+            Entry entry = entries.get(key);
+
+            if (entry != null)
+            {
+                ++hitCount;
+                return entry.result;
+            }
+
+            ++missCount;
+
+            versionsBefore = getVersions(tables);
+        }
+
+        CursorSnapshot result = execute(sql, selectionArgs, tables);
+
+        synchronized (this)
+        {
+            if (Arrays.equals(versionsBefore, getVersions(tables)))
+            {
+                // No write happened during the query.
+                put(key, new Entry(result, normalize(tables)));
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Invalidate the entries which read any of the given tables.
+     * If no table is given, all the entries are invalidated.
+     *
+     * @param tables
+     *         Tables which have been changed.
+     */
+    public synchronized void invalidate(String... tables)
+    {
+        if (tables == null || tables.length == 0)
+        {
+            ++globalVersion;
+            invalidationCount += entries.size();
+            entries.clear();
+            dependents.clear();
+            size = 0;
+            return;
+        }
+
+        for (String table : normalize(tables))
+        {
+            Long version = versions.get(table);
+            versions.put(table, Long.valueOf((version == null) ? 1 : version.longValue() + 1));
+
+            Set<List<String>> keys = dependents.remove(table);
+
+            if (keys == null)
+            {
+                continue;
+            }
+
+            for (List<String> key : keys)
+            {
+                if (remove(key))
+                {
+                    ++invalidationCount;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Called by the helper when tables have been written.
+     */
+    public void onTablesWritten(BaseOpenHelper helper, String[] tables)
+    {
+        invalidate(tables);
+    }
+
+
+    /**
+     * Unregister this cache from the helper and remove all the entries.
+     */
+    public void close()
+    {
+        helper.removeTableWriteListener(this);
+
+        invalidate();
+    }
+
+
+    /**
+     * Get a snapshot of the counters of this cache.
+     */
+    public synchronized CacheStatistics getStatistics()
+    {
+        return new CacheStatistics(hitCount, missCount, evictionCount, invalidationCount, entries.size());
+    }
+
+
+    /**
+     * Get the total of the estimated sizes of the cached results in bytes.
+     */
+    public synchronized long getSize()
+    {
+        return size;
+    }
+
+
+    private CursorSnapshot execute(String sql, String[] selectionArgs, String[] tables)
+    {
+        SQLiteDatabase db = helper.openReadable(tables);
+
+        try
+        {
+            Cursor cursor = db.rawQuery(sql, selectionArgs);
+
+            try
+            {
+                return CursorSnapshot.of(cursor);
+            }
+            finally
+            {
+                cursor.close();
+            }
+        }
+        finally
+        {
+            helper.closeReadable(db);
+        }
+    }
+
+
+    private void put(List<String> key, Entry entry)
+    {
+        if (maxSize < entry.size)
+        {
+            // Too large to cache.
+            return;
+        }
+
+        remove(key);
+
+        entries.put(key, entry);
+        size += entry.size;
+
+        for (String table : entry.tables)
+        {
+            Set<List<String>> keys = dependents.get(table);
+
+            if (keys == null)
+            {
+                keys = new HashSet<List<String>>();
+                dependents.put(table, keys);
+            }
+
+            keys.add(key);
+        }
+
+        // Evict the least recently used entries.
+        Iterator<Map.Entry<List<String>, Entry>> it = entries.entrySet().iterator();
+
+        while (maxSize < size && it.hasNext())
+        {
+            Map.Entry<List<String>, Entry> eldest = it.next();
+            it.remove();
+            forget(eldest.getKey(), eldest.getValue());
+            ++evictionCount;
+        }
+    }
+
+
+    private boolean remove(List<String> key)
+    {
+        Entry entry = entries.remove(key);
+
+        if (entry == null)
+        {
+            return false;
+        }
+
+        forget(key, entry);
+
+        return true;
+    }
+
+
+    private void forget(List<String> key, Entry entry)
+    {
+        size -= entry.size;
+
+        for (String table : entry.tables)
+        {
+            Set<List<String>> keys = dependents.get(table);
+
+            if (keys != null)
+            {
+                keys.remove(key);
+
+                if (keys.isEmpty())
+                {
+                    dependents.remove(table);
+                }
+            }
+        }
+    }
+
+
+    private long[] getVersions(String[] tables)
+    {
+        long[] result = new long[tables.length + 1];
+
+        result[0] = globalVersion;
+
+        for (int i = 0; i < tables.length; ++i)
+        {
+            Long version = versions.get(tables[i].toLowerCase(Locale.US));
+            result[i + 1] = (version == null) ? 0 : version.longValue();
+        }
+
+        return result;
+    }
+
+
+    private static List<String> toKey(String sql, String[] selectionArgs)
+    {
+        int count = (selectionArgs == null) ? 0 : selectionArgs.length;
+        List<String> key = new ArrayList<String>(count + 1);
+
+        key.add(sql);
+
+        for (int i = 0; i < count; ++i)
+        {
+            key.add(selectionArgs[i]);
+        }
+
+        return key;
+    }
+
+
+    private static String[] normalize(String[] tables)
+    {
+        // Table names are case-insensitive in SQLite.
+        String[] normalized = new String[tables.length];
+
+        for (int i = 0; i < tables.length; ++i)
+        {
+            normalized[i] = tables[i].toLowerCase(Locale.US);
+        }
+
+        return normalized;
+    }
+
+
+    private static class Entry
+    {
+        public final CursorSnapshot result;
+        public final String[] tables;
+        public final long size;
+
+
+        public Entry(CursorSnapshot result, String[] tables)
+        {
+            this.result = result;
+            this.tables = tables;
+            this.size   = result.estimateSize();
+        }
+    }
+}
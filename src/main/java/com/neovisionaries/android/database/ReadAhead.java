@@ -0,0 +1,464 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import android.database.AbstractWindowedCursor;
+import android.database.Cursor;
+import android.database.CursorWindow;
+import android.database.sqlite.SQLiteDatabase;
+
+
+/**
+ * Read-ahead of the windows of a windowed cursor, used by {@link BaseCursor}.
+ *
+ * <p>
+ * When the reader gets close to the end of the current window, the next
+ * range of rows is queried again with {@code LIMIT} and {@code OFFSET} on
+ * a worker thread and copied into a new {@link CursorWindow}. When the
+ * reader moves into the range, the window is handed to the cursor by
+ * {@link AbstractWindowedCursor#setWindow(CursorWindow)}, so the cursor
+ * does not fill the window by itself.
+ * </p>
+ *
+ * <p>
+ * The reader never waits for the worker. If the window is not ready yet
+ * when the reader moves into the range (for example, because the reader
+ * holds a transaction which the query of the worker waits for), the
+ * read-ahead is discarded and the cursor fills the window as usual. The
+ * worker closes windows which nobody has claimed.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+final class ReadAhead
+{
+    /**
+     * The read-ahead starts when the reader has passed this fraction
+     * (in quarters) of the current window.
+     */
+    private static final int TRIGGER_QUARTERS = 3;
+
+
+    private static ExecutorService worker;
+
+
+    private final AbstractWindowedCursor cursor;
+    private final SQLiteDatabase db;
+    private final String sql;
+    private final String[] selectionArgs;
+
+
+    private Filler pending;
+    private int pendingStart;
+    private int pendingRows;
+    private boolean closed;
+
+
+    private long windowCount;
+    private long prefetchedCount;
+    private long totalWaitTime;
+    private long maxWaitTime;
+
+
+    public ReadAhead(AbstractWindowedCursor cursor, SQLiteDatabase db, String sql, String[] selectionArgs)
+    {
+        this.cursor        = cursor;
+        this.db            = db;
+        this.sql           = sql;
+        this.selectionArgs = selectionArgs;
+    }
+
+
+    /**
+     * Called before the reader moves to the given position.
+     *
+     * @return
+     *         The time when the move started if the move leaves the
+     *         current window, or -1 otherwise.
+     */
+    public long beforeMove(int position)
+    {
+        int count = cursor.getCount();
+
+        if (position < 0 || count <= position)
+        {
+            return -1;
+        }
+
+        CursorWindow window = cursor.getWindow();
+
+        if (window != null && contains(window.getStartPosition(), window.getNumRows(), position))
+        {
+            prefetchIfNear(window, position, count);
+            return -1;
+        }
+
+        long startTime = System.nanoTime();
+        CursorWindow next = takePrefetched(position);
+
+        if (next != null)
+        {
+            // The cursor won't fill a window for the position.
+            cursor.setWindow(next);
+            ++prefetchedCount;
+        }
+
+        return startTime;
+    }
+
+
+    /**
+     * Called after the reader moved.
+     *
+     * @param startTime
+     *         The value returned by {@link #beforeMove(int)}.
+     */
+    public void afterMove(long startTime)
+    {
+        if (startTime < 0)
+        {
+            return;
+        }
+
+        long waitTime = System.nanoTime() - startTime;
+
+        ++windowCount;
+        totalWaitTime += waitTime;
+        maxWaitTime = Math.max(maxWaitTime, waitTime);
+
+        CursorWindow window = cursor.getWindow();
+        int position = cursor.getPosition();
+
+        if (window != null && contains(window.getStartPosition(), window.getNumRows(), position))
+        {
+            prefetchIfNear(window, position, cursor.getCount());
+        }
+    }
+
+
+    public ReadAheadStatistics getStatistics()
+    {
+        return new ReadAheadStatistics(windowCount, prefetchedCount, totalWaitTime, maxWaitTime);
+    }
+
+
+    /**
+     * Stop the read-ahead and release the window being filled.
+     */
+    public void close()
+    {
+        closed = true;
+
+        discardPending();
+    }
+
+
+    private void prefetchIfNear(CursorWindow window, int position, int count)
+    {
+        int start = window.getStartPosition();
+        int rows  = window.getNumRows();
+        int end   = start + rows;
+
+        if (closed || (pending != null && pendingStart == end))
+        {
+            // Closed, or already requested.
+            return;
+        }
+
+        if (count <= end || position - start < rows * TRIGGER_QUARTERS / 4)
+        {
+            // No more rows, or not close to the end yet.
+            return;
+        }
+
+        discardPending();
+
+        pendingStart = end;
+        pendingRows  = rows;
+        pending      = new Filler(end, rows);
+
+        getWorker().execute(pending);
+    }
+
+
+    private CursorWindow takePrefetched(int position)
+    {
+        if (pending == null)
+        {
+            return null;
+        }
+
+        if (contains(pendingStart, pendingRows, position) == false)
+        {
+            // Jumped elsewhere.
+            discardPending();
+            return null;
+        }
+
+        Filler filler = pending;
+        pending = null;
+
+        // Don't wait for the worker. If the window is not ready,
+        // the cursor fills a window normally.
+        CursorWindow window = filler.take();
+
+        if (window != null && contains(window.getStartPosition(), window.getNumRows(), position) == false)
+        {
+            // Fewer rows than expected (e.g. the window became full).
+            window.close();
+            return null;
+        }
+
+        return window;
+    }
+
+
+    private void discardPending()
+    {
+        if (pending == null)
+        {
+            return;
+        }
+
+        Filler filler = pending;
+        pending = null;
+
+        // Don't wait for the worker. A running filler closes
+        // the window by itself.
+        CursorWindow window = filler.take();
+
+        if (window != null)
+        {
+            window.close();
+        }
+    }
+
+
+    private static boolean contains(int start, int rows, int position)
+    {
+        return start <= position && position < start + rows;
+    }
+
+
+    private static synchronized ExecutorService getWorker()
+    {
+        if (worker == null)
+        {
+            worker = Executors.newSingleThreadExecutor(new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, "BaseCursor-readahead");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return worker;
+    }
+
+
+    /**
+     * Task to fill a window on the worker thread.
+     */
+    private class Filler implements Runnable
+    {
+        private final int start;
+        private final int rows;
+
+
+        /**
+         * The filled window, until it is taken.
+         */
+        private CursorWindow window;
+
+
+        /**
+         * True when the task has finished.
+         */
+        private boolean done;
+
+
+        /**
+         * True when the window has been taken or discarded.
+         */
+        private boolean taken;
+
+
+        public Filler(int start, int rows)
+        {
+            this.start = start;
+            this.rows  = rows;
+        }
+
+
+        public void run()
+        {
+            synchronized (this)
+            {
+                if (taken)
+                {
+                    // Discarded before started.
+                    return;
+                }
+            }
+
+            CursorWindow filled;
+
+            try
+            {
+                filled = fill();
+            }
+            catch (RuntimeException e)
+            {
+                // The query failed. The cursor fills the window normally.
+                filled = null;
+            }
+
+            synchronized (this)
+            {
+                if (taken == false)
+                {
+                    window = filled;
+                    done   = true;
+                    return;
+                }
+            }
+
+            // Nobody claims the window.
+            if (filled != null)
+            {
+                filled.close();
+            }
+        }
+
+
+        /**
+         * Take the window without waiting. After this method is called,
+         * the window is closed by the task if it is not ready yet.
+         *
+         * @return
+         *         The window, or {@code null} if it is not ready or
+         *         the query failed.
+         */
+        public synchronized CursorWindow take()
+        {
+            taken = true;
+
+            if (done == false)
+            {
+                return null;
+            }
+
+            CursorWindow filled = window;
+            window = null;
+
+            return filled;
+        }
+
+
+        private CursorWindow fill()
+        {
+            Cursor source = db.rawQuery(
+                "SELECT * FROM (" + sql + ") LIMIT " + rows + " OFFSET " + start, selectionArgs);
+
+            try
+            {
+                return copy(source);
+            }
+            finally
+            {
+                source.close();
+            }
+        }
+
+
+        private CursorWindow copy(Cursor source)
+        {
+            int columnCount = source.getColumnCount();
+            // Used only in this process.
+            CursorWindow window = new CursorWindow(true);
+
+            window.setStartPosition(start);
+            window.setNumColumns(columnCount);
+
+            int position = start;
+
+            for (boolean ok = source.moveToFirst(); ok; ok = source.moveToNext(), ++position)
+            {
+                if (window.allocRow() == false)
+                {
+                    // The window is full.
+                    break;
+                }
+
+                if (copyRow(source, window, position, columnCount) == false)
+                {
+                    // The window is full.
+                    window.freeLastRow();
+                    break;
+                }
+            }
+
+            return window;
+        }
+
+
+        private boolean copyRow(Cursor source, CursorWindow window, int position, int columnCount)
+        {
+            for (int column = 0; column < columnCount; ++column)
+            {
+                boolean ok;
+
+                switch (CursorTypes.getType(source, column))
+                {
+                    case CursorTypes.FIELD_TYPE_NULL:
+                        ok = window.putNull(position, column);
+                        break;
+
+                    case CursorTypes.FIELD_TYPE_INTEGER:
+                        ok = window.putLong(source.getLong(column), position, column);
+                        break;
+
+                    case CursorTypes.FIELD_TYPE_FLOAT:
+                        ok = window.putDouble(source.getDouble(column), position, column);
+                        break;
+
+                    case CursorTypes.FIELD_TYPE_BLOB:
+                        ok = window.putBlob(source.getBlob(column), position, column);
+                        break;
+
+                    default:
+                        ok = window.putString(source.getString(column), position, column);
+                        break;
+                }
+
+                if (ok == false)
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Snapshot of the counters of the read-ahead of a {@link BaseCursor}.
+ *
+ * @see BaseCursor#getReadAheadStatistics()
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class ReadAheadStatistics
+{
+    private final long windowCount;
+    private final long prefetchedCount;
+    private final long totalWaitTime;
+    private final long maxWaitTime;
+
+
+    ReadAheadStatistics(long windowCount, long prefetchedCount, long totalWaitTime, long maxWaitTime)
+    {
+        this.windowCount     = windowCount;
+        this.prefetchedCount = prefetchedCount;
+        this.totalWaitTime   = totalWaitTime;
+        this.maxWaitTime     = maxWaitTime;
+    }
+
+
+    /**
+     * Get the number of times the reader moved out of the current window.
+     */
+    public long getWindowCount()
+    {
+        return windowCount;
+    }
+
+
+    /**
+     * Get the number of windows which were filled by the read-ahead.
+     */
+    public long getPrefetchedCount()
+    {
+        return prefetchedCount;
+    }
+
+
+    /**
+     * Get the number of windows which the reader had to fill by itself.
+     */
+    public long getMissCount()
+    {
+        return windowCount - prefetchedCount;
+    }
+
+
+    /**
+     * Get the total time the reader waited for windows, that is, for the
+     * read-ahead to complete or for the window to be filled by itself.
+     */
+    public long getTotalWaitTime(TimeUnit unit)
+    {
+        return unit.convert(totalWaitTime, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Get the longest time the reader waited for a window.
+     */
+    public long getMaxWaitTime(TimeUnit unit)
+    {
+        return unit.convert(maxWaitTime, TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Get the average time the reader waited per window.
+     */
+    public long getAverageWaitTime(TimeUnit unit)
+    {
+        if (windowCount == 0)
+        {
+            return 0;
+        }
+
+        return unit.convert(totalWaitTime / windowCount, TimeUnit.NANOSECONDS);
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "ReadAheadStatistics(windows=%d, prefetched=%d, misses=%d, averageWait=%dus, maxWait=%dus)",
+            windowCount, prefetchedCount, getMissCount(),
+            getAverageWaitTime(TimeUnit.MICROSECONDS), getMaxWaitTime(TimeUnit.MICROSECONDS));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+
+/**
+ * {@code Future} whose result is set from outside.
+ *
+ * @param <T>
+ *         The type of the result.
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+class ResultFuture<T> extends FutureTask<T>
+{
+    public ResultFuture()
+    {
+        super(new Callable<T>()
+        {
+            public T call()
+            {
+                throw new IllegalStateException("The result is set from outside.");
+            }
+        });
+    }
+
+
+    @Override
+    public void set(T result)
+    {
+        super.set(result);
+    }
+
+
+    @Override
+    public void setException(Throwable cause)
+    {
+        super.setException(cause);
+    }
+}
@@ -0,0 +1,515 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import android.database.Cursor;
+
+
+/**
+ * Mapper from rows of a cursor to objects.
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="keyword">public class</span> Person
+ * {
+ *     <span class="keyword">private long</span> id;
+ *     <span class="keyword">private</span> String firstName;   <span class="comment">// Mapped to "first_name".</span>
+ *
+ *     {@link ColumnName @ColumnName}(<span class="keyword">"years"</span>)
+ *     <span class="keyword">private int</span> age;
+ * }
+ *
+ * RowMapper&lt;Person&gt; mapper = RowMapper.{@link #forClass(Class) forClass}(Person.<span class="keyword">class</span>);
+ * List&lt;Person&gt; people = mapper.{@link #mapAll(Cursor) mapAll}(cursor);
+ * </pre>
+ *
+ * <p>
+ * Non-static, non-final, non-transient fields of the class and its
+ * superclasses are mapped to columns (see {@link ColumnName} for the
+ * naming rule). The class must have a constructor without parameters.
+ * Supported field types are {@code int}, {@code long}, {@code short},
+ * {@code float}, {@code double}, {@code boolean}, their wrapper types,
+ * {@code String} and {@code byte[]}. Fields without a corresponding
+ * column are left untouched.
+ * </p>
+ *
+ * <p>
+ * Reflection lookups are performed once per class, and the binding of
+ * fields to column indexes is computed once per (class, column layout)
+ * pair and cached. Mapping a row allocates nothing but the target object
+ * (and the values of non-primitive fields). Instances are thread-safe.
+ * </p>
+ *
+ * @param <T>
+ *         The type of the objects.
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class RowMapper<T>
+{
+    private static final int KIND_INT           = 0;
+    private static final int KIND_LONG          = 1;
+    private static final int KIND_SHORT         = 2;
+    private static final int KIND_FLOAT         = 3;
+    private static final int KIND_DOUBLE        = 4;
+    private static final int KIND_BOOLEAN       = 5;
+    private static final int KIND_INTEGER_BOXED = 6;
+    private static final int KIND_LONG_BOXED    = 7;
+    private static final int KIND_SHORT_BOXED   = 8;
+    private static final int KIND_FLOAT_BOXED   = 9;
+    private static final int KIND_DOUBLE_BOXED  = 10;
+    private static final int KIND_BOOLEAN_BOXED = 11;
+    private static final int KIND_STRING        = 12;
+    private static final int KIND_BLOB          = 13;
+
+
+    /**
+     * Mappers per class.
+     */
+    private static final Map<Class<?>, RowMapper<?>> mappers = new HashMap<Class<?>, RowMapper<?>>();
+
+
+    private final Constructor<T> constructor;
+    private final Field[] fields;
+    private final String[] keys;
+    private final int[] kinds;
+
+
+    /**
+     * Binding plans per column layout.
+     */
+    private final Map<ColumnIndexCache, Plan> plans = new WeakHashMap<ColumnIndexCache, Plan>();
+
+
+    /**
+     * The plan used last time, checked before the synchronized lookup.
+     */
+    private volatile LastPlan lastPlan;
+
+
+    private RowMapper(Class<T> type)
+    {
+        try
+        {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        }
+        catch (NoSuchMethodException e)
+        {
+            throw new IllegalArgumentException(type.getName() + " does not have a constructor without parameters.");
+        }
+
+        List<Field> fieldList = new ArrayList<Field>();
+        List<Integer> kindList = new ArrayList<Integer>();
+
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass())
+        {
+            for (Field field : c.getDeclaredFields())
+            {
+                int modifiers = field.getModifiers();
+
+                if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isTransient(modifiers))
+                {
+                    continue;
+                }
+
+                int kind = toKind(field.getType());
+
+                if (kind < 0)
+                {
+                    // Unsupported type.
+                    continue;
+                }
+
+                field.setAccessible(true);
+                fieldList.add(field);
+                kindList.add(Integer.valueOf(kind));
+            }
+        }
+
+        fields = fieldList.toArray(new Field[fieldList.size()]);
+        keys   = new String[fields.length];
+        kinds  = new int[fields.length];
+
+        for (int i = 0; i < fields.length; ++i)
+        {
+            ColumnName annotation = fields[i].getAnnotation(ColumnName.class);
+
+            keys[i]  = normalize((annotation != null) ? annotation.value() : fields[i].getName());
+            kinds[i] = kindList.get(i).intValue();
+        }
+    }
+
+
+    /**
+     * Get the mapper for the given class.
+     *
+     * @param type
+     *         The class of the objects.
+     *
+     * @return
+     *         The mapper (shared per class).
+     *
+     * @throws IllegalArgumentException
+     *         {@code type} is {@code null} or does not have a constructor
+     *         without parameters.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> forClass(Class<T> type)
+    {
+        if (type == null)
+        {
+            throw new IllegalArgumentException("type is null.");
+        }
+
+        synchronized (mappers)
+        {
+            RowMapper<T> mapper = (RowMapper<T>)mappers.get(type);
+
+            if (mapper == null)
+            {
+                mapper = new RowMapper<T>(type);
+                mappers.put(type, mapper);
+            }
+
+            return mapper;
+        }
+    }
+
+
+    /**
+     * Create an object from the current row of the cursor.
+     *
+     * <p>
+     * To avoid the allocation of a column layout key per call, pass a
+     * {@link BaseCursor}, whose column layout is resolved only once.
+     * </p>
+     *
+     * @param cursor
+     *         A cursor positioned at a row.
+     *
+     * @return
+     *         A new object filled with the values of the row.
+     */
+    public T map(Cursor cursor)
+    {
+        Plan plan = getPlan(cursor);
+        T object = newInstance();
+
+        plan.fill(cursor, object);
+
+        return object;
+    }
+
+
+    /**
+     * Fill the given object with the values of the current row of the cursor.
+     *
+     * @param cursor
+     *         A cursor positioned at a row.
+     *
+     * @param target
+     *         The object to fill.
+     */
+    public void map(Cursor cursor, T target)
+    {
+        getPlan(cursor).fill(cursor, target);
+    }
+
+
+    /**
+     * Create objects from all the rows of the cursor. The position
+     * of the cursor is moved to after the last row.
+     *
+     * @param cursor
+     *         A cursor.
+     *
+     * @return
+     *         A list of new objects.
+     */
+    public List<T> mapAll(Cursor cursor)
+    {
+        Plan plan = getPlan(cursor);
+        List<T> list = new ArrayList<T>(Math.max(0, cursor.getCount()));
+
+        while (cursor.moveToNext())
+        {
+            T object = newInstance();
+            plan.fill(cursor, object);
+            list.add(object);
+        }
+
+        return list;
+    }
+
+
+    private Plan getPlan(Cursor cursor)
+    {
+        if (cursor == null)
+        {
+            throw new IllegalArgumentException("cursor is null.");
+        }
+
+        ColumnIndexCache layout = (cursor instanceof BaseCursor)
+            ? ((BaseCursor)cursor).getColumnIndexCache()
+            : ColumnIndexCache.getInstance(cursor);
+
+        LastPlan last = lastPlan;
+
+        if (last != null && last.layout == layout)
+        {
+            // Mapping rows of the same layout repeatedly.
+            return last.plan;
+        }
+
+        Plan plan;
+
+        synchronized (plans)
+        {
+            plan = plans.get(layout);
+
+            if (plan == null)
+            {
+                plan = new Plan(layout.getColumnNames());
+                plans.put(layout, plan);
+            }
+        }
+
+        lastPlan = new LastPlan(layout, plan);
+
+        return plan;
+    }
+
+
+    private T newInstance()
+    {
+        try
+        {
+            return constructor.newInstance();
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException("Failed to create an instance of "
+                + constructor.getDeclaringClass().getName() + ": " + e, e);
+        }
+    }
+
+
+    private static int toKind(Class<?> type)
+    {
+        if (type == int.class)     return KIND_INT;
+        if (type == long.class)    return KIND_LONG;
+        if (type == short.class)   return KIND_SHORT;
+        if (type == float.class)   return KIND_FLOAT;
+        if (type == double.class)  return KIND_DOUBLE;
+        if (type == boolean.class) return KIND_BOOLEAN;
+        if (type == Integer.class) return KIND_INTEGER_BOXED;
+        if (type == Long.class)    return KIND_LONG_BOXED;
+        if (type == Short.class)   return KIND_SHORT_BOXED;
+        if (type == Float.class)   return KIND_FLOAT_BOXED;
+        if (type == Double.class)  return KIND_DOUBLE_BOXED;
+        if (type == Boolean.class) return KIND_BOOLEAN_BOXED;
+        if (type == String.class)  return KIND_STRING;
+        if (type == byte[].class)  return KIND_BLOB;
+
+        return -1;
+    }
+
+
+    private static String normalize(String name)
+    {
+        StringBuilder builder = new StringBuilder(name.length());
+
+        for (int i = 0; i < name.length(); ++i)
+        {
+            char ch = name.charAt(i);
+
+            if (ch != '_')
+            {
+                builder.append(ch);
+            }
+        }
+
+        return builder.toString().toLowerCase(Locale.US);
+    }
+
+
+    private static boolean getBoolean(Cursor cursor, int index)
+    {
+        if (cursor instanceof BaseCursor)
+        {
+            return ((BaseCursor)cursor).getBoolean(index);
+        }
+
+        return Boolean.valueOf(cursor.getString(index)).booleanValue();
+    }
+
+
+    private final class LastPlan
+    {
+        public final ColumnIndexCache layout;
+        public final Plan plan;
+
+
+        public LastPlan(ColumnIndexCache layout, Plan plan)
+        {
+            this.layout = layout;
+            this.plan   = plan;
+        }
+    }
+
+
+    /**
+     * Binding of the fields to the column indexes of a column layout.
+     */
+    private final class Plan
+    {
+        private final Field[] boundFields;
+        private final int[] boundKinds;
+        private final int[] columnIndexes;
+
+
+        public Plan(String[] columnNames)
+        {
+            Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+            for (int i = columnNames.length - 1; 0 <= i; --i)
+            {
+                indexes.put(normalize(columnNames[i]), Integer.valueOf(i));
+            }
+
+            List<Integer> bound = new ArrayList<Integer>();
+
+            for (int i = 0; i < fields.length; ++i)
+            {
+                if (indexes.containsKey(keys[i]))
+                {
+                    bound.add(Integer.valueOf(i));
+                }
+            }
+
+            boundFields   = new Field[bound.size()];
+            boundKinds    = new int[bound.size()];
+            columnIndexes = new int[bound.size()];
+
+            for (int i = 0; i < boundFields.length; ++i)
+            {
+                int f = bound.get(i).intValue();
+
+                boundFields[i]   = fields[f];
+                boundKinds[i]    = kinds[f];
+                columnIndexes[i] = indexes.get(keys[f]).intValue();
+            }
+        }
+
+
+        public void fill(Cursor cursor, Object target)
+        {
+            try
+            {
+                for (int i = 0; i < boundFields.length; ++i)
+                {
+                    set(cursor, target, boundFields[i], boundKinds[i], columnIndexes[i]);
+                }
+            }
+            catch (IllegalAccessException e)
+            {
+                // This does not happen because setAccessible(true) has been called.
+                throw new IllegalStateException(e.toString(), e);
+            }
+        }
+
+
+        private void set(Cursor cursor, Object target, Field field, int kind, int index) throws IllegalAccessException
+        {
+            boolean isNull = cursor.isNull(index);
+
+            switch (kind)
+            {
+                case KIND_INT:
+                    field.setInt(target, isNull ? 0 : cursor.getInt(index));
+                    break;
+
+                case KIND_LONG:
+                    field.setLong(target, isNull ? 0 : cursor.getLong(index));
+                    break;
+
+                case KIND_SHORT:
+                    field.setShort(target, isNull ? 0 : cursor.getShort(index));
+                    break;
+
+                case KIND_FLOAT:
+                    field.setFloat(target, isNull ? 0 : cursor.getFloat(index));
+                    break;
+
+                case KIND_DOUBLE:
+                    field.setDouble(target, isNull ? 0 : cursor.getDouble(index));
+                    break;
+
+                case KIND_BOOLEAN:
+                    field.setBoolean(target, isNull ? false : getBoolean(cursor, index));
+                    break;
+
+                case KIND_INTEGER_BOXED:
+                    field.set(target, isNull ? null : Integer.valueOf(cursor.getInt(index)));
+                    break;
+
+                case KIND_LONG_BOXED:
+                    field.set(target, isNull ? null : Long.valueOf(cursor.getLong(index)));
+                    break;
+
+                case KIND_SHORT_BOXED:
+                    field.set(target, isNull ? null : Short.valueOf(cursor.getShort(index)));
+                    break;
+
+                case KIND_FLOAT_BOXED:
+                    field.set(target, isNull ? null : Float.valueOf(cursor.getFloat(index)));
+                    break;
+
+                case KIND_DOUBLE_BOXED:
+                    field.set(target, isNull ? null : Double.valueOf(cursor.getDouble(index)));
+                    break;
+
+                case KIND_BOOLEAN_BOXED:
+                    field.set(target, isNull ? null : Boolean.valueOf(getBoolean(cursor, index)));
+                    break;
+
+                case KIND_STRING:
+                    field.set(target, cursor.getString(index));
+                    break;
+
+                case KIND_BLOB:
+                    field.set(target, cursor.getBlob(index));
+                    break;
+            }
+        }
+    }
+}
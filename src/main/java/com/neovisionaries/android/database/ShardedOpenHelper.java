@@ -0,0 +1,853 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDatabase.CursorFactory;
+import com.neovisionaries.android.app.App;
+
+
+/**
+ * Database open helper which spreads rows over several database files
+ * (shards), each of which is managed by its own {@link BaseOpenHelper}
+ * and therefore has its own lock.
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * <span class="comment">// "data_0.db", "data_1.db", "data_2.db" and "data_3.db".</span>
+ * MyShardedHelper helper = <span class="keyword">new</span> MyShardedHelper(context, "data.db", 4);
+ *
+ * <span class="comment">// Write to the shard of the key.</span>
+ * BaseOpenHelper shard = helper.{@link #getShardFor(Object) getShardFor}(userId);
+ * SQLiteDatabase db = shard.openWritable("message");
+ * ......
+ * shard.closeWritable(db);
+ *
+ * <span class="comment">// Read all the shards in parallel and merge the sorted results.</span>
+ * CursorSnapshot messages = helper.{@link #query(String, String[], String, String...) query}(
+ *     "SELECT * FROM message WHERE unread = 1", <span class="keyword">null</span>, "time DESC", "message");
+ * </pre>
+ *
+ * <p>
+ * Writers of different shards do not wait for each other, so the write
+ * throughput scales with the number of shards as long as the keys are
+ * spread evenly. A transaction cannot span shards.
+ * </p>
+ *
+ * <p>
+ * Rows are routed by {@code key.hashCode()}, so the hash code of keys must
+ * be stable across processes (e.g. {@code String}, {@code Long}, {@code
+ * Integer}), and the number of shards must not be changed once data has
+ * been written. {@link #onCreate(SQLiteDatabase)} and {@link
+ * #onUpgrade(SQLiteDatabase, int, int)} are applied to every shard; call
+ * {@link #initialize()} to apply them to all the shards at once.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public abstract class ShardedOpenHelper
+{
+    private final Shard[] shards;
+    private final ExecutorService executor;
+
+
+    /**
+     * Constructor.
+     *
+     * @param context
+     *         A context.
+     *
+     * @param name
+     *         The base name of the database files. See {@link
+     *         #getShardName(String, int)}.
+     *
+     * @param factory
+     *         A cursor factory, or {@code null}.
+     *
+     * @param version
+     *         The version of the schema.
+     *
+     * @param shardCount
+     *         The number of shards.
+     *
+     * @throws IllegalArgumentException
+     *         {@code name} is {@code null} or {@code shardCount} is less than 1.
+     */
+    public ShardedOpenHelper(Context context, String name, CursorFactory factory, int version, int shardCount)
+    {
+        if (name == null)
+        {
+            throw new IllegalArgumentException("name is null.");
+        }
+
+        if (shardCount < 1)
+        {
+            throw new IllegalArgumentException("shardCount is less than 1.");
+        }
+
+        shards = new Shard[shardCount];
+
+        for (int i = 0; i < shardCount; ++i)
+        {
+            shards[i] = new Shard(context, getShardName(name, i), factory, version);
+        }
+
+        executor = Executors.newFixedThreadPool(shardCount, new ThreadFactory()
+        {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "ShardedOpenHelper-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+
+    /**
+     * Constructor. This constructor does the following.
+     *
+     * <pre style="border: 1px solid black; margin: 0.5em; padding: 0.5em;">
+     * {@link #ShardedOpenHelper(Context, String, CursorFactory, int, int)
+     * this}({@link App}.{@link App#getInstance() getInstance()}.{@link
+     * App#getContext() getContext()}, name, factory, version, shardCount);</pre>
+     */
+    public ShardedOpenHelper(String name, CursorFactory factory, int version, int shardCount)
+    {
+        this(App.getInstance().getContext(), name, factory, version, shardCount);
+    }
+
+
+    /**
+     * Called when the database of a shard is created.
+     * See {@link android.database.sqlite.SQLiteOpenHelper#onCreate(SQLiteDatabase)}.
+     */
+    public abstract void onCreate(SQLiteDatabase db);
+
+
+    /**
+     * Called when the database of a shard needs to be upgraded. See
+     * {@link android.database.sqlite.SQLiteOpenHelper#onUpgrade(SQLiteDatabase, int, int)}.
+     */
+    public abstract void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion);
+
+
+    /**
+     * Called when the database of a shard has been opened.
+     * The default implementation does nothing.
+     */
+    public void onOpen(SQLiteDatabase db)
+    {
+    }
+
+
+    /**
+     * Get the file name of a shard. If {@code name} ends with {@code
+     * ".db"}, the index is inserted before it ({@code "data.db"} &rarr;
+     * {@code "data_0.db"}). Otherwise, it is appended ({@code "data"}
+     * &rarr; {@code "data_0"}).
+     */
+    public static String getShardName(String name, int index)
+    {
+        if (name.endsWith(".db"))
+        {
+            return name.substring(0, name.length() - 3) + "_" + index + ".db";
+        }
+
+        return name + "_" + index;
+    }
+
+
+    /**
+     * Get the number of shards.
+     */
+    public int getShardCount()
+    {
+        return shards.length;
+    }
+
+
+    /**
+     * Get the helper of a shard.
+     *
+     * @param index
+     *         The index of the shard.
+     */
+    public BaseOpenHelper getShard(int index)
+    {
+        return shards[index];
+    }
+
+
+    /**
+     * Get the index of the shard of the given key.
+     *
+     * @param key
+     *         A key whose hash code is stable across processes.
+     *
+     * @throws IllegalArgumentException
+     *         {@code key} is {@code null}.
+     */
+    public int getShardIndex(Object key)
+    {
+        if (key == null)
+        {
+            throw new IllegalArgumentException("key is null.");
+        }
+
+        // Spread the bits of weak hash codes (e.g. sequential IDs of Long).
+        int hash = key.hashCode() * 0x9E3779B9;
+
+        return ((hash ^ (hash >>> 16)) & 0x7fffffff) % shards.length;
+    }
+
+
+    /**
+     * Get the helper of the shard of the given key.
+     *
+     * @param key
+     *         A key whose hash code is stable across processes.
+     *
+     * @throws IllegalArgumentException
+     *         {@code key} is {@code null}.
+     */
+    public BaseOpenHelper getShardFor(Object key)
+    {
+        return shards[getShardIndex(key)];
+    }
+
+
+    /**
+     * Open every shard in write mode once so that {@link
+     * #onCreate(SQLiteDatabase)} and {@link #onUpgrade(SQLiteDatabase,
+     * int, int)} are applied to all the shards now, in parallel.
+     *
+     * @throws InterruptedException
+     *         Interrupted while waiting.
+     *
+     * @throws ExecutionException
+     *         Opening a shard failed.
+     */
+    public void initialize() throws InterruptedException, ExecutionException
+    {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(shards.length);
+
+        for (final Shard shard : shards)
+        {
+            tasks.add(new Callable<Void>()
+            {
+                public Void call()
+                {
+                    shard.closeWritable(shard.openWritable());
+                    return null;
+                }
+            });
+        }
+
+        getAll(executor.invokeAll(tasks));
+    }
+
+
+    /**
+     * Execute the given read task on every shard in parallel. Each
+     * execution is done between {@link BaseOpenHelper#openReadable(String...)
+     * openReadable}{@code (tables)} and {@link
+     * BaseOpenHelper#closeReadable(SQLiteDatabase) closeReadable()} of
+     * the shard.
+     *
+     * @param task
+     *         A read task. Its result must not depend on the database
+     *         after it returns.
+     *
+     * @param tables
+     *         The tables the task reads.
+     *
+     * @return
+     *         The results in the order of the shards.
+     *
+     * @throws InterruptedException
+     *         Interrupted while waiting.
+     *
+     * @throws ExecutionException
+     *         The task failed on a shard.
+     */
+    public <T> List<T> scatter(final DatabaseTask<T> task, final String... tables)
+        throws InterruptedException, ExecutionException
+    {
+        if (task == null)
+        {
+            throw new IllegalArgumentException("task is null.");
+        }
+
+        List<Callable<T>> tasks = new ArrayList<Callable<T>>(shards.length);
+
+        for (final Shard shard : shards)
+        {
+            tasks.add(new Callable<T>()
+            {
+                public T call() throws Exception
+                {
+                    SQLiteDatabase db = shard.openReadable(tables);
+
+                    try
+                    {
+                        return task.execute(db);
+                    }
+                    finally
+                    {
+                        shard.closeReadable(db);
+                    }
+                }
+            });
+        }
+
+        return getAll(executor.invokeAll(tasks));
+    }
+
+
+    /**
+     * Execute a query on every shard in parallel and merge the results.
+     *
+     * <p>
+     * When {@code orderBy} is given, it is appended to the SQL as an
+     * {@code ORDER BY} clause, and the sorted results of the shards are
+     * merged in the same order, so the SQL must not have {@code ORDER BY}
+     * or {@code LIMIT} clauses of its own. Each term of {@code orderBy}
+     * has to be a column of the result optionally followed by {@code
+     * COLLATE BINARY} or {@code COLLATE NOCASE} and {@code ASC} or {@code
+     * DESC}. Values are compared as SQLite does (null &lt; numbers &lt;
+     * text &lt; blobs); text is compared in the order of its UTF-8 bytes
+     * as the {@code BINARY} collation of SQLite does on a UTF-8 database
+     * (the default on Android), and {@code NOCASE} folds only the ASCII
+     * letters as SQLite does. When {@code orderBy} is {@code null}, the
+     * results are simply concatenated in the order of the shards.
+     * </p>
+     *
+     * <p>
+     * The merge uses only the collations written in {@code orderBy}, not
+     * the ones declared in the schema. If a column is declared with
+     * {@code COLLATE NOCASE}, write {@code COLLATE NOCASE} in {@code
+     * orderBy}, too; otherwise, the shards sort the column with {@code
+     * NOCASE} but the merge compares it with {@code BINARY}.
+     * </p>
+     *
+     * @param sql
+     *         SQL without {@code ORDER BY} and {@code LIMIT} clauses
+     *         (except in subqueries) if {@code orderBy} is given.
+     *
+     * @param selectionArgs
+     *         Values which replace {@code ?}s in the SQL, or {@code null}.
+     *
+     * @param orderBy
+     *         Sort order such as {@code "time DESC, id"}, or {@code null}.
+     *
+     * @param tables
+     *         The tables the query reads.
+     *
+     * @return
+     *         The merged result.
+     *
+     * @throws IllegalArgumentException
+     *         {@code sql} is {@code null}, {@code orderBy} is given and
+     *         {@code sql} has an {@code ORDER BY} or {@code LIMIT} clause,
+     *         or a term of {@code orderBy} is not a column of the result
+     *         or has an unsupported collation.
+     *
+     * @throws InterruptedException
+     *         Interrupted while waiting.
+     *
+     * @throws ExecutionException
+     *         The query failed on a shard.
+     */
+    public CursorSnapshot query(String sql, final String[] selectionArgs, String orderBy, String... tables)
+        throws InterruptedException, ExecutionException
+    {
+        if (sql == null)
+        {
+            throw new IllegalArgumentException("sql is null.");
+        }
+
+        if (orderBy != null && hasOrderByOrLimit(sql))
+        {
+            // ORDER BY would be appended after the clause.
+            throw new IllegalArgumentException("sql has an ORDER BY or LIMIT clause.");
+        }
+
+        final String fullSql = (orderBy == null) ? sql : sql + " ORDER BY " + orderBy;
+
+        List<CursorSnapshot> results = scatter(new DatabaseTask<CursorSnapshot>()
+        {
+            public CursorSnapshot execute(SQLiteDatabase db)
+            {
+                Cursor cursor = db.rawQuery(fullSql, selectionArgs);
+
+                try
+                {
+                    return CursorSnapshot.of(cursor);
+                }
+                finally
+                {
+                    cursor.close();
+                }
+            }
+        }, tables);
+
+        CursorSnapshot[] parts = results.toArray(new CursorSnapshot[results.size()]);
+
+        if (parts.length == 1)
+        {
+            return parts[0];
+        }
+
+        int total = 0;
+
+        for (CursorSnapshot part : parts)
+        {
+            total += part.getRowCount();
+        }
+
+        int[] partIndexes = new int[total];
+        int[] rows = new int[total];
+
+        if (orderBy == null)
+        {
+            concatenate(parts, partIndexes, rows);
+        }
+        else
+        {
+            mergeSorted(parts, parseOrderBy(orderBy, parts[0]), partIndexes, rows);
+        }
+
+        return CursorSnapshot.merge(parts, partIndexes, rows);
+    }
+
+
+    /**
+     * Close all the shards and stop the threads for parallel reads.
+     */
+    public void close()
+    {
+        executor.shutdown();
+
+        for (Shard shard : shards)
+        {
+            shard.close();
+        }
+    }
+
+
+    private static <T> List<T> getAll(List<Future<T>> futures) throws InterruptedException, ExecutionException
+    {
+        List<T> results = new ArrayList<T>(futures.size());
+
+        for (Future<T> future : futures)
+        {
+            results.add(future.get());
+        }
+
+        return results;
+    }
+
+
+    private static void concatenate(CursorSnapshot[] parts, int[] partIndexes, int[] rows)
+    {
+        int index = 0;
+
+        for (int part = 0; part < parts.length; ++part)
+        {
+            for (int row = 0; row < parts[part].getRowCount(); ++row, ++index)
+            {
+                partIndexes[index] = part;
+                rows[index]        = row;
+            }
+        }
+    }
+
+
+    private static void mergeSorted(CursorSnapshot[] parts, SortKey[] keys, int[] partIndexes, int[] rows)
+    {
+        // The heads of the sorted results of the shards.
+        PriorityQueue<Head> heads = new PriorityQueue<Head>(parts.length);
+
+        for (int part = 0; part < parts.length; ++part)
+        {
+            if (0 < parts[part].getRowCount())
+            {
+                heads.add(new Head(parts, keys, part));
+            }
+        }
+
+        for (int index = 0; heads.isEmpty() == false; ++index)
+        {
+            Head head = heads.poll();
+
+            partIndexes[index] = head.part;
+            rows[index]        = head.row;
+
+            if (head.advance())
+            {
+                heads.add(head);
+            }
+        }
+    }
+
+
+    private static SortKey[] parseOrderBy(String orderBy, CursorSnapshot result)
+    {
+        String[] terms = orderBy.split(",");
+        SortKey[] keys = new SortKey[terms.length];
+
+        for (int i = 0; i < terms.length; ++i)
+        {
+            String term = terms[i].trim();
+            String[] words = term.split("\\s+");
+            int column = result.getColumnIndex(words[0]);
+
+            if (column < 0)
+            {
+                throw new IllegalArgumentException(
+                    "The term of orderBy is not a column of the result: " + term);
+            }
+
+            boolean noCase = false;
+            boolean descending = false;
+            int index = 1;
+
+            if (index < words.length && words[index].equalsIgnoreCase("COLLATE"))
+            {
+                String collation = (index + 1 < words.length) ? words[index + 1] : "";
+
+                if (collation.equalsIgnoreCase("NOCASE"))
+                {
+                    noCase = true;
+                }
+                else if (collation.equalsIgnoreCase("BINARY") == false)
+                {
+                    // The merge cannot compare values as the shards did.
+                    throw new IllegalArgumentException(
+                        "The collation of the term of orderBy is not supported: " + term);
+                }
+
+                index += 2;
+            }
+
+            if (index < words.length
+                    && (words[index].equalsIgnoreCase("ASC") || words[index].equalsIgnoreCase("DESC")))
+            {
+                descending = words[index].equalsIgnoreCase("DESC");
+                ++index;
+            }
+
+            if (index != words.length)
+            {
+                throw new IllegalArgumentException("The term of orderBy is not supported: " + term);
+            }
+
+            keys[i] = new SortKey(column, descending, noCase);
+        }
+
+        return keys;
+    }
+
+
+    /**
+     * Check if the given SQL has {@code ORDER BY} or {@code LIMIT}
+     * outside parentheses, string literals and quoted identifiers.
+     */
+    private static boolean hasOrderByOrLimit(String sql)
+    {
+        int depth = 0;
+        String previous = null;
+        int length = sql.length();
+
+        for (int i = 0; i < length; )
+        {
+            char ch = sql.charAt(i);
+
+            if (ch == '\'' || ch == '"' || ch == '`' || ch == '[')
+            {
+                // Skip the quoted part.
+                int end = sql.indexOf((ch == '[') ? ']' : ch, i + 1);
+                i = (end < 0) ? length : end + 1;
+                previous = null;
+                continue;
+            }
+
+            if (ch == '(' || ch == ')')
+            {
+                depth += (ch == '(') ? 1 : -1;
+                ++i;
+                previous = null;
+                continue;
+            }
+
+            if (Character.isLetter(ch) == false && ch != '_')
+            {
+                ++i;
+                continue;
+            }
+
+            int start = i;
+
+            while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_'))
+            {
+                ++i;
+            }
+
+            String word = sql.substring(start, i).toUpperCase(Locale.US);
+
+            if (depth == 0 && (word.equals("LIMIT") || (word.equals("BY") && "ORDER".equals(previous))))
+            {
+                return true;
+            }
+
+            previous = word;
+        }
+
+        return false;
+    }
+
+
+    private static int compare(CursorSnapshot a, int rowA, CursorSnapshot b, int rowB, SortKey key)
+    {
+        int column = key.column;
+        int typeA  = a.getType(rowA, column);
+        int typeB  = b.getType(rowB, column);
+        int rankA  = rank(typeA);
+        int rankB  = rank(typeB);
+
+        if (rankA != rankB)
+        {
+            return (rankA < rankB) ? -1 : 1;
+        }
+
+        switch (typeA == CursorTypes.FIELD_TYPE_FLOAT ? typeA : typeB)
+        {
+            case CursorTypes.FIELD_TYPE_NULL:
+                return 0;
+
+            case CursorTypes.FIELD_TYPE_INTEGER:
+                return compareLongs(a.getLong(rowA, column), b.getLong(rowB, column));
+
+            case CursorTypes.FIELD_TYPE_FLOAT:
+                return Double.compare(a.getDouble(rowA, column), b.getDouble(rowB, column));
+
+            case CursorTypes.FIELD_TYPE_BLOB:
+                return compareBytes(a.getBlob(rowA, column), b.getBlob(rowB, column));
+
+            default:
+                String stringA = a.getString(rowA, column);
+                String stringB = b.getString(rowB, column);
+                return compareText(stringA, stringB, key.noCase);
+        }
+    }
+
+
+    /**
+     * Compare strings as the {@code BINARY} or {@code NOCASE} collation
+     * of SQLite does on a UTF-8 database. The order of code points is
+     * the order of UTF-8 bytes, so the strings are not encoded.
+     * {@code NOCASE} folds only {@code A-Z}; {@link
+     * String#compareToIgnoreCase(String)} would fold other letters, too,
+     * and the merge would disagree with the order of the shards.
+     */
+    private static int compareText(String a, String b, boolean noCase)
+    {
+        int length = Math.min(a.length(), b.length());
+
+        for (int i = 0; i < length; )
+        {
+            int codePointA = a.codePointAt(i);
+            int codePointB = b.codePointAt(i);
+
+            if (noCase)
+            {
+                codePointA = toLowerAscii(codePointA);
+                codePointB = toLowerAscii(codePointB);
+            }
+
+            if (codePointA != codePointB)
+            {
+                return (codePointA < codePointB) ? -1 : 1;
+            }
+
+            // The same code point, so the same number of chars.
+            i += Character.charCount(codePointA);
+        }
+
+        return compareLongs(a.length(), b.length());
+    }
+
+
+    private static int toLowerAscii(int codePoint)
+    {
+        return ('A' <= codePoint && codePoint <= 'Z') ? codePoint + ('a' - 'A') : codePoint;
+    }
+
+
+    private static int rank(int fieldType)
+    {
+        switch (fieldType)
+        {
+            case CursorTypes.FIELD_TYPE_NULL:
+                return 0;
+
+            case CursorTypes.FIELD_TYPE_INTEGER:
+            case CursorTypes.FIELD_TYPE_FLOAT:
+                return 1;
+
+            case CursorTypes.FIELD_TYPE_STRING:
+                return 2;
+
+            default:
+                return 3;
+        }
+    }
+
+
+    private static int compareLongs(long a, long b)
+    {
+        return (a < b) ? -1 : ((a == b) ? 0 : 1);
+    }
+
+
+    private static int compareBytes(byte[] a, byte[] b)
+    {
+        int length = Math.min(a.length, b.length);
+
+        for (int i = 0; i < length; ++i)
+        {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+
+            if (diff != 0)
+            {
+                return diff;
+            }
+        }
+
+        return a.length - b.length;
+    }
+
+
+    private static class SortKey
+    {
+        public final int column;
+        public final boolean descending;
+        public final boolean noCase;
+
+
+        public SortKey(int column, boolean descending, boolean noCase)
+        {
+            this.column     = column;
+            this.descending = descending;
+            this.noCase     = noCase;
+        }
+    }
+
+
+    /**
+     * The current row of the sorted result of a shard.
+     */
+    private static class Head implements Comparable<Head>
+    {
+        private final CursorSnapshot[] parts;
+        private final SortKey[] keys;
+        public final int part;
+        public int row;
+
+
+        public Head(CursorSnapshot[] parts, SortKey[] keys, int part)
+        {
+            this.parts = parts;
+            this.keys  = keys;
+            this.part  = part;
+        }
+
+
+        public boolean advance()
+        {
+            return ++row < parts[part].getRowCount();
+        }
+
+
+        public int compareTo(Head other)
+        {
+            for (SortKey key : keys)
+            {
+                int diff = compare(parts[part], row, parts[other.part], other.row, key);
+
+                if (diff != 0)
+                {
+                    return key.descending ? -diff : diff;
+                }
+            }
+
+            // Keep the order of the shards for equal rows.
+            return part - other.part;
+        }
+    }
+
+
+    private class Shard extends BaseOpenHelper
+    {
+        public Shard(Context context, String name, CursorFactory factory, int version)
+        {
+            super(context, name, factory, version);
+        }
+
+
+        @Override
+        public void onCreate(SQLiteDatabase db)
+        {
+            ShardedOpenHelper.this.onCreate(db);
+        }
+
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion)
+        {
+            ShardedOpenHelper.this.onUpgrade(db, oldVersion, newVersion);
+        }
+
+
+        @Override
+        public void onOpen(SQLiteDatabase db)
+        {
+            ShardedOpenHelper.this.onOpen(db);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import android.database.AbstractCursor;
+import android.database.CharArrayBuffer;
+
+
+/**
+ * Read-only cursor over a {@link CursorSnapshot}.
+ *
+ * @see CursorSnapshot#asCursor()
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+final class SnapshotCursor extends AbstractCursor
+{
+    private final CursorSnapshot snapshot;
+
+
+    public SnapshotCursor(CursorSnapshot snapshot)
+    {
+        this.snapshot = snapshot;
+    }
+
+
+    public CursorSnapshot getSnapshot()
+    {
+        return snapshot;
+    }
+
+
+    /**
+     * Get the storage type of the field of the current row.
+     */
+    public int getType(int columnIndex)
+    {
+        checkPosition();
+
+        return snapshot.getType(mPos, columnIndex);
+    }
+
+
+    @Override
+    public int getCount()
+    {
+        return snapshot.getRowCount();
+    }
+
+
+    @Override
+    public String[] getColumnNames()
+    {
+        return snapshot.getColumnNames();
+    }
+
+
+    @Override
+    public int getColumnIndex(String columnName)
+    {
+        return snapshot.getColumnIndex(columnName);
+    }
+
+
+    @Override
+    public String getString(int columnIndex)
+    {
+        checkPosition();
+
+        return snapshot.getString(mPos, columnIndex);
+    }
+
+
+    @Override
+    public void copyStringToBuffer(int columnIndex, CharArrayBuffer buffer)
+    {
+        checkPosition();
+
+        // Decode directly into the buffer without creating a String.
+        snapshot.copyStringToBuffer(mPos, columnIndex, buffer);
+    }
+
+
+    @Override
+    public short getShort(int columnIndex)
+    {
+        checkPosition();
+
+        return snapshot.getShort(mPos, columnIndex);
+    }
+
+
+    @Override
+    public int getInt(int columnIndex)
+    {
+        checkPosition();
+
+        return snapshot.getInt(mPos, columnIndex);
+    }
+
+
+    @Override
+    public long getLong(int columnIndex)
+    {
+        checkPosition();
+
+        return snapshot.getLong(mPos, columnIndex);
+    }
+
+
+    @Override
+    public float getFloat(int columnIndex)
+    {
+        checkPosition();
+
+        return snapshot.getFloat(mPos, columnIndex);
+    }
+
+
+    @Override
+    public double getDouble(int columnIndex)
+    {
+        checkPosition();
+
+        return snapshot.getDouble(mPos, columnIndex);
+    }
+
+
+    @Override
+    public byte[] getBlob(int columnIndex)
+    {
+        checkPosition();
+
+        return snapshot.getBlob(mPos, columnIndex);
+    }
+
+
+    @Override
+    public boolean isNull(int columnIndex)
+    {
+        checkPosition();
+
+        return snapshot.isNull(mPos, columnIndex);
+    }
+}
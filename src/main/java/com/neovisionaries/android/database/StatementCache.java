@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+
+/**
+ * LRU cache of compiled statements used by {@link BaseOpenHelper}.
+ *
+ * <p>
+ * A statement is checked out by {@link #acquire(SQLiteDatabase, String)}
+ * and checked in by {@link #release(SQLiteStatement)}. While checked out,
+ * a statement is not in the cache, so it is never handed to two threads
+ * at the same time. When another thread requests the same SQL meanwhile,
+ * a new statement is compiled for it.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+final class StatementCache
+{
+    /**
+     * Idle statements keyed by SQL (least recently used first).
+     */
+    private final LinkedHashMap<String, SQLiteStatement> idle =
+        new LinkedHashMap<String, SQLiteStatement>(16, 0.75f, true);
+
+
+    /**
+     * Checked-out statements.
+     */
+    private final Map<SQLiteStatement, Checkout> checkouts =
+        new IdentityHashMap<SQLiteStatement, Checkout>();
+
+
+    /**
+     * The database which the idle statements belong to.
+     */
+    private SQLiteDatabase database;
+
+
+    /**
+     * Incremented every time the cache is flushed.
+     */
+    private int generation;
+
+
+    private int capacity;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+
+    public StatementCache(int capacity)
+    {
+        this.capacity = capacity;
+    }
+
+
+    public synchronized SQLiteStatement acquire(SQLiteDatabase db, String sql)
+    {
+        if (db != database || db.isOpen() == false)
+        {
+            // The statements belong to another (or a closed) database.
+            flush();
+            database = db;
+        }
+
+        SQLiteStatement statement = idle.remove(sql);
+
+        if (statement != null)
+        {
+            ++hitCount;
+        }
+        else
+        {
+            ++missCount;
+            statement = db.compileStatement(sql);
+        }
+
+        checkouts.put(statement, new Checkout(sql, generation));
+
+        return statement;
+    }
+
+
+    public synchronized void release(SQLiteStatement statement)
+    {
+        Checkout checkout = checkouts.remove(statement);
+
+        if (checkout == null)
+        {
+            throw new IllegalArgumentException("The statement was not acquired from the cache.");
+        }
+
+        if (checkout.generation != generation || capacity == 0 || idle.containsKey(checkout.sql))
+        {
+            // The database was closed after the statement was acquired,
+            // the cache is disabled, or another thread has returned an
+            // equivalent statement.
+            statement.close();
+            return;
+        }
+
+        statement.clearBindings();
+        idle.put(checkout.sql, statement);
+
+        trim();
+    }
+
+
+    /**
+     * Close all the idle statements. Checked-out statements are closed
+     * when they are released.
+     */
+    public synchronized void flush()
+    {
+        invalidationCount += idle.size();
+
+        for (SQLiteStatement statement : idle.values())
+        {
+            statement.close();
+        }
+
+        idle.clear();
+        database = null;
+        ++generation;
+    }
+
+
+    public synchronized void setCapacity(int capacity)
+    {
+        this.capacity = capacity;
+
+        trim();
+    }
+
+
+    public synchronized int getCapacity()
+    {
+        return capacity;
+    }
+
+
+    public synchronized CacheStatistics getStatistics()
+    {
+        return new CacheStatistics(hitCount, missCount, evictionCount, invalidationCount, idle.size());
+    }
+
+
+    private void trim()
+    {
+        Iterator<SQLiteStatement> it = idle.values().iterator();
+
+        while (capacity < idle.size() && it.hasNext())
+        {
+            // Evict the least recently used statement.
+            SQLiteStatement statement = it.next();
+            it.remove();
+            statement.close();
+            ++evictionCount;
+        }
+    }
+
+
+    private static class Checkout
+    {
+        public final String sql;
+        public final int generation;
+
+
+        public Checkout(String sql, int generation)
+        {
+            this.sql        = sql;
+            this.generation = generation;
+        }
+    }
+}
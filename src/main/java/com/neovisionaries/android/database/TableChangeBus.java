@@ -0,0 +1,461 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import android.util.Log;
+
+
+/**
+ * Bus which notifies subscribers of changes to tables written through
+ * {@link BaseOpenHelper}.
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * TableChangeBus bus = <span class="keyword">new</span> TableChangeBus(helper);
+ *
+ * <span class="comment">// Coalesce changes made within 200 milliseconds.</span>
+ * bus.{@link #setDebounceInterval(long, TimeUnit) setDebounceInterval}(200, TimeUnit.MILLISECONDS);
+ *
+ * bus.{@link #subscribe(TableChangeListener, String...) subscribe}(listener, "item", "category");
+ *
+ * <span class="comment">// Writers declare the tables they write.</span>
+ * SQLiteDatabase db = helper.{@link BaseOpenHelper#openWritable(String...) openWritable}("item");
+ * ......
+ * helper.closeWritable(db);  <span class="comment">// listener is notified of "item" later.</span>
+ * </pre>
+ *
+ * <p>
+ * The bus registers itself to the helper as a {@link TableWriteListener}.
+ * {@link BaseOpenHelper#closeWritable(android.database.sqlite.SQLiteDatabase)
+ * closeWritable()} only records the changed tables, and the notifications
+ * are delivered later on the delivery thread of the bus, so they are never
+ * delivered while the write lock is held. The first change after a delivery
+ * starts the debounce interval, and all the changes made until the interval
+ * elapses are delivered together, at most once per subscriber. Continuous
+ * writes therefore delay a notification by at most one interval.
+ * </p>
+ *
+ * <p>
+ * A write made through {@link BaseOpenHelper#openWritable()} without
+ * declaring tables is delivered to all the subscribers with {@code null}
+ * tables. Writes which bypass the helper are not detected; call {@link
+ * #publish(String...)} for them.
+ * </p>
+ *
+ * <p>
+ * Changes are published only after they have been committed if the
+ * writer begins its transactions by {@link
+ * BaseOpenHelper#beginTransaction(android.database.sqlite.SQLiteDatabase)}
+ * (or uses {@link BaseOpenHelper#beginTransactionScope(String...)} or
+ * {@link BaseOpenHelper#runInTransaction(DatabaseTask, String...)}).
+ * Writes rolled back in such transactions are not published. See {@link
+ * BaseOpenHelper#addTableWriteListener(TableWriteListener)}.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class TableChangeBus implements TableWriteListener
+{
+    /**
+     * The default debounce interval in milliseconds.
+     */
+    private static final long DEFAULT_DEBOUNCE_INTERVAL = 100;
+
+
+    private static final String TAG = "TableChangeBus";
+
+
+    private final BaseOpenHelper helper;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+    private final ScheduledExecutorService deliverer;
+    private volatile long debounceInterval = DEFAULT_DEBOUNCE_INTERVAL;
+
+
+    /**
+     * Tables changed since the last delivery.
+     */
+    private Set<String> pendingTables = new HashSet<String>();
+
+
+    /**
+     * True if a writer which did not declare tables has written
+     * since the last delivery.
+     */
+    private boolean pendingAll;
+
+
+    /**
+     * True if a delivery has been scheduled.
+     */
+    private boolean scheduled;
+
+
+    /**
+     * Constructor. The bus registers itself to the helper by {@link
+     * BaseOpenHelper#addTableWriteListener(TableWriteListener)}.
+     *
+     * @param helper
+     *         The database open helper.
+     *
+     * @throws IllegalArgumentException
+     *         {@code helper} is {@code null}.
+     */
+    public TableChangeBus(BaseOpenHelper helper)
+    {
+        if (helper == null)
+        {
+            throw new IllegalArgumentException("helper is null.");
+        }
+
+        this.helper    = helper;
+        this.deliverer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, TAG);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        helper.addTableWriteListener(this);
+    }
+
+
+    /**
+     * Unregister the bus from the helper and stop the delivery thread.
+     * Pending notifications are discarded.
+     */
+    public void close()
+    {
+        helper.removeTableWriteListener(this);
+        deliverer.shutdownNow();
+    }
+
+
+    /**
+     * Set the debounce interval. The default value is 100 milliseconds.
+     * 0 delivers each change as soon as possible (still on the delivery
+     * thread).
+     *
+     * @param interval
+     *         The interval.
+     *
+     * @param unit
+     *         The time unit of {@code interval}.
+     *
+     * @throws IllegalArgumentException
+     *         {@code interval} is negative or {@code unit} is {@code null}.
+     */
+    public void setDebounceInterval(long interval, TimeUnit unit)
+    {
+        if (interval < 0)
+        {
+            throw new IllegalArgumentException("interval is negative.");
+        }
+
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("unit is null.");
+        }
+
+        debounceInterval = unit.toMillis(interval);
+    }
+
+
+    /**
+     * Get the debounce interval in milliseconds.
+     */
+    public long getDebounceInterval()
+    {
+        return debounceInterval;
+    }
+
+
+    /**
+     * Subscribe to changes to the given tables.
+     *
+     * <p>
+     * A listener has at most one subscription. Subscribing a listener
+     * again adds the tables to its subscription, and the listener is
+     * still notified at most once per delivery.
+     * </p>
+     *
+     * @param listener
+     *         A listener.
+     *
+     * @param tables
+     *         The tables (case-insensitive). If none is given, the
+     *         listener is notified of changes to any table.
+     *
+     * @throws IllegalArgumentException
+     *         {@code listener} is {@code null}.
+     */
+    public void subscribe(TableChangeListener listener, String... tables)
+    {
+        if (listener == null)
+        {
+            throw new IllegalArgumentException("listener is null.");
+        }
+
+        Subscription subscription = new Subscription(listener, tables);
+
+        synchronized (subscriptions)
+        {
+            int index = indexOf(listener);
+
+            if (index < 0)
+            {
+                subscriptions.add(subscription);
+            }
+            else
+            {
+                // Merge into the existing subscription.
+                subscriptions.set(index, subscriptions.get(index).merge(subscription));
+            }
+        }
+    }
+
+
+    /**
+     * Remove the subscription of the given listener.
+     *
+     * @param listener
+     *         A listener.
+     */
+    public void unsubscribe(TableChangeListener listener)
+    {
+        synchronized (subscriptions)
+        {
+            int index = indexOf(listener);
+
+            if (0 <= index)
+            {
+                subscriptions.remove(index);
+            }
+        }
+    }
+
+
+    private int indexOf(TableChangeListener listener)
+    {
+        for (int i = 0; i < subscriptions.size(); ++i)
+        {
+            if (subscriptions.get(i).listener == listener)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Publish changes to the given tables, for example, changes made
+     * without going through {@link BaseOpenHelper}.
+     *
+     * @param tables
+     *         The changed tables. If none is given, all the subscribers
+     *         are notified that any table may have been changed.
+     */
+    public void publish(String... tables)
+    {
+        synchronized (this)
+        {
+            if (tables == null || tables.length == 0)
+            {
+                pendingAll = true;
+            }
+            else
+            {
+                for (String table : tables)
+                {
+                    pendingTables.add(table.toLowerCase(Locale.US));
+                }
+            }
+
+            if (scheduled)
+            {
+                // Coalesced into the scheduled delivery.
+                return;
+            }
+
+            scheduled = true;
+        }
+
+        try
+        {
+            deliverer.schedule(new Runnable()
+            {
+                public void run()
+                {
+                    deliver();
+                }
+            }, debounceInterval, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // The bus has been closed.
+        }
+    }
+
+
+    /**
+     * Called by {@link BaseOpenHelper} while the write lock is held.
+     * The change is recorded and delivered later.
+     */
+    public void onTablesWritten(BaseOpenHelper helper, String[] tables)
+    {
+        publish(tables);
+    }
+
+
+    private void deliver()
+    {
+        Set<String> tables;
+        boolean all;
+
+        synchronized (this)
+        {
+            tables        = pendingTables;
+            all           = pendingAll;
+            pendingTables = new HashSet<String>();
+            pendingAll    = false;
+            scheduled     = false;
+        }
+
+        for (Subscription subscription : subscriptions)
+        {
+            String[] changed;
+
+            if (all)
+            {
+                changed = null;
+            }
+            else
+            {
+                changed = subscription.filter(tables);
+
+                if (changed.length == 0)
+                {
+                    // None of the subscribed tables was changed.
+                    continue;
+                }
+            }
+
+            try
+            {
+                subscription.listener.onTablesChanged(this, changed);
+            }
+            catch (RuntimeException e)
+            {
+                // Don't let a listener prevent the others from being notified.
+                Log.e(TAG, "A TableChangeListener threw an exception.", e);
+            }
+        }
+    }
+
+
+    private static class Subscription
+    {
+        public final TableChangeListener listener;
+        public final Set<String> tables;
+
+
+        private Subscription(TableChangeListener listener, Set<String> tables)
+        {
+            this.listener = listener;
+            this.tables   = tables;
+        }
+
+
+        public Subscription(TableChangeListener listener, String[] tables)
+        {
+            this.listener = listener;
+
+            if (tables == null || tables.length == 0)
+            {
+                // Any table.
+                this.tables = null;
+                return;
+            }
+
+            this.tables = new HashSet<String>();
+
+            for (String table : tables)
+            {
+                this.tables.add(table.toLowerCase(Locale.US));
+            }
+        }
+
+
+        /**
+         * Create a subscription of the tables of this and the given one.
+         */
+        public Subscription merge(Subscription other)
+        {
+            if (tables == null || other.tables == null)
+            {
+                // Any table.
+                return new Subscription(listener, (Set<String>)null);
+            }
+
+            Set<String> union = new HashSet<String>(tables);
+            union.addAll(other.tables);
+
+            return new Subscription(listener, union);
+        }
+
+
+        public String[] filter(Set<String> changed)
+        {
+            if (tables == null)
+            {
+                return changed.toArray(new String[changed.size()]);
+            }
+
+            List<String> list = new ArrayList<String>();
+
+            for (String table : changed)
+            {
+                if (tables.contains(table))
+                {
+                    list.add(table);
+                }
+            }
+
+            return list.toArray(new String[list.size()]);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+/**
+ * Listener notified of table changes by {@link TableChangeBus}.
+ *
+ * @see TableChangeBus#subscribe(TableChangeListener, String...)
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public interface TableChangeListener
+{
+    /**
+     * Called on the delivery thread of the bus after changes to the
+     * subscribed tables have been committed. Changes made during the
+     * debounce interval are coalesced into one call. No lock of the
+     * helper is held when this method is called, so implementations
+     * may query the database.
+     *
+     * @param bus
+     *         The bus which delivers the notification.
+     *
+     * @param tables
+     *         The changed tables (in lower case) among the subscribed
+     *         ones, or {@code null} if a writer did not declare tables
+     *         (that is, any table may have been changed).
+     */
+    void onTablesChanged(TableChangeBus bus, String[] tables);
+}
@@ -0,0 +1,614 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+
+/**
+ * Immutable in-memory mirror of a small table which is read frequently.
+ *
+ * <p>
+ * {@link #load()} reads the whole table into an immutable snapshot which
+ * is indexed by the primary key column and by the secondary key columns
+ * declared by {@link #addIndex(String)}. Lookups read the current snapshot
+ * through a volatile reference, so they take no lock and never touch
+ * SQLite.
+ * </p>
+ *
+ * <p>
+ * The mirror registers itself to the helper as a {@link TableWriteListener}.
+ * After a write which declares the table (or declares no table) through
+ * {@link BaseOpenHelper#openWritable(String...)} is closed, the table is
+ * reloaded on the background thread of the mirror under the read lock,
+ * and the new snapshot replaces the old one atomically. Writes made while
+ * a reload is running cause another reload, and writes made while a reload
+ * is waiting are coalesced into it. Until the new snapshot is published,
+ * lookups return the previous one, which is consistent in itself. Writes
+ * which bypass the helper are not detected; call {@link #reload()} for them.
+ * </p>
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * TableMirror&lt;Setting&gt; settings = <span class="keyword">new</span> TableMirror&lt;Setting&gt;(
+ *     helper, "setting", "id", RowMapper.forClass(Setting.<span class="keyword">class</span>));
+ *
+ * settings.{@link #addIndex(String) addIndex}("name");
+ * settings.{@link #load()};
+ *
+ * <span class="comment">// Lock-free lookups.</span>
+ * Setting setting = settings.{@link #get(Object) get}(12);
+ * List&lt;Setting&gt; named = settings.{@link #getBy(String, Object) getBy}("name", "theme");
+ * </pre>
+ *
+ * <p>
+ * Keys are compared by the values read from the cursor: integers as
+ * {@code Long}, floating-point numbers as {@code Double} and text as
+ * {@code String}. {@code Integer}, {@code Short} and {@code Byte} keys
+ * given to lookups are converted to {@code Long}, and {@code Float} keys
+ * to {@code Double}. Rows whose key is {@code NULL} or a blob are not
+ * indexed by the key. The mapped objects are shared by all the readers
+ * and must not be modified.
+ * </p>
+ *
+ * @param <T>
+ *         The type of rows.
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public class TableMirror<T> implements TableWriteListener
+{
+    private static final String TAG = "TableMirror";
+
+
+    private final BaseOpenHelper helper;
+    private final String table;
+    private final String keyColumn;
+    private final RowMapper<T> mapper;
+    private final List<String> indexColumns = new ArrayList<String>();
+    private final ExecutorService reloader;
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+    private volatile Snapshot<T> snapshot;
+
+
+    /**
+     * Immutable snapshot of a mirrored table. Lookups on the same snapshot
+     * are consistent with each other.
+     *
+     * @param <T>
+     *         The type of rows.
+     */
+    public static final class Snapshot<T>
+    {
+        private final long version;
+        private final List<T> rows;
+        private final Map<Object, T> primary;
+        private final Map<String, Map<Object, List<T>>> secondaries;
+
+
+        Snapshot(long version, List<T> rows, Map<Object, T> primary,
+                 Map<String, Map<Object, List<T>>> secondaries)
+        {
+            this.version     = version;
+            this.rows        = rows;
+            this.primary     = primary;
+            this.secondaries = secondaries;
+        }
+
+
+        /**
+         * Get the version of this snapshot, which is incremented every
+         * time a new snapshot is published.
+         */
+        public long getVersion()
+        {
+            return version;
+        }
+
+
+        /**
+         * Get all the rows in the order of the primary key.
+         *
+         * @return
+         *         An unmodifiable list of the rows.
+         */
+        public List<T> getAll()
+        {
+            return rows;
+        }
+
+
+        /**
+         * Get the row of the given primary key.
+         *
+         * @param key
+         *         A primary key.
+         *
+         * @return
+         *         The row, or {@code null} if not found.
+         */
+        public T get(Object key)
+        {
+            return primary.get(normalizeKey(key));
+        }
+
+
+        /**
+         * Get the rows of the given secondary key.
+         *
+         * @param column
+         *         A column declared by {@link TableMirror#addIndex(String)}.
+         *
+         * @param key
+         *         A key.
+         *
+         * @return
+         *         An unmodifiable list of the rows. An empty list is
+         *         returned if not found.
+         *
+         * @throws IllegalArgumentException
+         *         {@code column} has not been declared.
+         */
+        public List<T> getBy(String column, Object key)
+        {
+            Map<Object, List<T>> index = secondaries.get(column);
+
+            if (index == null)
+            {
+                throw new IllegalArgumentException("No index for the column: " + column);
+            }
+
+            List<T> list = index.get(normalizeKey(key));
+
+            if (list == null)
+            {
+                return Collections.emptyList();
+            }
+
+            return list;
+        }
+    }
+
+
+    /**
+     * Constructor. The mirror registers itself to the helper by {@link
+     * BaseOpenHelper#addTableWriteListener(TableWriteListener)}. Call
+     * {@link #load()} to load the table.
+     *
+     * @param helper
+     *         The database open helper.
+     *
+     * @param table
+     *         The table to mirror.
+     *
+     * @param keyColumn
+     *         The primary key column.
+     *
+     * @param mapper
+     *         The mapper from rows to objects.
+     *
+     * @throws IllegalArgumentException
+     *         Any of the arguments is {@code null}.
+     */
+    public TableMirror(BaseOpenHelper helper, String table, String keyColumn, RowMapper<T> mapper)
+    {
+        if (helper == null)
+        {
+            throw new IllegalArgumentException("helper is null.");
+        }
+
+        if (table == null)
+        {
+            throw new IllegalArgumentException("table is null.");
+        }
+
+        if (keyColumn == null)
+        {
+            throw new IllegalArgumentException("keyColumn is null.");
+        }
+
+        if (mapper == null)
+        {
+            throw new IllegalArgumentException("mapper is null.");
+        }
+
+        this.helper    = helper;
+        this.table     = table;
+        this.keyColumn = keyColumn;
+        this.mapper    = mapper;
+        this.reloader  = Executors.newSingleThreadExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, TAG);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        helper.addTableWriteListener(this);
+    }
+
+
+    /**
+     * Get the mirrored table.
+     */
+    public String getTable()
+    {
+        return table;
+    }
+
+
+    /**
+     * Declare a secondary key column. The index is built by the next load.
+     *
+     * @param column
+     *         A column of the table. The values need not be unique.
+     *
+     * @return
+     *         {@code this} object.
+     *
+     * @throws IllegalArgumentException
+     *         {@code column} is {@code null}.
+     */
+    public synchronized TableMirror<T> addIndex(String column)
+    {
+        if (column == null)
+        {
+            throw new IllegalArgumentException("column is null.");
+        }
+
+        if (indexColumns.contains(column) == false)
+        {
+            indexColumns.add(column);
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Load the table on the calling thread under the read lock and
+     * publish the snapshot.
+     */
+    public void load()
+    {
+        reload();
+    }
+
+
+    /**
+     * Reload the table on the calling thread under the read lock and
+     * publish a new snapshot. Call this method after writes which bypass
+     * the helper.
+     */
+    public void reload()
+    {
+        SQLiteDatabase db = helper.openReadable(table);
+
+        try
+        {
+            // No write can happen while the read lock is held, so reloads
+            // serialized here publish snapshots in order.
+            synchronized (this)
+            {
+                snapshot = read(db);
+            }
+        }
+        finally
+        {
+            helper.closeReadable(db);
+        }
+    }
+
+
+    /**
+     * Get the current snapshot.
+     *
+     * @return
+     *         The current snapshot.
+     *
+     * @throws IllegalStateException
+     *         The table has not been loaded.
+     */
+    public Snapshot<T> getSnapshot()
+    {
+        Snapshot<T> current = snapshot;
+
+        if (current == null)
+        {
+            throw new IllegalStateException("The table has not been loaded.");
+        }
+
+        return current;
+    }
+
+
+    /**
+     * Get the row of the given primary key from the current snapshot.
+     *
+     * @param key
+     *         A primary key.
+     *
+     * @return
+     *         The row, or {@code null} if not found.
+     *
+     * @throws IllegalStateException
+     *         The table has not been loaded.
+     */
+    public T get(Object key)
+    {
+        return getSnapshot().get(key);
+    }
+
+
+    /**
+     * Get the rows of the given secondary key from the current snapshot.
+     *
+     * @param column
+     *         A column declared by {@link #addIndex(String)}.
+     *
+     * @param key
+     *         A key.
+     *
+     * @return
+     *         An unmodifiable list of the rows.
+     *
+     * @throws IllegalArgumentException
+     *         {@code column} has not been declared.
+     *
+     * @throws IllegalStateException
+     *         The table has not been loaded.
+     */
+    public List<T> getBy(String column, Object key)
+    {
+        return getSnapshot().getBy(column, key);
+    }
+
+
+    /**
+     * Get all the rows of the current snapshot.
+     *
+     * @return
+     *         An unmodifiable list of the rows.
+     *
+     * @throws IllegalStateException
+     *         The table has not been loaded.
+     */
+    public List<T> getAll()
+    {
+        return getSnapshot().getAll();
+    }
+
+
+    /**
+     * Stop mirroring. The mirror unregisters itself from the helper and
+     * stops its background thread. The last snapshot remains readable.
+     */
+    public void close()
+    {
+        helper.removeTableWriteListener(this);
+        reloader.shutdownNow();
+    }
+
+
+    /**
+     * Schedule a reload if the table may have been written. This method
+     * is called by the helper while the write lock is held, so the reload
+     * itself is performed on the background thread after the write lock
+     * is released.
+     */
+    public void onTablesWritten(BaseOpenHelper helper, String[] tables)
+    {
+        if (tables != null && contains(tables, table) == false)
+        {
+            return;
+        }
+
+        if (reloadScheduled.compareAndSet(false, true) == false)
+        {
+            // A reload which has not started yet covers this write.
+            return;
+        }
+
+        try
+        {
+            reloader.execute(new Runnable()
+            {
+                public void run()
+                {
+                    // Writes made from now on schedule another reload.
+                    reloadScheduled.set(false);
+
+                    try
+                    {
+                        reload();
+                    }
+                    catch (RuntimeException e)
+                    {
+                        // Keep the previous snapshot.
+                        Log.w(TAG, "Failed to reload " + table + ".", e);
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // Closed.
+        }
+    }
+
+
+    private Snapshot<T> read(SQLiteDatabase db)
+    {
+        String[] columns = indexColumns.toArray(new String[indexColumns.size()]);
+
+        Cursor cursor = db.rawQuery("SELECT * FROM " + table + " ORDER BY " + keyColumn, null);
+
+        try
+        {
+            int keyIndex = cursor.getColumnIndexOrThrow(keyColumn);
+            int[] indexes = new int[columns.length];
+
+            for (int i = 0; i < columns.length; ++i)
+            {
+                indexes[i] = cursor.getColumnIndexOrThrow(columns[i]);
+            }
+
+            List<T> rows = new ArrayList<T>(Math.max(0, cursor.getCount()));
+            Map<Object, T> primary = new HashMap<Object, T>();
+            List<Map<Object, List<T>>> secondaries = new ArrayList<Map<Object, List<T>>>();
+
+            for (int i = 0; i < columns.length; ++i)
+            {
+                secondaries.add(new HashMap<Object, List<T>>());
+            }
+
+            while (cursor.moveToNext())
+            {
+                T row = mapper.map(cursor);
+                rows.add(row);
+
+                Object key = readKey(cursor, keyIndex);
+
+                if (key != null)
+                {
+                    primary.put(key, row);
+                }
+
+                for (int i = 0; i < columns.length; ++i)
+                {
+                    Object value = readKey(cursor, indexes[i]);
+
+                    if (value != null)
+                    {
+                        addToIndex(secondaries.get(i), value, row);
+                    }
+                }
+            }
+
+            Map<String, Map<Object, List<T>>> frozen = new HashMap<String, Map<Object, List<T>>>();
+
+            for (int i = 0; i < columns.length; ++i)
+            {
+                frozen.put(columns[i], freeze(secondaries.get(i)));
+            }
+
+            Snapshot<T> previous = snapshot;
+            long version = (previous == null) ? 1 : previous.getVersion() + 1;
+
+            return new Snapshot<T>(version, Collections.unmodifiableList(rows),
+                Collections.unmodifiableMap(primary), Collections.unmodifiableMap(frozen));
+        }
+        finally
+        {
+            cursor.close();
+        }
+    }
+
+
+    private static <T> void addToIndex(Map<Object, List<T>> index, Object key, T row)
+    {
+        List<T> list = index.get(key);
+
+        if (list == null)
+        {
+            list = new ArrayList<T>(1);
+            index.put(key, list);
+        }
+
+        list.add(row);
+    }
+
+
+    private static <T> Map<Object, List<T>> freeze(Map<Object, List<T>> index)
+    {
+        for (Map.Entry<Object, List<T>> entry : index.entrySet())
+        {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        return Collections.unmodifiableMap(index);
+    }
+
+
+    private static Object readKey(Cursor cursor, int columnIndex)
+    {
+        switch (CursorTypes.getType(cursor, columnIndex))
+        {
+            case CursorTypes.FIELD_TYPE_INTEGER:
+                return Long.valueOf(cursor.getLong(columnIndex));
+
+            case CursorTypes.FIELD_TYPE_FLOAT:
+                return Double.valueOf(cursor.getDouble(columnIndex));
+
+            case CursorTypes.FIELD_TYPE_STRING:
+                return cursor.getString(columnIndex);
+
+            default:
+                // NULL and blobs are not indexed.
+                return null;
+        }
+    }
+
+
+    private static Object normalizeKey(Object key)
+    {
+        if (key instanceof Integer || key instanceof Short || key instanceof Byte)
+        {
+            return Long.valueOf(((Number)key).longValue());
+        }
+
+        if (key instanceof Float)
+        {
+            return Double.valueOf(((Float)key).doubleValue());
+        }
+
+        return key;
+    }
+
+
+    private static boolean contains(String[] tables, String table)
+    {
+        for (String t : tables)
+        {
+            if (table.equalsIgnoreCase(t))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+/**
+ * Listener notified of writes made through {@link BaseOpenHelper}.
+ *
+ * @see BaseOpenHelper#addTableWriteListener(TableWriteListener)
+ *
+ * @since 1.13
+ *
+ * @author Takahiko Kawasaki
+ */
+public interface TableWriteListener
+{
+    /**
+     * Called by {@link BaseOpenHelper#closeWritable(android.database.sqlite.SQLiteDatabase)
+     * closeWritable()} while the write lock is still held. Not called
+     * for writes known to have been rolled back; see {@link
+     * BaseOpenHelper#addTableWriteListener(TableWriteListener)}.
+     *
+     * <p>
+     * Implementations must return quickly and must not open the
+     * database by themselves.
+     * </p>
+     *
+     * @param helper
+     *         The helper through which the database was written.
+     *
+     * @param tables
+     *         The tables declared by {@link BaseOpenHelper#openWritable(String...)},
+     *         or {@code null} if the writer did not declare tables (that is,
+     *         any table may have been changed).
+     */
+    void onTablesWritten(BaseOpenHelper helper, String[] tables);
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2026 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.android.database;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import android.database.sqlite.SQLiteDatabase;
+
+
+/**
+ * Transaction scope which can be nested, obtained by {@link
+ * BaseOpenHelper#beginTransactionScope(String...)}.
+ *
+ * <style type="text/css">
+ * span.keyword { color: purple; font-weight: bold; }
+ * span.comment { color: green; }
+ * </style>
+ *
+ * <pre style="margin: 1em; padding: 0.5em; border: solid 1px black;">
+ * TransactionScope scope = helper.beginTransactionScope("item");
+ *
+ * <span class="keyword">try</span>
+ * {
+ *     <span class="comment">// This may begin an inner scope.</span>
+ *     addItem(scope.{@link #getDatabase()}, item);
+ *
+ *     scope.{@link #setSuccessful()};
+ * }
+ * <span class="keyword">finally</span>
+ * {
+ *     <span class="comment">// Commits or rolls back the work of this scope.</span>
+ *     scope.{@link #close()};
+ * }
+ * </pre>
+ *
+ * <p>
+ * The outermost scope of a thread opens the database by {@link
+ * BaseOpenHelper#openWritable(String...)} and begins a transaction.
+ * An inner scope begins a savepoint ({@code SAVEPOINT}) instead. When
+ * an inner scope is closed without {@link #setSuccessful()}, only the
+ * work of the scope is rolled back ({@code ROLLBACK TO}) and the outer
+ * scope can still commit. The transaction is committed when the
+ * outermost scope is closed successfully.
+ * </p>
+ *
+ * <p>
+ * Inner scopes acquire the write locks of their own tables, too, and
+ * the locks are held until the outermost scope is closed, so other
+ * threads never see uncommitted changes. Scopes must be closed on the
+ * thread which began them, innermost first.
+ * </p>
+ *
+ * <p>
+ * An inner scope can write only the tables given to the outermost
+ * scope (any table if the outermost scope was given none). Otherwise,
+ * it would have to acquire a lock while the transaction holds the
+ * connection, which could deadlock (see {@link LockStrategy}), so
+ * {@link BaseOpenHelper#beginTransactionScope(String...)} throws
+ * {@code IllegalStateException} instead. Give the outermost scope all
+ * the tables written by its inner scopes.
+ * </p>
+ *
+ * @since 1.13
+ * @author Takahiko Kawasaki
+ */
+public final class TransactionScope
+{
+    private final BaseOpenHelper helper;
+    private final SQLiteDatabase db;
+    private final TransactionScope parent;
+    private final TransactionScope root;
+    private final String savepoint;
+
+
+    /**
+     * The tables given to the outermost scope, or {@code null} if
+     * the whole database is locked.
+     */
+    private final String[] tables;
+
+
+    /**
+     * Databases opened by inner scopes, in the order of opening
+     * (outermost scope only). They are closed after the commit.
+     */
+    private final List<SQLiteDatabase> innerDatabases;
+
+
+    private boolean successful;
+    private boolean closed;
+
+
+    TransactionScope(BaseOpenHelper helper, SQLiteDatabase db, TransactionScope parent, String[] tables)
+    {
+        this.helper = helper;
+        this.db     = db;
+        this.parent = parent;
+
+        if (parent == null)
+        {
+            this.root           = this;
+            this.savepoint      = null;
+            this.tables         = (tables == null || tables.length == 0) ? null : tables.clone();
+            this.innerDatabases = new ArrayList<SQLiteDatabase>();
+        }
+        else
+        {
+            this.root           = parent.root;
+            this.savepoint      = "scope_" + root.innerDatabases.size();
+            this.tables         = parent.tables;
+            this.innerDatabases = null;
+        }
+    }
+
+
+    /**
+     * Check if an inner scope of this scope can write the given tables,
+     * i.e. the outermost scope has locked the tables.
+     *
+     * @param tables
+     *         The tables of the inner scope. {@code null} or an empty
+     *         array means the whole database.
+     */
+    boolean covers(String[] tables)
+    {
+        if (this.tables == null)
+        {
+            // The whole database is locked.
+            return true;
+        }
+
+        if (tables == null || tables.length == 0)
+        {
+            return false;
+        }
+
+        for (String table : tables)
+        {
+            if (contains(table) == false)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    private boolean contains(String table)
+    {
+        for (String declared : tables)
+        {
+            if (declared.equalsIgnoreCase(table))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Begin the transaction or the savepoint of this scope.
+     */
+    void begin()
+    {
+        if (parent == null)
+        {
+            helper.beginTransaction(db);
+        }
+        else
+        {
+            db.execSQL("SAVEPOINT " + savepoint);
+            root.innerDatabases.add(db);
+        }
+    }
+
+
+    /**
+     * Get the database.
+     */
+    public SQLiteDatabase getDatabase()
+    {
+        return db;
+    }
+
+
+    /**
+     * Check if this is the outermost scope of the thread.
+     */
+    public boolean isOutermost()
+    {
+        return parent == null;
+    }
+
+
+    /**
+     * Mark the work of this scope as successful. Unless this method
+     * is called, {@link #close()} rolls back the work of this scope.
+     */
+    public void setSuccessful()
+    {
+        successful = true;
+    }
+
+
+    /**
+     * Close this scope. The work of the scope is released (inner scope),
+     * committed (outermost scope) or rolled back (unsuccessful scope).
+     * Calling this method more than once has no effect.
+     *
+     * @throws IllegalStateException
+     *         An inner scope of this scope has not been closed yet.
+     */
+    public void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+
+        if (helper.getCurrentScope() != this)
+        {
+            throw new IllegalStateException("An inner scope has not been closed.");
+        }
+
+        closed = true;
+        helper.setCurrentScope(parent);
+
+        if (parent != null)
+        {
+            if (successful == false)
+            {
+                // Roll back only the work of this scope.
+                db.execSQL("ROLLBACK TO " + savepoint);
+            }
+
+            db.execSQL("RELEASE " + savepoint);
+
+            // The lock is released by the outermost scope.
+            return;
+        }
+
+        try
+        {
+            if (successful)
+            {
+                db.setTransactionSuccessful();
+            }
+
+            db.endTransaction();
+        }
+        finally
+        {
+            closeDatabases();
+        }
+    }
+
+
+    private void closeDatabases()
+    {
+        try
+        {
+            // Release the locks in the reverse order of acquisition.
+            for (int i = innerDatabases.size() - 1; 0 <= i; --i)
+            {
+                helper.closeWritable(innerDatabases.get(i));
+            }
+        }
+        finally
+        {
+            helper.closeWritable(db);
+        }
+    }
+}